@@ -0,0 +1,79 @@
+package com.dimlix.tgcontest;
+
+import android.content.res.AssetFileDescriptor;
+import android.content.res.AssetManager;
+
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Gives access to asset content without copying it to a String.
+ * <p>
+ * Assets stored uncompressed in apk (see noCompress in build.gradle) are memory-mapped
+ * directly from the apk file. Compressed assets can't be opened as file descriptor and
+ * are read in chunks until end of stream, InputStream.available() is not relied on.
+ */
+class AssetReader {
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private AssetReader() {
+    }
+
+    /**
+     * @return buffer with the whole asset content between position and limit
+     */
+    static ByteBuffer read(AssetManager assets, String assetName) throws IOException {
+        ByteBuffer mapped = map(assets, assetName);
+        if (mapped != null) {
+            return mapped;
+        }
+        InputStream is = assets.open(assetName);
+        try {
+            byte[] buffer = new byte[CHUNK_SIZE];
+            int size = 0;
+            int read;
+            while ((read = is.read(buffer, size, buffer.length - size)) != -1) {
+                size += read;
+                if (size == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, size * 2);
+                }
+            }
+            return ByteBuffer.wrap(buffer, 0, size);
+        } finally {
+            is.close();
+        }
+    }
+
+    /**
+     * @return mapped asset or null if asset is compressed
+     */
+    private static ByteBuffer map(AssetManager assets, String assetName) throws IOException {
+        AssetFileDescriptor fd;
+        try {
+            fd = assets.openFd(assetName);
+        } catch (FileNotFoundException e) {
+            // Thrown for compressed assets.
+            return null;
+        }
+        try {
+            if (fd.getLength() == AssetFileDescriptor.UNKNOWN_LENGTH) {
+                return null;
+            }
+            FileInputStream is = fd.createInputStream();
+            try {
+                FileChannel channel = is.getChannel();
+                // Mapping stays valid after channel is closed.
+                return channel.map(FileChannel.MapMode.READ_ONLY, fd.getStartOffset(), fd.getLength());
+            } finally {
+                is.close();
+            }
+        } finally {
+            fd.close();
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.dimlix.tgcontest;
+
+import android.content.res.AssetManager;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+
+import com.dimlix.tgcontest.model.ChartData;
+import com.dimlix.tgcontest.model.GraphData;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Loads charts from assets in background: asset I/O, parse and precompute run on worker
+ * threads, result is bound on the main thread.
+ * <p>
+ * Parsed charts are cached as {@link ChartSnapshot} files keyed by hash of asset content,
+ * so json is parsed only once per asset version.
+ * <p>
+ * Pending requests are taken by priority, so charts which are on screen can be moved ahead
+ * of the others with {@link #setPriority(Request, int)}.
+ */
+public class ChartLoader {
+    private static final int THREADS_COUNT =
+            Math.max(1, Math.min(2, Runtime.getRuntime().availableProcessors() - 1));
+
+    private static final String SNAPSHOTS_DIR = "charts";
+
+    private final AssetManager mAssets;
+    private final File mSnapshotsDir;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final AtomicLong mSequence = new AtomicLong();
+    private final ThreadPoolExecutor mExecutor;
+    private volatile boolean mReleased;
+
+    public ChartLoader(AssetManager assets, File cacheDir) {
+        mAssets = assets;
+        mSnapshotsDir = new File(cacheDir, SNAPSHOTS_DIR);
+        mExecutor = new ThreadPoolExecutor(THREADS_COUNT, THREADS_COUNT, 0, TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<Runnable>(), new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable r) {
+                return new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                        r.run();
+                    }
+                }, "ChartLoader");
+            }
+        });
+    }
+
+    /**
+     * @param priority lower value is loaded earlier, requests with equal priority are
+     *                 loaded in order they were added
+     */
+    public Request load(String assetName, int priority, Callback callback) {
+        Request request = new Request(assetName, priority, mSequence.getAndIncrement(), callback);
+        mExecutor.execute(request);
+        return request;
+    }
+
+    /**
+     * Changes priority of request which is not started yet, otherwise does nothing.
+     */
+    public void setPriority(Request request, int priority) {
+        if (request.mPriority == priority) return;
+        if (mExecutor.getQueue().remove(request)) {
+            request.mPriority = priority;
+            mExecutor.execute(request);
+        }
+    }
+
+    /**
+     * Cancels pending requests, results of running ones are not delivered.
+     */
+    public void release() {
+        mReleased = true;
+        mExecutor.shutdownNow();
+        mMainHandler.removeCallbacksAndMessages(null);
+    }
+
+    private ChartData readChart(String assetName) throws Exception {
+        ByteBuffer json = AssetReader.read(mAssets, assetName);
+        File snapshot = new File(mSnapshotsDir, getSnapshotName(json));
+        if (snapshot.exists()) {
+            try {
+                return ChartSnapshot.read(snapshot).getChartData().get(0);
+            } catch (IOException e) {
+                // Corrupted snapshot, parse json again and overwrite it.
+                e.printStackTrace();
+                snapshot.delete();
+            }
+        }
+        ChartData data = new JsonGraphReader().getChartDataFromJson(json);
+        writeSnapshot(data, snapshot);
+        return data;
+    }
+
+    private static String getSnapshotName(ByteBuffer content) throws NoSuchAlgorithmException {
+        MessageDigest digest = MessageDigest.getInstance("SHA-1");
+        digest.update(content.duplicate());
+        byte[] hash = digest.digest();
+        StringBuilder sb = new StringBuilder(hash.length * 2 + 8);
+        for (byte b : hash) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+            sb.append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.append(".v").append(ChartSnapshot.VERSION).toString();
+    }
+
+    /**
+     * Snapshot is only an optimization, so failure to write it doesn't fail loading.
+     */
+    private void writeSnapshot(ChartData data, File snapshot) {
+        if (!mSnapshotsDir.isDirectory() && !mSnapshotsDir.mkdirs()) {
+            return;
+        }
+        // Write to temp file first, so concurrent or interrupted write never leaves partial snapshot.
+        File tmp = new File(mSnapshotsDir, snapshot.getName() + "." + Thread.currentThread().getId() + ".tmp");
+        try {
+            GraphData graph = new GraphData();
+            graph.addChartData(data);
+            ChartSnapshot.write(graph, tmp);
+            if (!tmp.renameTo(snapshot)) {
+                tmp.delete();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            tmp.delete();
+        }
+    }
+
+    /**
+     * Computes values which are otherwise computed on first frame.
+     */
+    static void precompute(ChartData data) {
+        if (data.isStacked() || data.isPercentage()) {
+            data.getStackOffsets();
+        }
+        data.getXPositions();
+        data.getXStringValue(0).getFullDate();
+        data.getXStringValue(data.getSize() - 1).getFullDate();
+    }
+
+    public class Request implements Runnable, Comparable<Request> {
+        private final String mAssetName;
+        private final long mSequence;
+        private final Callback mCallback;
+        private volatile int mPriority;
+
+        private Request(String assetName, int priority, long sequence, Callback callback) {
+            mAssetName = assetName;
+            mPriority = priority;
+            mSequence = sequence;
+            mCallback = callback;
+        }
+
+        @Override
+        public void run() {
+            if (mReleased) return;
+            try {
+                final ChartData data = readChart(mAssetName);
+                precompute(data);
+                deliver(new Runnable() {
+                    @Override
+                    public void run() {
+                        mCallback.onChartLoaded(data);
+                    }
+                });
+            } catch (final Exception e) {
+                deliver(new Runnable() {
+                    @Override
+                    public void run() {
+                        mCallback.onChartFailed(e);
+                    }
+                });
+            }
+        }
+
+        private void deliver(final Runnable result) {
+            mMainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    if (!mReleased) {
+                        result.run();
+                    }
+                }
+            });
+        }
+
+        @Override
+        public int compareTo(Request other) {
+            if (mPriority != other.mPriority) {
+                return mPriority < other.mPriority ? -1 : 1;
+            }
+            return mSequence < other.mSequence ? -1 : (mSequence == other.mSequence ? 0 : 1);
+        }
+    }
+
+    /**
+     * Methods are called on the main thread.
+     */
+    public interface Callback {
+        void onChartLoaded(ChartData data);
+
+        void onChartFailed(Exception e);
+    }
+}
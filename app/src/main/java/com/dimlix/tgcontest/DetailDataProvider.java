@@ -0,0 +1,216 @@
+package com.dimlix.tgcontest;
+
+import android.content.res.AssetManager;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.LruCache;
+
+import com.dimlix.tgcontest.chart.ChartLayout;
+import com.dimlix.tgcontest.model.ChartData;
+
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Loads detailed data of chart days from assets laid out as {@code <dir>/yyyy-MM/dd.json},
+ * where each file is a chart with hourly values of the day.
+ * <p>
+ * Loaded days are kept in LRU cache bounded by approximate size of their columns. Only a few
+ * latest prefetches are kept in queue, so fast scrubbing doesn't pile up loads of days which
+ * user has already passed. Must be used from the main thread.
+ */
+public class DetailDataProvider implements ChartLayout.DetailDataSource {
+    private static final int CACHE_SIZE_BYTES = 8 * 1024 * 1024;
+    private static final int MAX_PREFETCHES = 3;
+    private static final long MILLIS_IN_DAY = 24 * 60 * 60 * 1000L;
+
+    // Shared by providers of all charts, only one day is read at a time.
+    private static final ExecutorService sExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(final Runnable r) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    r.run();
+                }
+            }, "DetailDataProvider");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private final AssetManager mAssets;
+    private final String mDir;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final Calendar mCalendar = Calendar.getInstance(TimeZone.getTimeZone("UTC"), Locale.US);
+    private final LruCache<Long, ChartData> mCache = new LruCache<Long, ChartData>(CACHE_SIZE_BYTES) {
+        @Override
+        protected int sizeOf(Long key, ChartData value) {
+            return estimateSize(value);
+        }
+    };
+    // Loads in progress by day, in order they were requested.
+    private final Map<Long, Load> mLoads = new LinkedHashMap<>();
+    // Days without detailed data.
+    private final Set<Long> mMissing = new HashSet<>();
+
+    /**
+     * @param dir assets directory of the chart detailed data
+     */
+    public DetailDataProvider(AssetManager assets, String dir) {
+        mAssets = assets;
+        mDir = dir;
+    }
+
+    @Override
+    public void prefetch(long x) {
+        long day = getDay(x);
+        if (mCache.get(day) != null || mMissing.contains(day) || mLoads.containsKey(day)) {
+            return;
+        }
+        startLoad(day);
+        cancelStalePrefetches();
+    }
+
+    @Override
+    public void load(long x, Callback callback) {
+        long day = getDay(x);
+        ChartData cached = mCache.get(day);
+        if (cached != null) {
+            callback.onDetailDataLoaded(cached);
+            return;
+        }
+        if (mMissing.contains(day)) {
+            return;
+        }
+        Load load = mLoads.get(day);
+        if (load == null) {
+            load = startLoad(day);
+        }
+        load.mCallbacks.add(callback);
+    }
+
+    /**
+     * Cancels loads of this provider, cached data is kept.
+     */
+    public void release() {
+        for (Load load : mLoads.values()) {
+            load.mFuture.cancel(false);
+        }
+        mLoads.clear();
+    }
+
+    private Load startLoad(final long day) {
+        final Load load = new Load();
+        final String assetName = getAssetName(day);
+        mLoads.put(day, load);
+        load.mFuture = sExecutor.submit(new Runnable() {
+            @Override
+            public void run() {
+                ChartData data = null;
+                try {
+                    data = new JsonGraphReader().getChartDataFromJson(AssetReader.read(mAssets, assetName));
+                    // Cached days are drawn at once and their size includes these values.
+                    ChartLoader.precompute(data);
+                } catch (FileNotFoundException e) {
+                    // No detailed data for this day.
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+                final ChartData result = data;
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        onLoaded(day, load, result);
+                    }
+                });
+            }
+        });
+        return load;
+    }
+
+    private void onLoaded(long day, Load load, ChartData data) {
+        if (mLoads.get(day) != load) {
+            // Cancelled while result was being posted.
+            return;
+        }
+        mLoads.remove(day);
+        if (data == null) {
+            mMissing.add(day);
+            return;
+        }
+        mCache.put(day, data);
+        for (Callback callback : load.mCallbacks) {
+            callback.onDetailDataLoaded(data);
+        }
+    }
+
+    private void cancelStalePrefetches() {
+        int prefetches = 0;
+        for (Load load : mLoads.values()) {
+            if (load.mCallbacks.isEmpty()) prefetches++;
+        }
+        // Oldest loads go first, drop them while there are too many prefetches.
+        for (Iterator<Load> it = mLoads.values().iterator(); it.hasNext() && prefetches > MAX_PREFETCHES; ) {
+            Load load = it.next();
+            if (load.mCallbacks.isEmpty() && load.mFuture.cancel(false)) {
+                it.remove();
+                prefetches--;
+            }
+        }
+    }
+
+    private String getAssetName(long day) {
+        mCalendar.setTimeInMillis(day);
+        return String.format(Locale.US, "%s/%04d-%02d/%02d.json", mDir,
+                mCalendar.get(Calendar.YEAR),
+                mCalendar.get(Calendar.MONTH) + 1,
+                mCalendar.get(Calendar.DAY_OF_MONTH));
+    }
+
+    private static long getDay(long x) {
+        long day = x / MILLIS_IN_DAY;
+        if (x < 0 && day * MILLIS_IN_DAY != x) day--;
+        return day * MILLIS_IN_DAY;
+    }
+
+    /**
+     * @return approximate bytes used by columns of the chart and values precomputed for them:
+     * min/max indexes, X positions and offsets of stacked lines
+     */
+    private static int estimateSize(ChartData data) {
+        long points = data.getSize();
+        long lines = data.getYValues().size();
+        long bytes = 8 * points * (1 + lines);
+        // Index has min and max of every 8 points, leaves are rounded up to power of two.
+        long leaves = Long.highestOneBit(Math.max((points + 7) / 8 * 2 - 1, 1));
+        bytes += 2 * 8 * 2 * leaves * lines;
+        bytes += 4 * points;
+        if (data.isStacked() || data.isPercentage()) {
+            // Offsets of every line and totals.
+            bytes += 8 * points * (lines + 1);
+        }
+        return (int) Math.min(bytes, Integer.MAX_VALUE);
+    }
+
+    private static class Load {
+        private Future<?> mFuture;
+        // Callbacks of explicit loads, prefetch has none and can be cancelled.
+        private final List<Callback> mCallbacks = new ArrayList<>();
+    }
+}
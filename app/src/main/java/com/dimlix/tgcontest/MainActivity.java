@@ -11,6 +11,7 @@ import android.view.MenuInflater;
 import android.view.MenuItem;
 import android.view.View;
 import android.view.ViewGroup;
+import android.view.ViewTreeObserver;
 import android.view.Window;
 import android.view.WindowManager;
 import android.widget.ScrollView;
@@ -18,10 +19,10 @@ import android.widget.ScrollView;
 import com.dimlix.tgcontest.chart.ChartLayout;
 import com.dimlix.tgcontest.model.ChartData;
 
-import org.json.JSONException;
-
-import java.io.IOException;
-import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
@@ -36,6 +37,11 @@ public class MainActivity extends AppCompatActivity {
     private Toolbar mToolbar;
     private MenuItem mToggleMenu;
 
+    private ChartLoader mChartLoader;
+    // Charts which are shown as placeholders until their data is loaded.
+    private Map<ChartLayout, ChartLoader.Request> mPendingCharts = new HashMap<>();
+    private List<DetailDataProvider> mDetailDataProviders = new ArrayList<>();
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -56,6 +62,14 @@ public class MainActivity extends AppCompatActivity {
 
         mContainer = findViewById(R.id.container);
 
+        mChartLoader = new ChartLoader(getAssets(), getCacheDir());
+        mScrollView.getViewTreeObserver().addOnScrollChangedListener(new ViewTreeObserver.OnScrollChangedListener() {
+            @Override
+            public void onScrollChanged() {
+                updateLoadingPriorities();
+            }
+        });
+
         addChartFromFile("graph_1.json", "Followers");
         addChartFromFile("graph_2.json", "Interactions");
         addChartFromFile("graph_3.json", "Fruits");
@@ -65,31 +79,62 @@ public class MainActivity extends AppCompatActivity {
         setSystemBarTheme(false);
     }
 
-    private void addChartFromFile(String fileName, String chartName) {
-        JsonGraphReader jsonGraphReader = new JsonGraphReader();
-        ChartData chartData = null;
-        try {
-            chartData = jsonGraphReader.getChartDataFromJson(loadChartFromJsonData(fileName));
-            chartData.setName(chartName);
-            LayoutInflater inflater = LayoutInflater.from(this);
-            ChartLayout chartView = (ChartLayout) inflater.inflate(R.layout.item_chart, mContainer, false);
-            // Need to set ID to restore state (without ID will be the same state for all views)
-            chartView.setId(fileName.hashCode());
-            chartView.setListener(new ChartLayout.Listener() {
-                @Override
-                public void onInnerViewTouched() {
-                    mScrollView.requestDisallowInterceptTouchEvent(true);
-                }
+    private void addChartFromFile(String fileName, final String chartName) {
+        LayoutInflater inflater = LayoutInflater.from(this);
+        final ChartLayout chartView = (ChartLayout) inflater.inflate(R.layout.item_chart, mContainer, false);
+        // Need to set ID to restore state (without ID will be the same state for all views)
+        chartView.setId(fileName.hashCode());
+        chartView.setListener(new ChartLayout.Listener() {
+            @Override
+            public void onInnerViewTouched() {
+                mScrollView.requestDisallowInterceptTouchEvent(true);
+            }
 
-                @Override
-                public void onInnerViewReleased() {
-                    mScrollView.requestDisallowInterceptTouchEvent(false);
-                }
-            });
-            chartView.setData(chartData);
-            mContainer.addView(chartView);
-        } catch (JSONException e) {
-            e.printStackTrace();
+            @Override
+            public void onInnerViewReleased() {
+                mScrollView.requestDisallowInterceptTouchEvent(false);
+            }
+        });
+        chartView.setTitle(chartName);
+        // Days of the chart are zoomed in from <asset name>/yyyy-MM/dd.json if they exist.
+        DetailDataProvider detailDataProvider = new DetailDataProvider(getAssets(),
+                fileName.substring(0, fileName.lastIndexOf('.')));
+        mDetailDataProviders.add(detailDataProvider);
+        chartView.setDetailDataSource(detailDataProvider);
+        mContainer.addView(chartView);
+
+        // Charts are added from top to bottom, so the first ones are on screen on start.
+        ChartLoader.Request request = mChartLoader.load(fileName, mContainer.getChildCount(),
+                new ChartLoader.Callback() {
+                    @Override
+                    public void onChartLoaded(ChartData data) {
+                        mPendingCharts.remove(chartView);
+                        data.setName(chartName);
+                        chartView.setData(data);
+                    }
+
+                    @Override
+                    public void onChartFailed(Exception e) {
+                        e.printStackTrace();
+                        mPendingCharts.remove(chartView);
+                        mContainer.removeView(chartView);
+                    }
+                });
+        mPendingCharts.put(chartView, request);
+    }
+
+    /**
+     * Moves charts which are visible now ahead of other pending charts.
+     */
+    private void updateLoadingPriorities() {
+        if (mPendingCharts.isEmpty()) return;
+        int top = mScrollView.getScrollY();
+        int bottom = top + mScrollView.getHeight();
+        for (Map.Entry<ChartLayout, ChartLoader.Request> entry : mPendingCharts.entrySet()) {
+            ChartLayout chart = entry.getKey();
+            boolean isVisible = chart.getBottom() > top && chart.getTop() < bottom;
+            int priority = mContainer.indexOfChild(chart);
+            mChartLoader.setPriority(entry.getValue(), isVisible ? -1 : priority);
         }
     }
 
@@ -155,26 +200,19 @@ public class MainActivity extends AppCompatActivity {
         return super.onOptionsItemSelected(item);
     }
 
+    @Override
+    protected void onDestroy() {
+        mChartLoader.release();
+        for (DetailDataProvider provider : mDetailDataProviders) {
+            provider.release();
+        }
+        super.onDestroy();
+    }
+
     @Override
     protected void onSaveInstanceState(Bundle outState) {
         outState.putBoolean(THEME, mIsLightTheme);
         super.onSaveInstanceState(outState);
     }
 
-    public String loadChartFromJsonData(String assetName) {
-        String json;
-        try {
-            InputStream is = getAssets().open(assetName);
-            int size = is.available();
-            byte[] buffer = new byte[size];
-            is.read(buffer);
-            is.close();
-            json = new String(buffer, "UTF-8");
-        } catch (IOException ex) {
-            ex.printStackTrace();
-            return null;
-        }
-        return json;
-    }
-
 }
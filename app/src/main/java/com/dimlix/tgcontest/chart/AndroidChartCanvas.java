@@ -0,0 +1,70 @@
+package com.dimlix.tgcontest.chart;
+
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.Paint;
+import android.graphics.Path;
+
+import com.dimlix.tgcontest.chart.render.ChartCanvas;
+import com.dimlix.tgcontest.chart.render.ChartPaint;
+
+/**
+ * Draws renderers output on {@link Canvas}. Single paint and path are reused for all calls, so
+ * each view or thread uses its own instance.
+ */
+class AndroidChartCanvas implements ChartCanvas {
+    private final Paint mPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Path mPath = new Path();
+    private Canvas mCanvas;
+    private ColorFilter mDimFilter;
+
+    void setCanvas(Canvas canvas) {
+        mCanvas = canvas;
+    }
+
+    /**
+     * @param filter filter of shapes which paint is dimmed, see {@link ChartPaint#isDimmed()}
+     */
+    void setDimFilter(ColorFilter filter) {
+        mDimFilter = filter;
+    }
+
+    @Override
+    public void drawLines(float[] points, int offset, int count, ChartPaint paint) {
+        mCanvas.drawLines(points, offset, count, apply(paint));
+    }
+
+    @Override
+    public void drawPolygon(float[] points, int offset, int count, ChartPaint paint) {
+        mPath.rewind();
+        mPath.moveTo(points[offset], points[offset + 1]);
+        for (int i = offset + 2; i < offset + count; i += 2) {
+            mPath.lineTo(points[i], points[i + 1]);
+        }
+        mPath.close();
+        mCanvas.drawPath(mPath, apply(paint));
+    }
+
+    @Override
+    public void drawRect(float left, float top, float right, float bottom, ChartPaint paint) {
+        mCanvas.drawRect(left, top, right, bottom, apply(paint));
+    }
+
+    private Paint apply(ChartPaint paint) {
+        mPaint.setColor(paint.getColor());
+        mPaint.setStrokeWidth(paint.getStrokeWidth());
+        switch (paint.getStyle()) {
+            case ChartPaint.STYLE_FILL:
+                mPaint.setStyle(Paint.Style.FILL);
+                break;
+            case ChartPaint.STYLE_FILL_AND_STROKE:
+                mPaint.setStyle(Paint.Style.FILL_AND_STROKE);
+                break;
+            default:
+                mPaint.setStyle(Paint.Style.STROKE);
+                break;
+        }
+        mPaint.setColorFilter(paint.isDimmed() ? mDimFilter : null);
+        return mPaint;
+    }
+}
@@ -0,0 +1,93 @@
+package com.dimlix.tgcontest.chart;
+
+import android.os.SystemClock;
+import android.view.Choreographer;
+import android.view.View;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives animations of chart views by {@link Choreographer} frames. Views which have running
+ * animations request the next frame and are invalidated together once per vsync. When no view
+ * requests a frame clock stops, so settled charts don't draw at all.
+ * <p>
+ * Time of animations is vsync time of the frame, so progress is steady on any refresh rate.
+ * Must be used from the main thread.
+ */
+class AnimationClock implements Choreographer.FrameCallback {
+    // Frames which are further apart are not consecutive, clock was stopped between them.
+    private static final long MAX_FRAME_INTERVAL = 50;
+    private static final long DEFAULT_FRAME_INTERVAL = 16;
+
+    private static AnimationClock sInstance;
+
+    private final Choreographer mChoreographer = Choreographer.getInstance();
+    private final List<View> mViews = new ArrayList<>();
+    private boolean mScheduled;
+    private long mFrameTime = -1;
+    private long mFrameInterval = DEFAULT_FRAME_INTERVAL;
+
+    static AnimationClock getInstance() {
+        if (sInstance == null) {
+            sInstance = new AnimationClock();
+        }
+        return sInstance;
+    }
+
+    private AnimationClock() {
+    }
+
+    /**
+     * Invalidates the view on the next frame.
+     */
+    void requestFrame(View view) {
+        if (!mViews.contains(view)) {
+            mViews.add(view);
+        }
+        if (!mScheduled) {
+            mScheduled = true;
+            mChoreographer.postFrameCallback(this);
+        }
+    }
+
+    /**
+     * Removes request of the view, e.g. when it is detached.
+     */
+    void cancel(View view) {
+        mViews.remove(view);
+        if (mViews.isEmpty() && mScheduled) {
+            mScheduled = false;
+            mChoreographer.removeFrameCallback(this);
+        }
+    }
+
+    /**
+     * @return uptime millis to measure animations with: vsync time while view is drawn in
+     * the frame of the clock, current time otherwise, e.g. when animation is started by user
+     */
+    long now() {
+        long now = SystemClock.uptimeMillis();
+        // Views invalidated by the clock are drawn in the same frame right after the callback.
+        if (mFrameTime >= 0 && now - mFrameTime < mFrameInterval) {
+            return mFrameTime;
+        }
+        return now;
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        long frameTime = TimeUnit.NANOSECONDS.toMillis(frameTimeNanos);
+        if (mFrameTime >= 0 && frameTime > mFrameTime && frameTime - mFrameTime < MAX_FRAME_INTERVAL) {
+            mFrameInterval = frameTime - mFrameTime;
+        }
+        mFrameTime = frameTime;
+        mScheduled = false;
+        // Views are drawn later in this frame and request the next one again if needed.
+        for (int i = 0; i < mViews.size(); i++) {
+            mViews.get(i).invalidate();
+        }
+        mViews.clear();
+    }
+}
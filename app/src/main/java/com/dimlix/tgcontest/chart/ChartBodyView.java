@@ -0,0 +1,226 @@
+package com.dimlix.tgcontest.chart;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.ColorFilter;
+import android.graphics.PorterDuff;
+import android.graphics.SurfaceTexture;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.util.AttributeSet;
+import android.view.TextureView;
+import android.view.View;
+
+import com.dimlix.tgcontest.chart.render.ChartPaint;
+import com.dimlix.tgcontest.chart.render.ChartRenderer;
+import com.dimlix.tgcontest.chart.render.ChartRenderers;
+import com.dimlix.tgcontest.chart.render.RenderState;
+import com.dimlix.tgcontest.model.ChartData;
+
+/**
+ * Draws body of {@link ChartView} on a dedicated render thread, so that heavy charts don't
+ * block input and scroll on the main thread. The view lies under {@link ChartView}, which
+ * keeps drawing axes and touched info and only posts {@link RenderState.Snapshot} of every
+ * frame here.
+ * <p>
+ * Only the latest posted snapshot is drawn, frames which render thread is late for are
+ * skipped. Until surface is available, e.g. without hardware acceleration, chart view draws
+ * the body itself.
+ */
+class ChartBodyView extends TextureView implements TextureView.SurfaceTextureListener {
+
+    private final Object mLock = new Object();
+
+    // Main thread.
+    private View mOverlay;
+    private ChartData mData;
+    private ChartPaint mLinePaint;
+    private ColorFilter mDimFilter;
+    private RenderState.Snapshot mLastSnapshot;
+    private HandlerThread mThread;
+    private Handler mHandler;
+
+    // Guarded by mLock.
+    private RenderState.Snapshot mPendingSnapshot;
+    private boolean mForceDraw;
+
+    // Render thread.
+    private RenderState mState;
+    private ChartRenderer mRenderer;
+    private final AndroidChartCanvas mChartCanvas = new AndroidChartCanvas();
+    private int mDrawnVersion = -1;
+    private int mDrawnSelectedPoint = -1;
+
+    private final Runnable mDrawRunnable = new Runnable() {
+        @Override
+        public void run() {
+            RenderState.Snapshot snapshot;
+            boolean force;
+            synchronized (mLock) {
+                snapshot = mPendingSnapshot;
+                force = mForceDraw;
+                mPendingSnapshot = null;
+                mForceDraw = false;
+            }
+            if (snapshot == null || mState == null || snapshot.getData() != mState.getData()) {
+                // Snapshot of the previous data, new one is on the way.
+                return;
+            }
+            if (!force && snapshot.getVersion() == mDrawnVersion
+                    && snapshot.getSelectedPoint() == mDrawnSelectedPoint) {
+                return;
+            }
+            mState.apply(snapshot);
+            draw(snapshot.getData());
+        }
+    };
+
+    public ChartBodyView(Context context) {
+        super(context);
+        init();
+    }
+
+    public ChartBodyView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        init();
+    }
+
+    private void init() {
+        setOpaque(false);
+        setSurfaceTextureListener(this);
+    }
+
+    /**
+     * @param overlay view which draws the body itself while surface is not available
+     */
+    void setOverlay(View overlay) {
+        mOverlay = overlay;
+    }
+
+    /**
+     * Render thread has own state with own paints of lines, so that it doesn't change alpha of
+     * paints used by the main thread.
+     *
+     * @param linePaint style of lines, see {@link RenderState#setChartData}
+     * @param dimFilter filter of bars which are not selected
+     */
+    void setChartData(ChartData data, ChartPaint linePaint, ColorFilter dimFilter) {
+        mData = data;
+        mLinePaint = linePaint;
+        mDimFilter = dimFilter;
+        mLastSnapshot = null;
+        if (mHandler != null) {
+            postChartData();
+        }
+    }
+
+    /**
+     * Schedules drawing of the frame, frame which is not drawn yet is replaced.
+     */
+    void post(RenderState.Snapshot snapshot) {
+        mLastSnapshot = snapshot;
+        if (mHandler == null) return;
+        synchronized (mLock) {
+            boolean scheduled = mPendingSnapshot != null;
+            mPendingSnapshot = snapshot;
+            if (!scheduled) {
+                mHandler.post(mDrawRunnable);
+            }
+        }
+    }
+
+    private void postChartData() {
+        final ChartData data = mData;
+        final ChartPaint linePaint = mLinePaint;
+        final ColorFilter dimFilter = mDimFilter;
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                mState = new RenderState();
+                // Totals of stacked lines are copied while main thread may toggle the lines.
+                synchronized (data) {
+                    mState.setChartData(data, linePaint);
+                }
+                mRenderer = ChartRenderers.create(data);
+                mChartCanvas.setDimFilter(dimFilter);
+            }
+        });
+    }
+
+    /**
+     * Redraws the last frame, e.g. when surface is recreated or resized.
+     */
+    private void postRedraw() {
+        synchronized (mLock) {
+            mForceDraw = true;
+        }
+        if (mLastSnapshot != null) {
+            post(mLastSnapshot);
+        }
+    }
+
+    private void draw(ChartData data) {
+        Canvas canvas = lockCanvas();
+        if (canvas == null) return;
+        try {
+            canvas.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
+            mChartCanvas.setCanvas(canvas);
+            synchronized (data) {
+                mRenderer.draw(mChartCanvas, mState);
+                mRenderer.drawSelection(mChartCanvas, mState);
+            }
+            mDrawnVersion = mState.getVersion();
+            mDrawnSelectedPoint = mState.getSelectedPoint();
+        } finally {
+            unlockCanvasAndPost(canvas);
+        }
+    }
+
+    @Override
+    public void onSurfaceTextureAvailable(SurfaceTexture surface, int width, int height) {
+        mThread = new HandlerThread("ChartRender", Process.THREAD_PRIORITY_DISPLAY);
+        mThread.start();
+        mHandler = new Handler(mThread.getLooper());
+        if (mData != null) {
+            postChartData();
+            postRedraw();
+        }
+        if (mOverlay != null) {
+            mOverlay.invalidate();
+        }
+    }
+
+    @Override
+    public void onSurfaceTextureSizeChanged(SurfaceTexture surface, int width, int height) {
+        if (mData != null) {
+            postRedraw();
+        }
+    }
+
+    @Override
+    public boolean onSurfaceTextureDestroyed(SurfaceTexture surface) {
+        mHandler.removeCallbacksAndMessages(null);
+        synchronized (mLock) {
+            mPendingSnapshot = null;
+        }
+        mHandler = null;
+        mThread.quit();
+        try {
+            // Surface is released once we return, so wait for the frame being drawn.
+            mThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        mThread = null;
+        if (mOverlay != null) {
+            mOverlay.invalidate();
+        }
+        return true;
+    }
+
+    @Override
+    public void onSurfaceTextureUpdated(SurfaceTexture surface) {
+    }
+}
@@ -2,31 +2,32 @@ package com.dimlix.tgcontest.chart;
 
 import android.content.Context;
 import android.content.res.Resources;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
-import android.graphics.Path;
 import android.util.AttributeSet;
 import android.util.TypedValue;
 import android.view.MotionEvent;
 import android.view.View;
 
 import com.dimlix.tgcontest.R;
+import com.dimlix.tgcontest.chart.render.ChartPaint;
+import com.dimlix.tgcontest.chart.render.ChartRenderer;
+import com.dimlix.tgcontest.chart.render.ChartRenderers;
+import com.dimlix.tgcontest.chart.render.RenderState;
 import com.dimlix.tgcontest.model.ChartData;
+import com.dimlix.tgcontest.model.XPositions;
 
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 /**
  * Class to to control displayed chart.
  * <p>
- * Some part is the same with {@link ChartView} but code is kept separate because
- * looks like it should be more flexible rather then common,
- * e.g. chart line toggling animation is different.
+ * Lines are drawn by renderers shared with {@link ChartView}, while ranges of the chart
+ * and their animation are kept separate because they should be more flexible rather then
+ * common, e.g. chart line toggling animation is different.
  */
 class ChartControlView extends View {
     // Animation duration for switching chart lies on/off
@@ -42,11 +43,20 @@ class ChartControlView extends View {
 
     }
 
-    // To avoid object creation during onDraw save path locally.
-    private float[] mPathPoints;
-
-    // Each line has it's own paint.
-    private Map<String, Paint> mPaints = new HashMap<>();
+    // Whole chart is always visible here, so lines are only recomputed when they are toggled.
+    private final RenderState mRenderState = new RenderState();
+    private final VisibleRange mVisibleRange = new VisibleRange();
+    private ChartRenderer mRenderer;
+    // Lines are drawn into bitmap which is redrawn only when their geometry changes, so
+    // dragging of the region only draws the bitmap and controls overlay.
+    private Bitmap mChartBitmap;
+    private Canvas mChartCanvas;
+    private final AndroidChartCanvas mChartCanvasAdapter = new AndroidChartCanvas();
+    private int mChartBitmapVersion = -1;
+
+    // Measures frames when set, see setRenderMetrics.
+    private RenderMetrics mMetrics;
+    private boolean mAnimationFrameRequested;
 
     private float mLeftCurrentXBoarderValue = 0;
     private float mRightCurrentXBoarderValue = ChartLayout.MAX_DISCRETE_PROGRESS;
@@ -59,6 +69,7 @@ class ChartControlView extends View {
     private ChartData mChartData = null;
 
     private long mStartToggleTime = -1;
+    private final AnimationClock mClock = AnimationClock.getInstance();
     // Needs to animate chart when user toggle line/
     private long mLastMaxPossibleYever;
     private long mLastMinPossibleYever;
@@ -112,6 +123,7 @@ class ChartControlView extends View {
 
     public void reInit() {
         init();
+        mChartBitmapVersion = -1;
         invalidate();
     }
 
@@ -146,6 +158,7 @@ class ChartControlView extends View {
         setOnTouchListener(new OnTouchListener() {
             @Override
             public boolean onTouch(View v, MotionEvent event) {
+                if (mChartData == null) return false;
                 // Don't handle 3+ touches
                 if (event.getActionIndex() > 1) return true;
                 if (mListener != null) {
@@ -281,7 +294,12 @@ class ChartControlView extends View {
             return;
         }
 
-        long elapsed = System.currentTimeMillis() - mStartToggleTime;
+        if (mMetrics != null) {
+            mMetrics.beginFrame(mAnimationFrameRequested);
+        }
+        mAnimationFrameRequested = false;
+
+        long elapsed = mClock.now() - mStartToggleTime;
         float progress = 1;
         if (!mLinesToToggle.isEmpty() && mIsAnimationsEnabled) {
             progress = Math.min((float) elapsed / TOGGLE_ANIM_DURATION, 1);
@@ -290,9 +308,11 @@ class ChartControlView extends View {
         float scale = (float) getWidth() / (mRightCurrentXBoarderValue - mLeftCurrentXBoarderValue);
         float translation = mLeftCurrentXBoarderValue;
 
-        int firstPointToShow =
-                Math.max((int) Math.floor(mLeftCurrentXBoarderValue / mStepXForMaxScale) - 1, 0);
-        int lastPointToShow = Math.min((int) Math.floor(mRightCurrentXBoarderValue / mStepXForMaxScale) + 1,
+        XPositions positions = mChartData.getXPositions();
+        int firstPointToShow = Math.max(
+                positions.getPointAtOrBefore(mLeftCurrentXBoarderValue / mStepXForMaxScale) - 1, 0);
+        int lastPointToShow = Math.min(
+                positions.getPointAtOrBefore(mRightCurrentXBoarderValue / mStepXForMaxScale) + 1,
                 mChartData.getSize() - 1);
 
         if (mChartData.isDoubleYAxis()) {
@@ -304,36 +324,42 @@ class ChartControlView extends View {
                 drawCompoundChartLines(canvas, progress, scale, translation, firstPointToShow, lastPointToShow);
             }
         }
+        if (mMetrics != null) {
+            int lines = 0;
+            for (int k = 0; k < mChartData.getYValues().size(); k++) {
+                if (mRenderState.isVisible(k)) {
+                    lines++;
+                }
+            }
+            mMetrics.setPoints(lastPointToShow - firstPointToShow + 1, lines);
+            mMetrics.endFrame();
+        }
+    }
+
+    private void endPhase(int phase) {
+        if (mMetrics != null) {
+            mMetrics.endPhase(phase);
+        }
+    }
+
+    private void requestAnimationFrame() {
+        mAnimationFrameRequested = true;
+        mClock.requestFrame(this);
     }
 
     long[] maxPossibleYever = null;
     long[] minPossibleYever = null;
-    float[] maxPossibleYeverComputed = null;
-    float[] minPossibleYeverComputed = null;
-    float[] yStep = null;
 
     private void drawChartForEachLine(Canvas canvas, float progress, float scale, float translation, int firstPointToShow, int lastPointToShow) {
         if (maxPossibleYever == null) {
             maxPossibleYever = new long[mLastMinPossibleEachLine.length];
             minPossibleYever = new long[mLastMinPossibleEachLine.length];
-            maxPossibleYeverComputed = new float[mLastMinPossibleEachLine.length];
-            minPossibleYeverComputed = new float[mLastMinPossibleEachLine.length];
-            yStep = new float[mLastMinPossibleEachLine.length];
-        }
-        for (int i = 0; i < maxPossibleYever.length; i++) {
-            maxPossibleYever[i] = 0;
-            minPossibleYever[i] = Integer.MAX_VALUE;
         }
         boolean needAnim = false;
+        mVisibleRange.setYRange(mChartData, firstPointToShow, lastPointToShow);
         for (int k = 0; k < mChartData.getYValues().size(); k++) {
-            ChartData.YData yData = mChartData.getYValues().get(k);
-            if (!yData.isShown()) continue;
-            // Extra iteration over visible fragment needed to find out y scale factor.
-            for (int i = firstPointToShow; i < lastPointToShow; i++) {
-                Long nextValue = yData.getValues().get(i);
-                if (maxPossibleYever[k] < nextValue) maxPossibleYever[k] = nextValue;
-                if (minPossibleYever[k] > nextValue) minPossibleYever[k] = nextValue;
-            }
+            maxPossibleYever[k] = mVisibleRange.getMax(k);
+            minPossibleYever[k] = mVisibleRange.getMin(k);
 
             if (mLastMaxPossibleEachLine[k] == -1) {
                 mLastMaxPossibleEachLine[k] = maxPossibleYever[k];
@@ -347,73 +373,23 @@ class ChartControlView extends View {
 
         }
 
-        float x;
-        float y;
-
-        for (int k = 0; k < mChartData.getYValues().size(); k++) {
-            maxPossibleYeverComputed[k] =
-                    mLastMaxPossibleEachLine[k] + (maxPossibleYever[k] - mLastMaxPossibleEachLine[k]) * progress;
-            minPossibleYeverComputed[k] =
-                    mLastMinPossibleEachLine[k] + (minPossibleYever[k] - mLastMinPossibleEachLine[k]) * progress;
-
-            ChartData.YData yData = mChartData.getYValues().get(k);
-
-            if (!mLinesToToggle.contains(yData.getVarName())) {
-                if (!yData.isShown()) {
-                    continue;
-                }
-            } else {
-                if (yData.isShown()) {
-                    maxPossibleYeverComputed[k] = maxPossibleYever[k];
-                    minPossibleYeverComputed[k] = minPossibleYever[k];
-                } else {
-                    maxPossibleYeverComputed[k] = mLastMaxPossibleEachLine[k];
-                    minPossibleYeverComputed[k] = mLastMinPossibleEachLine[k];
-                }
-            }
-            float yStep = (float) getHeight() / (maxPossibleYeverComputed[k] - minPossibleYeverComputed[k]);
-            x = (firstPointToShow * mStepXForMaxScale - translation) * scale;
-            x = x + (1 - 2 * x / getWidth()) * mSideMargin;
-            mPathPoints[0] = x;
-            y = getHeight() - (yData.getValues().get(0) - minPossibleYeverComputed[k]) * yStep;
-            y = y + (1 - 2 * y / getHeight()) * mDragBoarderHeight;
-            mPathPoints[1] = y;
-            int pointIndex = 2;
-            for (int i = firstPointToShow + 1; i <= lastPointToShow; i++) {
-                x = (i * mStepXForMaxScale - translation) * scale;
-                x = x + (1 - 2 * x / getWidth()) * mSideMargin;
-                y = getHeight() - (yData.getValues().get(i) - minPossibleYeverComputed[k]) * yStep;
-                y = y + (1 - 2 * y / getHeight()) * mDragBoarderHeight;
-                mPathPoints[pointIndex] = x;
-                mPathPoints[pointIndex + 1] = y;
-                mPathPoints[pointIndex + 2] = x;
-                mPathPoints[pointIndex + 3] = y;
-                pointIndex += 4;
-            }
-
-            Paint paint = mPaints.get(yData.getVarName());
-            if (paint == null) {
-                throw new RuntimeException("There is no color info for " + yData.getVarName());
-            }
-
-            if (mLinesToToggle.contains(yData.getVarName())) {
-                if (yData.isShown()) {
-                    paint.setAlpha(Math.min(((int) (255 * progress)), 255));
-                } else {
-                    paint.setAlpha(Math.max((int) (255 * (1 - progress)), 0));
-                }
-            }
-
-            canvas.drawLines(mPathPoints, 0, pointIndex - 1, paint);
+        setRenderState(firstPointToShow, lastPointToShow, progress, scale, translation);
+        for (int k = 0; k < maxPossibleYever.length; k++) {
+            mRenderState.setYRange(k, mLastMinPossibleEachLine[k], mLastMaxPossibleEachLine[k],
+                    minPossibleYever[k], maxPossibleYever[k]);
         }
+        endPhase(RenderMetrics.PHASE_Y_RANGE);
+        drawChart(canvas);
+        endPhase(RenderMetrics.PHASE_BODY);
 
         drawControlsOverlay(canvas);
+        endPhase(RenderMetrics.PHASE_OVERLAY);
         loop(maxPossibleYever, minPossibleYever, progress);
     }
 
     private void loop(long[] maxPossibleYever, long[] minPossibleYever, float progress) {
         if (progress < 1 && (!mLinesToToggle.isEmpty())) {
-            invalidate();
+            requestAnimationFrame();
         } else {
             mStartToggleTime = -1;
             for (int i = 0; i < mLastMaxPossibleEachLine.length; i++) {
@@ -422,38 +398,18 @@ class ChartControlView extends View {
             }
             if (!mLinesToToggle.isEmpty()) {
                 mLinesToToggle.clear();
-                invalidate();
+                requestAnimationFrame();
             }
         }
     }
 
     private void drawPercentageChart(Canvas canvas, int firstPointToShow, int lastPointToShow) {
-        boolean fillFirstLine = false;
-        for (int k = 0; k < mChartData.getYValues().size(); k++) {
-            ChartData.YData yData = mChartData.getYValues().get(k);
-            if (!yData.isShown()) continue;
-            // Extra iteration over visible fragment needed to find out y scale factor.
-            for (int i = firstPointToShow; i <= lastPointToShow; i++) {
-                Long nextValue = yData.getValues().get(i);
-                if (!fillFirstLine) {
-                    desiredMaxArray[i] = nextValue;
-                } else {
-                    desiredMaxArray[i] += nextValue;
-                }
-            }
-            fillFirstLine = true;
-        }
-
-        if (lastMaxArray == null) {
-            lastMaxArray = desiredMaxArray.clone();
-        }
-
         float lineToggleProgress = 1;
         if (mIsAnimationsEnabled && !mLinesToToggle.isEmpty()) {
             if (mStartToggleTime == -1) {
-                mStartToggleTime = System.currentTimeMillis();
+                mStartToggleTime = mClock.now();
             }
-            long elapsed = System.currentTimeMillis() - mStartToggleTime;
+            long elapsed = mClock.now() - mStartToggleTime;
             if (!mLinesToToggle.isEmpty()) {
                 lineToggleProgress = Math.min((float) elapsed / TOGGLE_ANIM_DURATION, 1);
             }
@@ -462,278 +418,102 @@ class ChartControlView extends View {
         float scale = (float) getWidth() / (mRightCurrentXBoarderValue - mLeftCurrentXBoarderValue);
         float translation = mLeftCurrentXBoarderValue;
 
-        drawChartLinesPercentage(canvas, firstPointToShow, lastPointToShow, lineToggleProgress, scale, translation);
+        setRenderState(firstPointToShow, lastPointToShow, lineToggleProgress, scale, translation);
+        endPhase(RenderMetrics.PHASE_Y_RANGE);
+        drawChart(canvas);
+        endPhase(RenderMetrics.PHASE_BODY);
         drawControlsOverlay(canvas);
+        endPhase(RenderMetrics.PHASE_OVERLAY);
         loop(lineToggleProgress);
     }
 
-    boolean isAnimatedLine = false;
-    float prevYStep;
-    float nextYStep;
-    byte direction;
-
     private void drawCompoundChartLines(Canvas canvas, float progress, float scale, float translation, int firstPointToShow, int lastPointToShow) {
-        long maxPossibleYever = 0;
-        long minPossibleYever = Integer.MAX_VALUE;
-        for (int k = 0; k < mChartData.getYValues().size(); k++) {
-            long localMaxPossibleYever = 0;
-            ChartData.YData yData = mChartData.getYValues().get(k);
-            if (yData.isBar()) minPossibleYever = 0;
-            if (!yData.isShown()) continue;
-            // Extra iteration over visible fragment needed to find out y scale factor.
-            for (int i = firstPointToShow; i < lastPointToShow; i++) {
-                Long nextValue = yData.getValues().get(i);
-                if (localMaxPossibleYever < nextValue) localMaxPossibleYever = nextValue;
-                if (minPossibleYever > nextValue) minPossibleYever = nextValue;
-            }
-            if (mChartData.isStacked()) {
-                maxPossibleYever += localMaxPossibleYever;
-            } else if (localMaxPossibleYever > maxPossibleYever) {
-                maxPossibleYever = localMaxPossibleYever;
-            }
-        }
+        mVisibleRange.setYRange(mChartData, firstPointToShow, lastPointToShow);
+        long maxPossibleYever = mVisibleRange.getMax(0);
+        long minPossibleYever = mVisibleRange.getMin(0);
 
         if (maxPossibleYever == 0) {
             // Prevent single line from flying up
             maxPossibleYever = mLastMaxPossibleYever;
         }
 
-        if (minPossibleYever == Integer.MAX_VALUE) {
+        if (minPossibleYever == VisibleRange.NO_MIN) {
             // Prevent single line from flying up
             minPossibleYever = mLastMinPossibleYever;
         }
 
-        prevYStep = (float) getHeight() / (maxPossibleYever);
-        nextYStep = (float) getHeight() / (mLastMaxPossibleYever);
-
-        float x;
-        float y;
-
-        boolean isFirstChart = true;
-
-        for (int k = 0; k < mChartData.getYValues().size(); k++) {
-            float maxPossibleYeverComputed =
-                    mLastMaxPossibleYever + (maxPossibleYever - mLastMaxPossibleYever) * progress;
-            float minPossibleYeverComputed =
-                    mLastMinPossibleYever + (minPossibleYever - mLastMinPossibleYever) * progress;
-
-            ChartData.YData yData = mChartData.getYValues().get(k);
-
-            if (!mLinesToToggle.contains(yData.getVarName())) {
-                if (!yData.isShown()) {
-                    continue;
-                }
-            } else {
-                if (yData.isShown()) {
-                    maxPossibleYeverComputed = maxPossibleYever;
-                    minPossibleYeverComputed = minPossibleYever;
-                } else {
-                    maxPossibleYeverComputed = mLastMaxPossibleYever;
-                    minPossibleYeverComputed = mLastMinPossibleYever;
-                }
-            }
-            float yStep = (float) getHeight() / (maxPossibleYeverComputed - minPossibleYeverComputed);
-
-            isAnimatedLine = mLinesToToggle.contains(yData.getVarName());
-            if (isAnimatedLine) {
-                if (maxPossibleYever > mLastMaxPossibleYever) {
-                    direction = 1;
-                } else {
-                    direction = -1;
-                }
-            }
-
-            Paint paint = mPaints.get(yData.getVarName());
-            if (paint == null) {
-                throw new RuntimeException("There is no color info for " + yData.getVarName());
-            }
-            int pointIndex;
-            if (!yData.isBar()) {
-                x = (firstPointToShow * mStepXForMaxScale - translation) * scale;
-                x = x + (1 - 2 * x / getWidth()) * mSideMargin;
-                mPathPoints[0] = x;
-                y = getHeight() - (yData.getValues().get(0) - minPossibleYeverComputed) * yStep;
-                y = y + (1 - 2 * y / getHeight()) * mDragBoarderHeight;
-                mPathPoints[1] = y;
-                pointIndex = 2;
-                for (int i = firstPointToShow + 1; i <= lastPointToShow; i++) {
-                    x = (i * mStepXForMaxScale - translation) * scale;
-                    x = x + (1 - 2 * x / getWidth()) * mSideMargin;
-                    y = getHeight() - (yData.getValues().get(i) - minPossibleYeverComputed) * yStep;
-                    y = y + (1 - 2 * y / getHeight()) * mDragBoarderHeight;
-                    mPathPoints[pointIndex] = x;
-                    mPathPoints[pointIndex + 1] = y;
-                    mPathPoints[pointIndex + 2] = x;
-                    mPathPoints[pointIndex + 3] = y;
-                    pointIndex += 4;
-                }
-            } else {
-                if (isFirstChart) {
-                    pointIndex = 0;
-                    isFirstChart = false;
-                    for (int i = firstPointToShow + 1; i <= lastPointToShow; i++) {
-                        x = (i * mStepXForMaxScale - translation) * scale;
-                        x = x + (1 - 2 * x / getWidth()) * mSideMargin;
-                        if (isAnimatedLine) {
-                            if (yData.isShown()) {
-                                y = getHeight() - (yData.getValues().get(i) - minPossibleYeverComputed) * prevYStep * progress;
-                            } else {
-                                y = getHeight() - (yData.getValues().get(i) - minPossibleYeverComputed) * nextYStep * (1 - progress);
-                            }
-                        } else {
-                            y = getHeight() - (yData.getValues().get(i) - minPossibleYeverComputed) * yStep;
-                        }
-                        y = y + (1 - 2 * y / getHeight()) * mDragBoarderHeight;
-                        mPathPoints[pointIndex] = x;
-                        mPathPoints[pointIndex + 1] = getHeight() - mDragBoarderHeight;
-                        mPathPoints[pointIndex + 2] = x;
-                        mPathPoints[pointIndex + 3] = y;
-                        pointIndex += 4;
-                    }
-                } else {
-                    float shift;
-                    pointIndex = 0;
-                    for (int i = firstPointToShow + 1; i <= lastPointToShow; i++) {
-                        if (isAnimatedLine) {
-                            if (yData.isShown()) {
-                                y = getHeight() - (yData.getValues().get(i) - minPossibleYeverComputed) * prevYStep * progress;
-                            } else {
-                                y = getHeight() - (yData.getValues().get(i) - minPossibleYeverComputed) * nextYStep * (1 - progress);
-                            }
-                        } else {
-                            y = getHeight() - (yData.getValues().get(i) - minPossibleYeverComputed) * yStep;
-                        }
-                        y = y + (1 - 2 * y / getHeight());
-                        shift = getHeight() - mPathPoints[pointIndex + 3];
-                        mPathPoints[pointIndex + 1] = getHeight() - shift;
-                        mPathPoints[pointIndex + 3] = y - shift;
-                        pointIndex += 4;
-                    }
-                }
-                paint.setStrokeWidth((mPathPoints[4] - mPathPoints[0]) + 1);
-            }
-
-
-            if (mLinesToToggle.contains(yData.getVarName()) && !yData.isBar()) {
-                if (yData.isShown()) {
-                    paint.setAlpha(Math.min(((int) (255 * progress)), 255));
-                } else {
-                    paint.setAlpha(Math.max((int) (255 * (1 - progress)), 0));
-                }
-            }
-
-            canvas.drawLines(mPathPoints, 0, pointIndex - 1, paint);
-        }
+        setRenderState(firstPointToShow, lastPointToShow, progress, scale, translation);
+        mRenderState.setYRange(0, mLastMinPossibleYever, mLastMaxPossibleYever, minPossibleYever, maxPossibleYever);
+        endPhase(RenderMetrics.PHASE_Y_RANGE);
+        drawChart(canvas);
+        endPhase(RenderMetrics.PHASE_BODY);
 
         drawControlsOverlay(canvas);
+        endPhase(RenderMetrics.PHASE_OVERLAY);
         loop(maxPossibleYever, minPossibleYever, progress);
     }
 
-    private int getHeightWithoutXAxis() {
-        return getHeight() - mDragBoarderHeight;
+    /**
+     * Updates state of renderer for the frame, lines are drawn between drag borders and are
+     * kept in target or previous range while they are toggled.
+     */
+    private void setRenderState(int firstPointToShow, int lastPointToShow, float progress,
+                                float scale, float translation) {
+        mRenderState.setToggledLines(mLinesToToggle);
+        mRenderState.setProgress(progress);
+        mRenderState.setX(firstPointToShow, lastPointToShow, mStepXForMaxScale, scale, translation,
+                mSideMargin, getWidth());
+        mRenderState.setBand(mDragBoarderHeight, getHeight() - mDragBoarderHeight);
     }
 
-    List<Path> percentagePath;
-    long[] lastMaxArray;
-    long[] desiredMaxArray;
-
-    private void drawChartLinesPercentage(Canvas canvas, int firstPointToShow, int lastPointToShow, float lineToggleProgress,
-                                          float scale, float translation) {
-        // Draw chart lines
-        float x;
-        float xWithMargin;
-        float y;
-        float yToCompute;
-
-        int firstShownIndex = 0;
-        for (int i = 0; i < mChartData.getYValues().size(); i++) {
-            if (mChartData.getYValues().get(i).isShown() || mLinesToToggle.contains(mChartData.getYValues().get(i).getVarName())) {
-                firstShownIndex = i;
-                break;
-            }
+    private void drawChart(Canvas canvas) {
+        if (mChartBitmap == null) {
+            mChartBitmap = Bitmap.createBitmap(getWidth(), getHeight(), Bitmap.Config.ARGB_8888);
+            mChartCanvas = new Canvas(mChartBitmap);
+            mChartCanvasAdapter.setCanvas(mChartCanvas);
+            mChartBitmapVersion = -1;
         }
-
-        x = (firstPointToShow * mStepXForMaxScale - translation) * scale;
-        xWithMargin = x + (1 - 2 * x / getWidth()) * mSideMargin;
-        Path p = percentagePath.get(0);
-        p.reset();
-        p.moveTo(xWithMargin, getHeightWithoutXAxis());
-        p.lineTo(xWithMargin, mDragBoarderHeight);
-        x = ((lastPointToShow) * mStepXForMaxScale - translation) * scale;
-        xWithMargin = x + (1 - 2 * x / getWidth()) * mSideMargin;
-        p.lineTo(xWithMargin, mDragBoarderHeight);
-        p.lineTo(xWithMargin, getHeightWithoutXAxis());
-        p.close();
-
-        Paint paint = mPaints.get(mChartData.getYValues().get(firstShownIndex).getVarName());
-
-        canvas.drawPath(p, paint);
-
-        if (firstShownIndex >= percentagePath.size()) {
-            return;
+        int geometryBuilds = mRenderState.getGeometryBuildCount();
+        boolean cached = mChartBitmapVersion == mRenderState.getVersion();
+        if (!cached) {
+            mChartBitmap.eraseColor(Color.TRANSPARENT);
+            mRenderer.draw(mChartCanvasAdapter, mRenderState);
+            mChartBitmapVersion = mRenderState.getVersion();
         }
-
-        x = (firstPointToShow * mStepXForMaxScale - translation) * scale;
-        xWithMargin = x + (1 - 2 * x / getWidth()) * mSideMargin;
-
-        for (int i = 0; i < percentagePath.size(); i++) {
-            percentagePath.get(i).reset();
-            percentagePath.get(i).moveTo(xWithMargin, getHeightWithoutXAxis());
+        canvas.drawBitmap(mChartBitmap, 0, 0, null);
+        if (mMetrics != null) {
+            mMetrics.setBody(cached ? RenderMetrics.BODY_CACHED : RenderMetrics.BODY_DRAWN,
+                    mRenderState.getGeometryBuildCount() != geometryBuilds);
         }
+    }
 
-        for (int i = firstPointToShow; i <= lastPointToShow; i++) {
-            long valueToCompute;
-
-            valueToCompute = (long) (lastMaxArray[i] + (desiredMaxArray[i] - lastMaxArray[i]) * (lineToggleProgress));
+    /**
+     * @param metrics metrics to report frames to, or null to stop measuring
+     */
+    void setRenderMetrics(RenderMetrics metrics) {
+        mMetrics = metrics;
+    }
 
-            x = (i * mStepXForMaxScale - translation) * scale;
-            xWithMargin = x + (1 - 2 * x / getWidth()) * mSideMargin;
-            if (mLinesToToggle.contains(mChartData.getYValues().get(firstShownIndex).getVarName())) {
-                if (mChartData.getYValues().get(firstShownIndex).isShown()) {
-                    y = (float) mChartData.getYValues().get(firstShownIndex).getValues().get(i) / valueToCompute * lineToggleProgress;
-                } else {
-                    y = (float) mChartData.getYValues().get(firstShownIndex).getValues().get(i) / valueToCompute * (1 - lineToggleProgress);
-                }
-            } else {
-                y = (float) mChartData.getYValues().get(firstShownIndex).getValues().get(i) / valueToCompute;
-            }
-            y = mDragBoarderHeight + (getHeight() - 2 * mDragBoarderHeight) * y;
-            percentagePath.get(firstShownIndex).lineTo(xWithMargin, y);
-            for (int k = firstShownIndex + 1; k < mChartData.getYValues().size() - 1; k++) {
-                ChartData.YData yData = mChartData.getYValues().get(k);
-                if (!yData.isShown() && !mLinesToToggle.contains(yData.getVarName())) continue;
-                if (mLinesToToggle.contains(yData.getVarName())) {
-                    if (yData.isShown()) {
-                        yToCompute = (float) yData.getValues().get(i) / valueToCompute * lineToggleProgress;
-                    } else {
-                        yToCompute = (float) yData.getValues().get(i) / valueToCompute * (1 - lineToggleProgress);
-                    }
-                } else {
-                    yToCompute = (float) yData.getValues().get(i) / valueToCompute;
-                }
-                y += (getHeight() - 2 * mDragBoarderHeight) * yToCompute;
-                percentagePath.get(k).lineTo(xWithMargin, y);
-                if (i == lastPointToShow) {
-                    percentagePath.get(k).lineTo(xWithMargin, getHeightWithoutXAxis());
-                }
-            }
-            if (i == lastPointToShow) {
-                percentagePath.get(firstShownIndex).lineTo(xWithMargin, getHeightWithoutXAxis());
-            }
-        }
-        for (int i = firstShownIndex; i < percentagePath.size(); i++) {
-            if (!mChartData.getYValues().get(i).isShown() && !mLinesToToggle.contains(mChartData.getYValues().get(i).getVarName()))
-                continue;
-            percentagePath.get(i).close();
-            for (int j = i + 1; j < percentagePath.size() + 1; j++) {
-                if (mChartData.getYValues().get(j).isShown() || mLinesToToggle.contains(mChartData.getYValues().get(j).getVarName())) {
-                    canvas.drawPath(percentagePath.get(i), mPaints.get(mChartData.getYValues().get(j).getVarName()));
-                    break;
-                }
-            }
+    private void releaseChartBitmap() {
+        if (mChartBitmap != null) {
+            mChartBitmap.recycle();
+            mChartBitmap = null;
+            mChartCanvas = null;
         }
     }
 
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        releaseChartBitmap();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        mClock.cancel(this);
+        releaseChartBitmap();
+    }
 
     private void drawControlsOverlay(Canvas canvas) {
         // Draw left portion of mask
@@ -783,14 +563,14 @@ class ChartControlView extends View {
 
     private void loop(long maxPossibleYever, long minPossibleYever, float progress) {
         if (progress < 1 && (!mLinesToToggle.isEmpty())) {
-            invalidate();
+            requestAnimationFrame();
         } else {
             mStartToggleTime = -1;
             mLastMaxPossibleYever = maxPossibleYever;
             mLastMinPossibleYever = minPossibleYever;
             if (!mLinesToToggle.isEmpty()) {
                 mLinesToToggle.clear();
-                invalidate();
+                requestAnimationFrame();
             }
         }
     }
@@ -798,17 +578,15 @@ class ChartControlView extends View {
     private void loop(float lineToggleProgress) {
         // Run draw loop in case animation is running.
         if (lineToggleProgress < 1) {
-            invalidate();
+            requestAnimationFrame();
         } else {
             if (lineToggleProgress >= 1) {
-                for (int i = 0; i < lastMaxArray.length; i++) {
-                    lastMaxArray[i] = desiredMaxArray[i];
-                }
                 mStartToggleTime = -1;
             }
             if (!mLinesToToggle.isEmpty()) {
+                mRenderState.commitTotals();
                 mLinesToToggle.clear();
-                invalidate();
+                requestAnimationFrame();
             }
         }
     }
@@ -825,14 +603,6 @@ class ChartControlView extends View {
             return;
         }
 
-        lastMaxArray = null;
-        desiredMaxArray = new long[data.getYValues().get(0).getSize()];
-
-        percentagePath = new ArrayList<>(data.getYValues().size() - 1);
-        for (int i = 0; i < data.getYValues().size() - 1; i++) {
-            percentagePath.add(new Path());
-        }
-
         if (data.isDoubleYAxis()) {
             mLastMaxPossibleEachLine = new long[data.getYValues().size()];
             mLastMinPossibleEachLine = new long[data.getYValues().size()];
@@ -842,26 +612,16 @@ class ChartControlView extends View {
             }
         }
 
-        mPathPoints = new float[data.getXValues().size() * 4];
-
         mChartData = data;
-        mPaints.clear();
-        for (ChartData.YData yData : mChartData.getYValues()) {
-            Paint paint = new Paint();
-
-            paint.setColor(Color.parseColor(yData.getColor()));
-            if (mChartData.isPercentage()) {
-                paint.setStyle(Paint.Style.FILL);
-            } else {
-                paint.setStyle(Paint.Style.STROKE);
-            }
-            paint.setFlags(Paint.ANTI_ALIAS_FLAG);
-            paint.setStrokeWidth(4);
-
-            mPaints.put(yData.getVarName(), paint);
-        }
+        ChartPaint linePaint = new ChartPaint();
+        linePaint.setStyle(ChartRenderers.isFilled(mChartData)
+                ? ChartPaint.STYLE_FILL : ChartPaint.STYLE_STROKE);
+        linePaint.setStrokeWidth(4);
 
         mStepXForMaxScale = (float) getWidth() / (mChartData.getSize() - 1);
+        mRenderState.setChartData(mChartData, linePaint);
+        mRenderState.setPinToggledLines(true);
+        mRenderer = ChartRenderers.create(mChartData);
         mLeftCurrentXBoarderValue = 0;
         mRightCurrentXBoarderValue = getWidth();
 
@@ -879,7 +639,7 @@ class ChartControlView extends View {
      */
     void onYChartToggled(String yVarName) {
         if (mStartToggleTime == -1) {
-            mStartToggleTime = System.currentTimeMillis();
+            mStartToggleTime = mClock.now();
         }
         mLinesToToggle.add(yVarName);
         invalidate();
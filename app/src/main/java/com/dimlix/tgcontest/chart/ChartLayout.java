@@ -37,6 +37,7 @@ public class ChartLayout extends LinearLayout implements CompoundButton.OnChecke
     public static int MAX_DISCRETE_PROGRESS = 10000;
 
     private ChartView mChartView;
+    private ChartBodyView mChartBodyView;
     private ChartControlView mChartControlView;
 
     private TextView mChartTitle;
@@ -57,6 +58,18 @@ public class ChartLayout extends LinearLayout implements CompoundButton.OnChecke
 
     private int mChipHeight;
 
+    // State restored before data is loaded, applied in setData.
+    private Bundle mPendingState;
+
+    private DetailDataSource mDetailDataSource;
+    // Overview data and its selected region while detailed data of one of its points is shown.
+    private ChartData mOverviewData;
+    private int mOverviewLeftBoarder;
+    private int mOverviewRightBoarder;
+
+    private RenderMetrics mChartMetrics;
+    private boolean mRenderMetricsOverlay;
+
     public ChartLayout(Context context) {
         super(context);
         init(context);
@@ -74,6 +87,7 @@ public class ChartLayout extends LinearLayout implements CompoundButton.OnChecke
         mSideMargin = getContext().getResources().getDimensionPixelSize(R.dimen.side_margin);
         mChipHeight = context.getResources().getDimensionPixelSize(R.dimen.chip_height);
         mChartView = view.findViewById(R.id.chart);
+        mChartBodyView = view.findViewById(R.id.chartBody);
         mChartControlView = view.findViewById(R.id.chartControl);
         mChipGroup = view.findViewById(R.id.groupLinesControls);
 
@@ -115,6 +129,16 @@ public class ChartLayout extends LinearLayout implements CompoundButton.OnChecke
                     mListener.onInnerViewReleased();
                 }
             }
+
+            @Override
+            public void onPointTouched(int index) {
+                prefetchDetailData(index);
+            }
+
+            @Override
+            public void onPointClicked(int index) {
+                loadDetailData(index);
+            }
         });
     }
 
@@ -126,18 +150,28 @@ public class ChartLayout extends LinearLayout implements CompoundButton.OnChecke
     private void setRegion(int left, int right) {
         mLeftBoarder = left;
         mRightBoarder = right;
+        if (mData == null) {
+            return;
+        }
         mChartView.setMaxVisibleRegionPercent(mLeftBoarder, mRightBoarder);
 
 
         leftPercentagePos = (float) left / ChartLayout.MAX_DISCRETE_PROGRESS;
         rightPercentagePos = (float) right / ChartLayout.MAX_DISCRETE_PROGRESS;
 
-        firstPointToShow = (int) (leftPercentagePos * (mData.getSize() - 1));
-        lastPointToShow = (int) (rightPercentagePos * (mData.getSize() - 1));
+        firstPointToShow = mData.getXPositions().getPointAtOrBefore(leftPercentagePos * (mData.getSize() - 1));
+        lastPointToShow = mData.getXPositions().getPointAtOrBefore(rightPercentagePos * (mData.getSize() - 1));
 
         mChartSelectedRange.setText(getContext().getString(R.string.date_range,
-                mData.getXStringValues().get(firstPointToShow).getFullDate(),
-                mData.getXStringValues().get(lastPointToShow).getFullDate()));
+                mData.getXStringValue(firstPointToShow).getFullDate(),
+                mData.getXStringValue(lastPointToShow).getFullDate()));
+    }
+
+    /**
+     * Shows title while data is being loaded.
+     */
+    public void setTitle(String title) {
+        mChartTitle.setText(title);
     }
 
     public void setData(ChartData data) {
@@ -148,8 +182,8 @@ public class ChartLayout extends LinearLayout implements CompoundButton.OnChecke
         mChartTitle.setText(data.getName());
 
         mChartSelectedRange.setText(getContext().getString(R.string.date_range,
-                mData.getXStringValues().get(0).getFullDate(),
-                mData.getXStringValues().get(mData.getSize() - 1).getFullDate()));
+                mData.getXStringValue(0).getFullDate(),
+                mData.getXStringValue(mData.getSize() - 1).getFullDate()));
 
         int min = mLeftBoarder;
         int max = mRightBoarder;
@@ -196,7 +230,10 @@ public class ChartLayout extends LinearLayout implements CompoundButton.OnChecke
                 mChartCheckboxes.put(yData.getVarName(), checkbox);
                 checkbox.setChipBackgroundColor(new ColorStateList(states, colorsSolid));
                 checkbox.setText(yData.getAlias());
-                checkbox.setChecked(true);
+                checkbox.setChecked(yData.isShown());
+                if (!yData.isShown()) {
+                    mDisbledCharts.add(yData.getVarName());
+                }
                 checkbox.setTag(yData.getVarName());
                 checkbox.setOnCheckedChangeListener(this);
 
@@ -205,6 +242,81 @@ public class ChartLayout extends LinearLayout implements CompoundButton.OnChecke
                 mChipGroup.addView(checkbox);
             }
         }
+
+        if (mPendingState != null) {
+            restoreState(mPendingState);
+            mPendingState = null;
+        }
+    }
+
+    /**
+     * @param source source of data shown when info panel of the point is clicked, null to
+     *               disable zoom
+     */
+    public void setDetailDataSource(DetailDataSource source) {
+        mDetailDataSource = source;
+    }
+
+    private void prefetchDetailData(int index) {
+        if (mDetailDataSource == null || mOverviewData != null) return;
+        // Neighbours are prefetched too, so that zoom doesn't wait while user scrubs around.
+        long[] xValues = mData.getXValues();
+        for (int i = Math.max(0, index - 1); i <= Math.min(xValues.length - 1, index + 1); i++) {
+            mDetailDataSource.prefetch(xValues[i]);
+        }
+    }
+
+    private void loadDetailData(int index) {
+        if (mDetailDataSource == null || mOverviewData != null) return;
+        final ChartData overview = mData;
+        mDetailDataSource.load(mData.getXValues()[index], new DetailDataSource.Callback() {
+            @Override
+            public void onDetailDataLoaded(ChartData data) {
+                // Ignore result if user already left this chart.
+                if (mData == overview && mOverviewData == null) {
+                    zoomIn(data);
+                }
+            }
+        });
+    }
+
+    private void zoomIn(ChartData detail) {
+        mOverviewData = mData;
+        mOverviewLeftBoarder = mLeftBoarder;
+        mOverviewRightBoarder = mRightBoarder;
+        for (ChartData.YData yData : detail.getYValues()) {
+            detail.setLineShown(yData, !mDisbledCharts.contains(yData.getVarName()));
+        }
+        detail.setName(mOverviewData.getName());
+        mLeftBoarder = 0;
+        mRightBoarder = MAX_DISCRETE_PROGRESS;
+        replaceData(detail);
+
+        mChartTitle.setText(R.string.zoom_out);
+        mChartTitle.setOnClickListener(new OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                zoomOut();
+            }
+        });
+    }
+
+    private void zoomOut() {
+        ChartData overview = mOverviewData;
+        mOverviewData = null;
+        for (ChartData.YData yData : overview.getYValues()) {
+            overview.setLineShown(yData, !mDisbledCharts.contains(yData.getVarName()));
+        }
+        mLeftBoarder = mOverviewLeftBoarder;
+        mRightBoarder = mOverviewRightBoarder;
+        mChartTitle.setOnClickListener(null);
+        mChartTitle.setClickable(false);
+        replaceData(overview);
+    }
+
+    private void replaceData(ChartData data) {
+        mChipGroup.removeAllViews();
+        setData(data);
     }
 
     @Override
@@ -226,13 +338,43 @@ public class ChartLayout extends LinearLayout implements CompoundButton.OnChecke
                 } else {
                     mDisbledCharts.remove(yData.getVarName());
                 }
-                yData.setShown(isChecked);
+                mData.setLineShown(yData, isChecked);
             }
         }
         mChartView.onYChartToggled(yVarName);
         mChartControlView.onYChartToggled(yVarName);
     }
 
+    /**
+     * Draws lines of the chart on a dedicated render thread, main thread keeps drawing only
+     * axes and touched info. Helps when several heavy charts are animated at once.
+     */
+    public void setRenderThreadEnabled(boolean enabled) {
+        mChartBodyView.setVisibility(enabled ? VISIBLE : GONE);
+        mChartView.setBodyView(enabled ? mChartBodyView : null);
+    }
+
+    /**
+     * Starts measuring frames of the chart and of the range control, e.g. to report them to
+     * telemetry. Views measure nothing while metrics are null.
+     *
+     * @param chartMetrics   metrics of the chart, or null
+     * @param controlMetrics metrics of the range control, or null
+     */
+    public void setRenderMetrics(RenderMetrics chartMetrics, RenderMetrics controlMetrics) {
+        mChartMetrics = chartMetrics;
+        mChartView.setRenderMetrics(chartMetrics, mRenderMetricsOverlay);
+        mChartControlView.setRenderMetrics(controlMetrics);
+    }
+
+    /**
+     * Draws timings of the last chart frame above the chart, for debugging.
+     */
+    public void setRenderMetricsOverlayEnabled(boolean enabled) {
+        mRenderMetricsOverlay = enabled;
+        mChartView.setRenderMetrics(mChartMetrics, enabled);
+    }
+
     public void setListener(Listener listener) {
         mListener = listener;
     }
@@ -252,15 +394,42 @@ public class ChartLayout extends LinearLayout implements CompoundButton.OnChecke
         void onInnerViewReleased();
     }
 
+    /**
+     * Source of detailed data (e.g. hours of a day) of the chart points.
+     */
+    public interface DetailDataSource {
+        /**
+         * Starts loading detailed data of the point in background unless it is already loaded.
+         */
+        void prefetch(long x);
+
+        /**
+         * Delivers detailed data of the point on the main thread, immediately if it was
+         * prefetched. Callback is not called if there is no detailed data for the point.
+         */
+        void load(long x, Callback callback);
+
+        interface Callback {
+            void onDetailDataLoaded(ChartData data);
+        }
+    }
+
     @Override
     public Parcelable onSaveInstanceState() {
         Bundle bundle = new Bundle();
         bundle.putParcelable("superState", super.onSaveInstanceState());
         bundle.putInt("left", mLeftBoarder);
         bundle.putInt("right", mRightBoarder);
-        String[] disableCharts = new String[mDisbledCharts.size()];
-        mDisbledCharts.toArray(disableCharts);
-        bundle.putStringArray("disableCharts", disableCharts);
+        if (mDisbledCharts != null) {
+            String[] disableCharts = new String[mDisbledCharts.size()];
+            mDisbledCharts.toArray(disableCharts);
+            bundle.putStringArray("disableCharts", disableCharts);
+        } else if (mPendingState != null) {
+            // Data is still loading, keep state which was restored before.
+            bundle.putStringArray("disableCharts", mPendingState.getStringArray("disableCharts"));
+        } else {
+            bundle.putStringArray("disableCharts", new String[0]);
+        }
         return bundle;
     }
 
@@ -268,23 +437,34 @@ public class ChartLayout extends LinearLayout implements CompoundButton.OnChecke
     public void onRestoreInstanceState(Parcelable state) {
         if (state instanceof Bundle) // implicit null check
         {
-            setAnimationEnabled(false);
             Bundle bundle = (Bundle) state;
-            mChartControlView.setMinMax(bundle.getInt("left"), bundle.getInt("right"));
-            for (String yVarName : bundle.getStringArray("disableCharts")) {
-                mChartCheckboxes.get(yVarName).setChecked(false);
+            if (mData == null) {
+                mPendingState = bundle;
+            } else {
+                restoreState(bundle);
             }
-            mChartControlView.postDelayed(new Runnable() {
-                @Override
-                public void run() {
-                    setAnimationEnabled(true);
-                }
-            }, 100);
             state = bundle.getParcelable("superState");
         }
         super.onRestoreInstanceState(state);
     }
 
+    private void restoreState(Bundle bundle) {
+        setAnimationEnabled(false);
+        mChartControlView.setMinMax(bundle.getInt("left"), bundle.getInt("right"));
+        for (String yVarName : bundle.getStringArray("disableCharts")) {
+            Chip chip = mChartCheckboxes.get(yVarName);
+            if (chip != null) {
+                chip.setChecked(false);
+            }
+        }
+        mChartControlView.postDelayed(new Runnable() {
+            @Override
+            public void run() {
+                setAnimationEnabled(true);
+            }
+        }, 100);
+    }
+
     private void setAnimationEnabled(boolean isEnabled) {
         mChartControlView.setAnimationsEnabled(isEnabled);
         mChartView.setAnimationsEnabled(isEnabled);
@@ -298,12 +478,14 @@ public class ChartLayout extends LinearLayout implements CompoundButton.OnChecke
         theme.resolveAttribute(R.attr.bgChartColor, typedValue, true);
         setBackgroundColor(typedValue.data);
 
-        int states[][] = {{android.R.attr.state_selected}, {}};
-        for (ChartData.YData yData : mData.getYValues()) {
-            int colorsSolid[] = {Color.parseColor(yData.getColor()), typedValue.data};
-            Chip chip = mChartCheckboxes.get(yData.getVarName());
-            if (chip != null) {
-                chip.setChipBackgroundColor(new ColorStateList(states, colorsSolid));
+        if (mData != null) {
+            int states[][] = {{android.R.attr.state_selected}, {}};
+            for (ChartData.YData yData : mData.getYValues()) {
+                int colorsSolid[] = {Color.parseColor(yData.getColor()), typedValue.data};
+                Chip chip = mChartCheckboxes.get(yData.getVarName());
+                if (chip != null) {
+                    chip.setChipBackgroundColor(new ColorStateList(states, colorsSolid));
+                }
             }
         }
 
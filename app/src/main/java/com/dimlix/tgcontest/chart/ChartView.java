@@ -1,39 +1,39 @@
 package com.dimlix.tgcontest.chart;
 
 import android.content.Context;
-import android.content.res.ColorStateList;
 import android.content.res.Resources;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Color;
+import android.graphics.ColorFilter;
 import android.graphics.ColorMatrix;
 import android.graphics.ColorMatrixColorFilter;
 import android.graphics.Paint;
-import android.graphics.Path;
 import android.util.AttributeSet;
 import android.util.Pair;
 import android.util.TypedValue;
-import android.view.LayoutInflater;
 import android.view.MotionEvent;
 import android.view.View;
-import android.view.ViewGroup;
-import android.widget.TextView;
 
 import com.dimlix.tgcontest.R;
+import com.dimlix.tgcontest.chart.render.ChartPaint;
+import com.dimlix.tgcontest.chart.render.ChartRenderer;
+import com.dimlix.tgcontest.chart.render.ChartRenderers;
+import com.dimlix.tgcontest.chart.render.RenderState;
 import com.dimlix.tgcontest.model.ChartData;
+import com.dimlix.tgcontest.model.XPositions;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 /**
  * Class to display chart data.
  * <p>
- * Some part is the same with {@link ChartControlView} but code is kept separate because
- * looks like it should be more flexible rather then common,
- * e.g. chart line toggling animation is different.
+ * Lines are drawn by renderers shared with {@link ChartControlView}, while ranges of the
+ * chart and their animation are kept separate because they should be more flexible
+ * rather then common, e.g. chart line toggling animation is different.
  * <p>
  * Package protected class, use ChartLayout as a single ViewGroup which contains both
  * {@link ChartView} and {@link ChartControlView}.
@@ -44,17 +44,38 @@ class ChartView extends View {
     // When user change view region chart y axis is animated with this duration.
     private static final int SHIFT_ANIM_DURATION = 150;
     private static final int NUM_HOR_AXIS = 6;
-    private static final int NUM_X_AXIS_MIN = 3;
-    private static final int NUM_X_AXIS_MAX = 5;
     public static final int OFFSET_DRAW_NUM = 2;
     public static final int OFFSET_X_AXIS_DRAW_NUM = 8;
-    private static final int DISTANCE_THRESHOLD = 4;
     public static final int INFO_PANEL_SHIFT = 50;
     public static final int MAX_AXIS_ALPHA = 19;
     private static final long TOUCH_THRESHOLD = 500;
+    // Percentage axis is the same on every frame.
+    private static final String[] PERCENTAGE_LABELS = {"0", "25", "50", "75", "100"};
 
-    private float[] mPathPoints;
+    // Paints of touched points of lines.
     private Map<String, Paint> mPaints = new HashMap<>();
+    private ChartPaint mLinePaint;
+    // Bars which are not selected are drawn with it while there is selected point.
+    private ColorFilter mSelectionFilter;
+    private final AndroidChartCanvas mChartCanvas = new AndroidChartCanvas();
+    private final AnimationClock mClock = AnimationClock.getInstance();
+    private final RenderState mRenderState = new RenderState();
+    private ChartRenderer mRenderer;
+    // Chart body which is drawn while only touched info changes, e.g. when user scrubs.
+    private Bitmap mBodyLayer;
+    private Canvas mBodyLayerCanvas;
+    private int mBodyLayerVersion = -1;
+    private int mLastFrameVersion = -1;
+    // Draws the body on render thread instead, see setBodyView.
+    private ChartBodyView mBodyView;
+    // State which body view was given last, frames which don't change it are not posted.
+    private int mPostedVersion = -1;
+    private int mPostedSelectedPoint = -1;
+
+    // Measures frames when set, see setRenderMetrics.
+    private RenderMetrics mMetrics;
+    private Paint mMetricsPaint;
+    private boolean mAnimationFrameRequested;
 
     private float mLeftCurrentXBoarderValue = 0;
     private float mRightCurrentXBoarderValue = ChartLayout.MAX_DISCRETE_PROGRESS;
@@ -75,10 +96,9 @@ class ChartView extends View {
     private long[] mLastMaxPossibleEachLine;
     private long[] mLastMinPossibleEachLine;
 
-    private int mLastXValuesStep = -1;
-    private int mPrevLastXValuesStep = -1;
+    private final VisibleRange mVisibleRange = new VisibleRange();
+    private final XAxisLabelCache mXAxisLabels = new XAxisLabelCache();
     private int mPrevNextIndexToDraw = -1;
-    private boolean mHideAnimation = false;
 
     private Paint mAxisPaint;
     private Paint mAxisTextPaint;
@@ -94,13 +114,12 @@ class ChartView extends View {
     private int mSideMargin;
 
     private int mAxisXHeight;
-    private int mPrevDistance;
 
     private float mTouchXValue = -1;
 
     private Listener mListener;
 
-    private InfoPanelViewHolder mInfoPanelViewHolder;
+    private InfoPanelRenderer mInfoPanel;
 
     private boolean mIsAnimationsEnabled = true;
 
@@ -112,7 +131,13 @@ class ChartView extends View {
 
     private float mLastInfoPanelPositionX = -1;
     private boolean mInTouchPanelBounds = false;
+    // Reused by labels drawn on every frame, see Utils.
+    private final char[] mLabelBuffer = new char[Utils.MAX_LENGTH];
     private int mNearestIndexTouched = -1;
+    // Point listener was told about, see notifyPointTouched.
+    private int mNotifiedIndexTouched = -1;
+    // Point which info panel was shown for when user touched the panel.
+    private int mInfoPanelIndex = -1;
 
     public ChartView(Context context) {
         super(context);
@@ -153,7 +178,16 @@ class ChartView extends View {
                     0, 0, 1, 0, 50,
                     0, 0, 0, 1, 0});
         }
-        selectedFilter = new ColorMatrixColorFilter(colorMatrix);
+        mSelectionFilter = new ColorMatrixColorFilter(colorMatrix);
+        mChartCanvas.setDimFilter(mSelectionFilter);
+
+        if (mInfoPanel == null) {
+            mInfoPanel = new InfoPanelRenderer(getContext().getResources());
+        }
+        theme.resolveAttribute(R.attr.infoBgColor, typedValue, true);
+        int infoBgColor = typedValue.data;
+        theme.resolveAttribute(R.attr.infoDateTextColor, typedValue, true);
+        mInfoPanel.setColors(typedValue.data, infoBgColor);
 
         theme.resolveAttribute(R.attr.axisChartColor, typedValue, true);
 
@@ -176,6 +210,7 @@ class ChartView extends View {
         setOnTouchListener(new OnTouchListener() {
             @Override
             public boolean onTouch(View v, MotionEvent event) {
+                if (mChartData == null) return false;
                 if (mListener != null) {
                     mListener.onViewTouched();
                 }
@@ -184,10 +219,11 @@ class ChartView extends View {
                     if (mFirstIteractionTime < 0) {
                         mInTouchPanelBounds = mLastInfoPanelPositionX > 0
                                 && event.getY() > INFO_PANEL_SHIFT
-                                && event.getY() < INFO_PANEL_SHIFT + mInfoPanelViewHolder.mInfoView.getHeight()
+                                && event.getY() < INFO_PANEL_SHIFT + mInfoPanel.getHeight()
                                 && event.getX() > mLastInfoPanelPositionX
-                                && event.getX() < mLastInfoPanelPositionX + mInfoPanelViewHolder.mInfoView.getWidth();
+                                && event.getX() < mLastInfoPanelPositionX + mInfoPanel.getWidth();
                         if (mInTouchPanelBounds) {
+                            mInfoPanelIndex = mNearestIndexTouched;
                             mTouchXValue = -1;
                         }
                         mFirstIteractionTime = System.currentTimeMillis();
@@ -215,12 +251,17 @@ class ChartView extends View {
                 }
                 if (event.getAction() == MotionEvent.ACTION_UP) {
                     if (mInTouchPanelBounds) {
+                        if (mInfoPanelIndex >= 0 && mListener != null) {
+                            mListener.onPointClicked(mInfoPanelIndex);
+                        }
+                        mInfoPanelIndex = -1;
                         mTouchXValue = -1;
                     } else {
                         mTouchXValue = event.getX();
                     }
                     mFirstIteractionTime = -1;
                 }
+                notifyPointTouched();
                 invalidate();
                 return true;
             }
@@ -229,19 +270,11 @@ class ChartView extends View {
 
     void reInit() {
         init();
-        TypedValue typedValue = new TypedValue();
-        Resources.Theme theme = getContext().getTheme();
-        theme.resolveAttribute(R.attr.infoBgColor, typedValue, true);
-        mInfoPanelViewHolder.mInfoView.setBackgroundTintList(ColorStateList.valueOf(typedValue.data));
-        theme.resolveAttribute(R.attr.infoDateTextColor, typedValue, true);
-        mInfoPanelViewHolder.mInfoViewTitle.setTextColor(typedValue.data);
-        int counter = 0;
-        for (LineViewHolder views : mInfoPanelViewHolder.mLineValue) {
-            views.first.setTextColor(typedValue.data);
-            counter++;
-            if (mChartData.isStacked() && counter == mInfoPanelViewHolder.mLineValue.size() && !mChartData.isPercentage()) {
-                views.second.setTextColor(typedValue.data);
-            }
+        mBodyLayerVersion = -1;
+        mXAxisLabels.reset(mChartData, mAxisTextPaint);
+        if (mChartData == null) {
+            invalidate();
+            return;
         }
         invalidate();
     }
@@ -271,10 +304,16 @@ class ChartView extends View {
             }
         }
         mAxisPaint.setAlpha(MAX_AXIS_ALPHA);
+        if (mMetrics != null) {
+            mMetrics.beginFrame(mAnimationFrameRequested);
+        }
+        mAnimationFrameRequested = false;
 
-        int firstPointToShow =
-                Math.max((int) Math.floor((mLeftCurrentXBoarderValue - mSideMargin) / mStepXForMaxScale) - OFFSET_DRAW_NUM, 0);
-        int lastPointToShow = Math.min((int) Math.ceil((mRightCurrentXBoarderValue + mSideMargin) / mStepXForMaxScale) + OFFSET_DRAW_NUM,
+        XPositions positions = mChartData.getXPositions();
+        int firstPointToShow = Math.max(positions.getPointAtOrBefore(
+                (mLeftCurrentXBoarderValue - mSideMargin) / mStepXForMaxScale) - OFFSET_DRAW_NUM, 0);
+        int lastPointToShow = Math.min(positions.getPointAtOrAfter(
+                (mRightCurrentXBoarderValue + mSideMargin) / mStepXForMaxScale) + OFFSET_DRAW_NUM,
                 mChartData.getSize() - 1);
         if (mChartData.isDoubleYAxis()) {
             drawChartForEachLine(canvas, firstPointToShow, lastPointToShow);
@@ -285,36 +324,50 @@ class ChartView extends View {
                 drawCompoundChart(canvas, firstPointToShow, lastPointToShow);
             }
         }
+        if (mMetrics != null) {
+            endFrame(lastPointToShow - firstPointToShow + 1);
+            if (mMetricsPaint != null) {
+                mMetrics.drawOverlay(canvas, getWidth() - mSideMargin - 7 * mAxisTextSize,
+                        2 * mAxisTextSize, mMetricsPaint);
+            }
+        }
+    }
+
+    private void endFrame(int points) {
+        int lines = 0;
+        for (int k = 0; k < mChartData.getYValues().size(); k++) {
+            if (mRenderState.isVisible(k)) {
+                lines++;
+            }
+        }
+        mMetrics.setPoints(points, lines);
+        mMetrics.endFrame();
+    }
+
+    private void endPhase(int phase) {
+        if (mMetrics != null) {
+            mMetrics.endPhase(phase);
+        }
+    }
+
+    private void requestAnimationFrame() {
+        mAnimationFrameRequested = true;
+        mClock.requestFrame(this);
     }
 
     long[] maxPossibleYever = null;
     long[] minPossibleYever = null;
-    float[] maxPossibleYeverComputed = null;
-    float[] minPossibleYeverComputed = null;
-    float[] yStep = null;
 
-    // TODO migrate to different renderers for different chart types
     private void drawChartForEachLine(Canvas canvas, int firstPointToShow, int lastPointToShow) {
         if (maxPossibleYever == null) {
             maxPossibleYever = new long[mLastMinPossibleEachLine.length];
             minPossibleYever = new long[mLastMinPossibleEachLine.length];
-            maxPossibleYeverComputed = new float[mLastMinPossibleEachLine.length];
-            minPossibleYeverComputed = new float[mLastMinPossibleEachLine.length];
-            yStep = new float[mLastMinPossibleEachLine.length];
-        }
-        for (int i = 0; i < maxPossibleYever.length; i++) {
-            maxPossibleYever[i] = 0;
-            minPossibleYever[i] = Integer.MAX_VALUE;
         }
         boolean needAnim = false;
+        mVisibleRange.setYRange(mChartData, firstPointToShow, lastPointToShow);
         for (int k = 0; k < mChartData.getYValues().size(); k++) {
-            ChartData.YData yData = mChartData.getYValues().get(k);
-            // Extra iteration over visible fragment needed to find out y scale factor.
-            for (int i = firstPointToShow; i < lastPointToShow; i++) {
-                Long nextValue = yData.getValues().get(i);
-                if (maxPossibleYever[k] < nextValue) maxPossibleYever[k] = nextValue;
-                if (minPossibleYever[k] > nextValue) minPossibleYever[k] = nextValue;
-            }
+            maxPossibleYever[k] = mVisibleRange.getMax(k);
+            minPossibleYever[k] = mVisibleRange.getMin(k);
             if (mLastMaxPossibleEachLine[k] == -1) {
                 mLastMaxPossibleEachLine[k] = maxPossibleYever[k];
             }
@@ -330,9 +383,9 @@ class ChartView extends View {
         if (mIsAnimationsEnabled
                 && (!mLinesToToggle.isEmpty() || needAnim)) {
             if (mStartToggleTime == -1) {
-                mStartToggleTime = System.currentTimeMillis();
+                mStartToggleTime = mClock.now();
             }
-            long elapsed = System.currentTimeMillis() - mStartToggleTime;
+            long elapsed = mClock.now() - mStartToggleTime;
             if (!mLinesToToggle.isEmpty()) {
                 lineToggleProgress = Math.min((float) elapsed / TOGGLE_ANIM_DURATION, 1);
             } else {
@@ -343,30 +396,32 @@ class ChartView extends View {
         float scale = (float) getWidth() / (mRightCurrentXBoarderValue - mLeftCurrentXBoarderValue);
         float translation = mLeftCurrentXBoarderValue;
 
-        for (int i = 0; i < maxPossibleYever.length; i++) {
-            maxPossibleYeverComputed[i] =
-                    mLastMaxPossibleEachLine[i] + (maxPossibleYever[i] - mLastMaxPossibleEachLine[i]) * lineToggleProgress;
-            minPossibleYeverComputed[i] =
-                    mLastMinPossibleEachLine[i] + (minPossibleYever[i] - mLastMinPossibleEachLine[i]) * lineToggleProgress;
-            yStep[i] = (float) getHeightWithoutXAxis() / (maxPossibleYeverComputed[i] - minPossibleYeverComputed[i]);
+        setRenderState(firstPointToShow, lastPointToShow, lineToggleProgress, scale, translation, 0);
+        for (int k = 0; k < maxPossibleYever.length; k++) {
+            mRenderState.setYRange(k, mLastMinPossibleEachLine[k], mLastMaxPossibleEachLine[k],
+                    minPossibleYever[k], maxPossibleYever[k]);
         }
-
-        drawChartLines(canvas, minPossibleYeverComputed, firstPointToShow, lastPointToShow, lineToggleProgress, scale, translation, yStep);
+        endPhase(RenderMetrics.PHASE_Y_RANGE);
+        drawBody(canvas);
+        endPhase(RenderMetrics.PHASE_BODY);
         drawChartYAxis(canvas, maxPossibleYever, minPossibleYever, lineToggleProgress);
-        drawTouchedInfo(canvas, minPossibleYeverComputed, scale, translation, yStep);
+        endPhase(RenderMetrics.PHASE_Y_AXIS);
+        drawTouchedInfoForEachLine(canvas, scale, translation);
+        endPhase(RenderMetrics.PHASE_TOOLTIP);
 
         float xAxisValuesProgress = drawXAxis(canvas, firstPointToShow, lastPointToShow, scale, translation);
+        endPhase(RenderMetrics.PHASE_X_AXIS);
         loop(maxPossibleYever, minPossibleYever, lineToggleProgress, xAxisValuesProgress);
     }
 
     private void loop(long[] maxPossibleYever, long[] minPossibleYever, float lineToggleProgress, float xAxisValuesProgress) {
         // Run draw loop in case animation is running.
         if (lineToggleProgress < 1 || xAxisValuesProgress < 1) {
-            invalidate();
+            requestAnimationFrame();
         } else {
             if (xAxisValuesProgress >= 1) {
                 mStartXAxisAnimTime = -1;
-                mPrevLastXValuesStep = mLastXValuesStep;
+                mVisibleRange.commitLabelStep();
             }
             if (lineToggleProgress >= 1) {
                 mStartToggleTime = -1;
@@ -381,65 +436,40 @@ class ChartView extends View {
                     mLastMinPossibleEachLine[i] = minPossibleYever[i];
                 }
                 mLinesToToggle.clear();
-                invalidate();
+                requestAnimationFrame();
             }
         }
     }
 
-    private void drawTouchedInfo(Canvas canvas, float[] minPossibleYeverComputed, float scale, float translation, float[] yStep) {
+    private void drawTouchedInfoForEachLine(Canvas canvas, float scale, float translation) {
         // Draw info about touched section
+        if (mTouchXValue <= 0) {
+            mNearestIndexTouched = -1;
+        }
         if (mTouchXValue > 0) {
-            float xWithMarginToSearch = mTouchXValue - (1 - 2 * mTouchXValue / getWidth()) * mSideMargin;
-            int nearestIndexTouched = Math.round((xWithMarginToSearch / scale + translation) / mStepXForMaxScale);
-            if (nearestIndexTouched >= mChartData.getSize() - 1) {
-                nearestIndexTouched = mChartData.getSize() - 1;
-            } else if (nearestIndexTouched < 0) {
-                nearestIndexTouched = 0;
-            }
-            float x = (nearestIndexTouched * mStepXForMaxScale - translation) * scale;
+            int nearestIndexTouched = getNearestIndex(mTouchXValue);
+            mNearestIndexTouched = nearestIndexTouched;
+            float x = (mChartData.getXPositions().get(nearestIndexTouched) * mStepXForMaxScale - translation) * scale;
             float xValToDraw = x + (1 - 2 * x / getWidth()) * mSideMargin;
             canvas.drawLine(xValToDraw, 0, xValToDraw, getHeightWithoutXAxis() - mAxisWidth, mAxisPaint);
             for (int k = 0; k < mChartData.getYValues().size(); k++) {
                 ChartData.YData yData = mChartData.getYValues().get(k);
-                LineViewHolder tvPair = mInfoPanelViewHolder.mLineValue.get(k);
-                Long yValue = yData.getValues().get(nearestIndexTouched);
-                if (!yData.isShown()) {
-                    tvPair.parent.setVisibility(GONE);
-                    continue;
-                } else {
-                    tvPair.parent.setVisibility(VISIBLE);
-                    tvPair.second.setText(Utils.prettyFormat(yValue));
-                }
-                Paint paint = mPaints.get(yData.getVarName());
-                if (paint == null) {
-                    throw new RuntimeException("There is no color info for " + yData.getVarName());
-                }
-                canvas.drawCircle(xValToDraw,
-                        getHeightWithoutXAxis() - (yValue - minPossibleYeverComputed[k]) * yStep[k],
-                        mAxisSelectedCircleSize, mTouchedCirclePaint);
-                canvas.drawCircle(xValToDraw,
-                        getHeightWithoutXAxis() - (yValue - minPossibleYeverComputed[k]) * yStep[k],
-                        mAxisSelectedCircleSize, paint);
+                if (!yData.isShown()) continue;
+                long yValue = yData.getValues()[nearestIndexTouched];
+                float y = mRenderState.getY(k, k, yValue);
+                canvas.drawCircle(xValToDraw, y, mAxisSelectedCircleSize, mTouchedCirclePaint);
+                canvas.drawCircle(xValToDraw, y, mAxisSelectedCircleSize, mPaints.get(yData.getVarName()));
             }
 
-            mInfoPanelViewHolder.mInfoViewTitle.setText(mChartData.getXStringValues().get(nearestIndexTouched).getExtendedDate());
-
-            int widthSpec = MeasureSpec.makeMeasureSpec(MeasureSpec.getSize(ViewGroup.LayoutParams.WRAP_CONTENT), MeasureSpec.UNSPECIFIED);
-            int heightSpec = MeasureSpec.makeMeasureSpec(MeasureSpec.getSize(ViewGroup.LayoutParams.WRAP_CONTENT), MeasureSpec.UNSPECIFIED);
-            mInfoPanelViewHolder.mInfoView.measure(widthSpec, heightSpec);
-            int infoWidth = mInfoPanelViewHolder.mInfoView.getMeasuredWidth();
-            mInfoPanelViewHolder.mInfoView.layout(0, 0, infoWidth, mInfoPanelViewHolder.mInfoView.getMeasuredHeight());
-            canvas.save();
+            mInfoPanel.update(nearestIndexTouched);
             float translateValue;
             if (mTouchXValue > getWidth() / 2) {
-                translateValue = mTouchXValue - INFO_PANEL_SHIFT - infoWidth;
+                translateValue = mTouchXValue - INFO_PANEL_SHIFT - mInfoPanel.getWidth();
             } else {
                 translateValue = mTouchXValue + INFO_PANEL_SHIFT;
             }
             mLastInfoPanelPositionX = translateValue;
-            canvas.translate(translateValue, INFO_PANEL_SHIFT);
-            mInfoPanelViewHolder.mInfoView.draw(canvas);
-            canvas.restore();
+            mInfoPanel.draw(canvas, translateValue, INFO_PANEL_SHIFT);
         } else {
             mLastInfoPanelPositionX = -1;
         }
@@ -479,7 +509,8 @@ class ChartView extends View {
                     mAxisPaint.setAlpha((int) ((lineToggleProgress) * MAX_AXIS_ALPHA));
                 }
                 canvas.drawLine(mSideMargin, y, getWidth() - mSideMargin, y, mAxisPaint);
-                canvas.drawText(Utils.coolFormat(yAxisStep * (i) + minPossibleYever[0]), mSideMargin, y - (float) mAxisTextSize / 2, mAxisTextFirstPaint);
+                int length = Utils.coolFormat(yAxisStep * (i) + minPossibleYever[0], mLabelBuffer);
+                canvas.drawText(mLabelBuffer, 0, length, mSideMargin, y - (float) mAxisTextSize / 2, mAxisTextFirstPaint);
 
                 if (mLastMaxPossibleEachLine[0] != maxPossibleYever[0] || mLastMinPossibleEachLine[0] != minPossibleYever[0]) {
                     int yOfPrev = (getHeightWithoutXAxis() - mAxisWidth - yDistance * i);
@@ -487,7 +518,8 @@ class ChartView extends View {
                     mAxisTextFirstPaint.setAlpha((int) ((1 - lineToggleProgress) * 255));
                     mAxisPaint.setAlpha((int) ((1 - lineToggleProgress) * MAX_AXIS_ALPHA));
                     canvas.drawLine(mSideMargin, yOfPrev, getWidth() - mSideMargin, yOfPrev, mAxisPaint);
-                    canvas.drawText(Utils.coolFormat(prevYAxisStep * (i) + minPossibleYever[0]), mSideMargin, yOfPrev - (float) mAxisTextSize / 2, mAxisTextFirstPaint);
+                    int prevLength = Utils.coolFormat(prevYAxisStep * (i) + minPossibleYever[0], mLabelBuffer);
+                    canvas.drawText(mLabelBuffer, 0, prevLength, mSideMargin, yOfPrev - (float) mAxisTextSize / 2, mAxisTextFirstPaint);
                 }
             }
 
@@ -500,8 +532,8 @@ class ChartView extends View {
                     mAxisPaint.setAlpha((int) ((lineToggleProgress) * MAX_AXIS_ALPHA));
                 }
                 canvas.drawLine(mSideMargin, y, getWidth() - mSideMargin, y, mAxisPaint);
-                String text = Utils.coolFormat(secondYAxisStep * (i) + minPossibleYever[1]);
-                canvas.drawText(text, getWidth() - mSideMargin - mAxisTextSecondPaint.measureText(text), y - (float) mAxisTextSize / 2, mAxisTextSecondPaint);
+                int length = Utils.coolFormat(secondYAxisStep * (i) + minPossibleYever[1], mLabelBuffer);
+                canvas.drawText(mLabelBuffer, 0, length, getWidth() - mSideMargin - mAxisTextSecondPaint.measureText(mLabelBuffer, 0, length), y - (float) mAxisTextSize / 2, mAxisTextSecondPaint);
 
                 if (mLastMaxPossibleEachLine[1] != maxPossibleYever[1] || mLastMinPossibleEachLine[1] != minPossibleYever[1]) {
                     int yOfPrev = (getHeightWithoutXAxis() - mAxisWidth - yDistance * i);
@@ -509,92 +541,20 @@ class ChartView extends View {
                     mAxisTextSecondPaint.setAlpha((int) ((1 - lineToggleProgress) * 255));
                     mAxisPaint.setAlpha((int) ((1 - lineToggleProgress) * MAX_AXIS_ALPHA));
                     canvas.drawLine(mSideMargin, yOfPrev, getWidth() - mSideMargin, yOfPrev, mAxisPaint);
-                    String oldText = Utils.coolFormat(prevSecondYAxisStep * (i) + minPossibleYever[1]);
-                    canvas.drawText(oldText, getWidth() - mSideMargin - mAxisTextSecondPaint.measureText(oldText), yOfPrev - (float) mAxisTextSize / 2, mAxisTextSecondPaint);
-                }
-            }
-        }
-    }
-
-    private void drawChartLines(Canvas canvas, float[] minPossibleYeverComputed, int firstPointToShow, int lastPointToShow, float lineToggleProgress, float scale, float translation, float[] yStep) {
-        // Draw chart lines
-        float x;
-        float xWithMargin;
-        float y;
-        for (int k = 0; k < mChartData.getYValues().size(); k++) {
-            ChartData.YData yData = mChartData.getYValues().get(k);
-
-
-            if (!mLinesToToggle.contains(yData.getVarName())) {
-                if (!yData.isShown()) {
-                    continue;
-                }
-            }
-
-            x = (firstPointToShow * mStepXForMaxScale - translation) * scale;
-            xWithMargin = x + (1 - 2 * x / getWidth()) * mSideMargin;
-            mPathPoints[0] = xWithMargin;
-            mPathPoints[1] = getHeightWithoutXAxis() - (yData.getValues().get(0) - minPossibleYeverComputed[k]) * yStep[k];
-
-            int pointIndex = 2;
-            for (int i = firstPointToShow + 1; i <= lastPointToShow; i++) {
-                x = (i * mStepXForMaxScale - translation) * scale;
-                xWithMargin = x + (1 - 2 * x / getWidth()) * mSideMargin;
-                y = getHeightWithoutXAxis() - (yData.getValues().get(i) - minPossibleYeverComputed[k]) * yStep[k];
-                mPathPoints[pointIndex] = xWithMargin;
-                mPathPoints[pointIndex + 1] = y;
-                mPathPoints[pointIndex + 2] = xWithMargin;
-                mPathPoints[pointIndex + 3] = y;
-                pointIndex += 4;
-            }
-
-            Paint paint = mPaints.get(yData.getVarName());
-            if (paint == null) {
-                throw new RuntimeException("There is no color info for " + yData.getVarName());
-            }
-
-            if (mLinesToToggle.contains(yData.getVarName())) {
-                if (yData.isShown()) {
-                    paint.setAlpha(Math.min(((int) (255 * lineToggleProgress)), 255));
-                } else {
-                    paint.setAlpha(Math.max((int) (255 * (1 - lineToggleProgress)), 0));
+                    int prevLength = Utils.coolFormat(prevSecondYAxisStep * (i) + minPossibleYever[1], mLabelBuffer);
+                    canvas.drawText(mLabelBuffer, 0, prevLength, getWidth() - mSideMargin - mAxisTextSecondPaint.measureText(mLabelBuffer, 0, prevLength), yOfPrev - (float) mAxisTextSize / 2, mAxisTextSecondPaint);
                 }
             }
-
-            canvas.drawLines(mPathPoints, 0, pointIndex - 1, paint);
         }
     }
 
-    long[] lastMaxArray;
-    long[] desiredMaxArray;
-
     private void drawPercentageChart(Canvas canvas, int firstPointToShow, int lastPointToShow) {
-        boolean fillFirstLine = false;
-        for (int k = 0; k < mChartData.getYValues().size(); k++) {
-            ChartData.YData yData = mChartData.getYValues().get(k);
-            if (!yData.isShown()) continue;
-            // Extra iteration over visible fragment needed to find out y scale factor.
-            for (int i = firstPointToShow; i <= lastPointToShow; i++) {
-                Long nextValue = yData.getValues().get(i);
-                if (!fillFirstLine) {
-                    desiredMaxArray[i] = nextValue;
-                } else {
-                    desiredMaxArray[i] += nextValue;
-                }
-            }
-            fillFirstLine = true;
-        }
-
-        if (lastMaxArray == null) {
-            lastMaxArray = desiredMaxArray.clone();
-        }
-
         float lineToggleProgress = 1;
         if (mIsAnimationsEnabled && !mLinesToToggle.isEmpty()) {
             if (mStartToggleTime == -1) {
-                mStartToggleTime = System.currentTimeMillis();
+                mStartToggleTime = mClock.now();
             }
-            long elapsed = System.currentTimeMillis() - mStartToggleTime;
+            long elapsed = mClock.now() - mStartToggleTime;
             if (!mLinesToToggle.isEmpty()) {
                 lineToggleProgress = Math.min((float) elapsed / TOGGLE_ANIM_DURATION, 1);
             } else {
@@ -605,48 +565,31 @@ class ChartView extends View {
         float scale = (float) getWidth() / (mRightCurrentXBoarderValue - mLeftCurrentXBoarderValue);
         float translation = mLeftCurrentXBoarderValue;
 
-        float xWithMarginToSearch = mTouchXValue - (1 - 2 * mTouchXValue / getWidth()) * mSideMargin;
-
         if (mTouchXValue > 0) {
-            mNearestIndexTouched = Math.round((xWithMarginToSearch / scale + translation) / mStepXForMaxScale);
-            if (mNearestIndexTouched >= mChartData.getSize() - 1) {
-                mNearestIndexTouched = mChartData.getSize() - 1;
-            } else if (mNearestIndexTouched < 0) {
-                mNearestIndexTouched = 0;
-            }
+            mNearestIndexTouched = getNearestIndex(mTouchXValue);
         } else {
             mNearestIndexTouched = -1;
         }
 
-        drawChartLinesPercentage(canvas, firstPointToShow, lastPointToShow, lineToggleProgress, scale, translation);
+        setRenderState(firstPointToShow, lastPointToShow, lineToggleProgress, scale, translation,
+                getHeightWithoutXAxis() * 0.2f);
+        endPhase(RenderMetrics.PHASE_Y_RANGE);
+        drawBody(canvas);
+        endPhase(RenderMetrics.PHASE_BODY);
         drawChartYAxis(canvas);
+        endPhase(RenderMetrics.PHASE_Y_AXIS);
         drawTouchedInfo(canvas, scale, translation);
+        endPhase(RenderMetrics.PHASE_TOOLTIP);
 
         float xAxisValuesProgress = drawXAxis(canvas, firstPointToShow, lastPointToShow, scale, translation);
+        endPhase(RenderMetrics.PHASE_X_AXIS);
         loop(lineToggleProgress, xAxisValuesProgress);
     }
 
     private void drawCompoundChart(Canvas canvas, int firstPointToShow, int lastPointToShow) {
-        long maxPossibleYever = 0;
-        long minPossibleYever = Integer.MAX_VALUE;
-        long localMaxPossibleYever;
-        for (int k = 0; k < mChartData.getYValues().size(); k++) {
-            localMaxPossibleYever = 0;
-            ChartData.YData yData = mChartData.getYValues().get(k);
-            if (yData.isBar()) minPossibleYever = 0;
-            if (!yData.isShown()) continue;
-            // Extra iteration over visible fragment needed to find out y scale factor.
-            for (int i = firstPointToShow; i < lastPointToShow; i++) {
-                Long nextValue = yData.getValues().get(i);
-                if (localMaxPossibleYever < nextValue) localMaxPossibleYever = nextValue;
-                if (minPossibleYever > nextValue && !yData.isBar()) minPossibleYever = nextValue;
-            }
-            if (mChartData.isStacked()) {
-                maxPossibleYever += localMaxPossibleYever;
-            } else if (localMaxPossibleYever > maxPossibleYever) {
-                maxPossibleYever = localMaxPossibleYever;
-            }
-        }
+        mVisibleRange.setYRange(mChartData, firstPointToShow, lastPointToShow);
+        long maxPossibleYever = mVisibleRange.getMax(0);
+        long minPossibleYever = mVisibleRange.getMin(0);
 
         if (mLastMaxPossibleYever == -1) {
             mLastMaxPossibleYever = maxPossibleYever;
@@ -661,18 +604,18 @@ class ChartView extends View {
             maxPossibleYever = mLastMaxPossibleYever;
         }
 
-        if (minPossibleYever == Integer.MAX_VALUE) {
+        if (minPossibleYever == VisibleRange.NO_MIN) {
             // Prevent single line from flying up
-            maxPossibleYever = mLastMinPossibleYever;
+            minPossibleYever = mLastMinPossibleYever;
         }
 
         float lineToggleProgress = 1;
         if (mIsAnimationsEnabled
                 && (!mLinesToToggle.isEmpty() || maxPossibleYever != mLastMaxPossibleYever || minPossibleYever != mLastMinPossibleYever)) {
             if (mStartToggleTime == -1) {
-                mStartToggleTime = System.currentTimeMillis();
+                mStartToggleTime = mClock.now();
             }
-            long elapsed = System.currentTimeMillis() - mStartToggleTime;
+            long elapsed = mClock.now() - mStartToggleTime;
             if (!mLinesToToggle.isEmpty()) {
                 lineToggleProgress = Math.min((float) elapsed / TOGGLE_ANIM_DURATION, 1);
             } else {
@@ -683,29 +626,24 @@ class ChartView extends View {
         float scale = (float) getWidth() / (mRightCurrentXBoarderValue - mLeftCurrentXBoarderValue);
         float translation = mLeftCurrentXBoarderValue;
 
-        float maxPossibleYeverComputed =
-                mLastMaxPossibleYever + (maxPossibleYever - mLastMaxPossibleYever) * lineToggleProgress;
-        float minPossibleYeverComputed =
-                mLastMinPossibleYever + (minPossibleYever - mLastMinPossibleYever) * lineToggleProgress;
-        float yStep = (float) getHeightWithoutXAxis() / (maxPossibleYeverComputed - minPossibleYeverComputed);
-
-        float xWithMarginToSearch = mTouchXValue - (1 - 2 * mTouchXValue / getWidth()) * mSideMargin;
         if (mTouchXValue > 0) {
-            mNearestIndexTouched = Math.round((xWithMarginToSearch / scale + translation) / mStepXForMaxScale);
-            if (mNearestIndexTouched >= mChartData.getSize() - 1) {
-                mNearestIndexTouched = mChartData.getSize() - 1;
-            } else if (mNearestIndexTouched < 0) {
-                mNearestIndexTouched = 0;
-            }
+            mNearestIndexTouched = getNearestIndex(mTouchXValue);
         } else {
             mNearestIndexTouched = -1;
         }
 
-        drawChartLines(canvas, (long) minPossibleYeverComputed, maxPossibleYever, firstPointToShow, lastPointToShow, lineToggleProgress, scale, translation, yStep);
+        setRenderState(firstPointToShow, lastPointToShow, lineToggleProgress, scale, translation, 0);
+        mRenderState.setYRange(0, mLastMinPossibleYever, mLastMaxPossibleYever, minPossibleYever, maxPossibleYever);
+        endPhase(RenderMetrics.PHASE_Y_RANGE);
+        drawBody(canvas);
+        endPhase(RenderMetrics.PHASE_BODY);
         drawChartYAxis(canvas, maxPossibleYever, minPossibleYever, lineToggleProgress);
-        drawTouchedInfo(canvas, (long) minPossibleYeverComputed, scale, translation, yStep);
+        endPhase(RenderMetrics.PHASE_Y_AXIS);
+        drawTouchedInfo(canvas, scale, translation);
+        endPhase(RenderMetrics.PHASE_TOOLTIP);
 
         float xAxisValuesProgress = drawXAxis(canvas, firstPointToShow, lastPointToShow, scale, translation);
+        endPhase(RenderMetrics.PHASE_X_AXIS);
         loop(maxPossibleYever, minPossibleYever, lineToggleProgress, xAxisValuesProgress);
     }
 
@@ -713,33 +651,20 @@ class ChartView extends View {
         //Draw chart X axis
         int firstPointToShowForAxis = Math.max(firstPointToShow - OFFSET_X_AXIS_DRAW_NUM, 0);
         int lastPointToShowForAxis = Math.min(lastPointToShow + OFFSET_X_AXIS_DRAW_NUM, mChartData.getSize() - 1);
-        int distance = lastPointToShow - firstPointToShow;
-        if (mLastXValuesStep == -1) {
-            mLastXValuesStep = Integer.highestOneBit(distance / NUM_X_AXIS_MAX - 1) * 2;
-            mPrevLastXValuesStep = mLastXValuesStep;
-            mPrevDistance = distance;
-        } else if (distance / mLastXValuesStep < NUM_X_AXIS_MIN
-                && Math.abs(distance - mPrevDistance) > DISTANCE_THRESHOLD) {
-            mPrevLastXValuesStep = mLastXValuesStep;
-            mLastXValuesStep /= 2;
-            mStartXAxisAnimTime = System.currentTimeMillis();
-            mHideAnimation = false;
-        } else if (distance / mLastXValuesStep > NUM_X_AXIS_MAX
-                && Math.abs(distance - mPrevDistance) > DISTANCE_THRESHOLD) {
-            mPrevLastXValuesStep = mLastXValuesStep;
-            mLastXValuesStep *= 2;
-            mStartXAxisAnimTime = System.currentTimeMillis();
-            mHideAnimation = true;
+        if (mVisibleRange.setLabelStep(firstPointToShow, lastPointToShow)) {
+            mStartXAxisAnimTime = mClock.now();
         }
+        int step = mVisibleRange.getLabelStep();
+        boolean hideAnimation = mVisibleRange.isLabelStepIncreased();
         int nextIndexToDrawXAxisValue = 0;
         int nextIndexToDrawXAxisValueToAnimate = 0;
-        int animatedStep = Math.max(mPrevLastXValuesStep, mLastXValuesStep);
+        int animatedStep = Math.max(mVisibleRange.getPrevLabelStep(), step);
         if (firstPointToShowForAxis != 0) {
-            nextIndexToDrawXAxisValue = Math.max((mLastXValuesStep - firstPointToShowForAxis % mLastXValuesStep) + firstPointToShowForAxis, 0);
+            nextIndexToDrawXAxisValue = Math.max((step - firstPointToShowForAxis % step) + firstPointToShowForAxis, 0);
             if (mStartXAxisAnimTime == -1) {
                 mPrevNextIndexToDraw = nextIndexToDrawXAxisValue;
             } else {
-                if (!mHideAnimation) {
+                if (!hideAnimation) {
                     // When we show new values we must be sure that opacity values still the same
                     nextIndexToDrawXAxisValue = Math.max(mPrevNextIndexToDraw, 0);
                 }
@@ -749,6 +674,8 @@ class ChartView extends View {
 
         float xAxisValuesProgress = 1;
 
+        float y = getHeight() - (float) mAxisTextSize / 2;
+
         if (mStartXAxisAnimTime != -1 && mIsAnimationsEnabled) {
             if (Math.abs(nextIndexToDrawXAxisValueToAnimate - nextIndexToDrawXAxisValue) == animatedStep
                     || nextIndexToDrawXAxisValueToAnimate == nextIndexToDrawXAxisValue) {
@@ -758,9 +685,9 @@ class ChartView extends View {
                 nextIndexToDrawXAxisValueToAnimate += animatedStep;
             }
 
-            long elapsed = System.currentTimeMillis() - mStartXAxisAnimTime;
+            long elapsed = mClock.now() - mStartXAxisAnimTime;
             xAxisValuesProgress = Math.min((float) elapsed / TOGGLE_ANIM_DURATION, 1);
-            if (mHideAnimation) {
+            if (hideAnimation) {
                 int alpha = Math.max((int) (255 * (1 - xAxisValuesProgress)), 0);
                 mAxisTextPaint.setAlpha(alpha);
             } else {
@@ -769,25 +696,20 @@ class ChartView extends View {
 
             }
             while (nextIndexToDrawXAxisValueToAnimate < lastPointToShowForAxis) {
-                String text = mChartData.getXStringValues().get(nextIndexToDrawXAxisValueToAnimate).getDateMonthOnly();
-                float x = (nextIndexToDrawXAxisValueToAnimate * mStepXForMaxScale - translation) * scale;
-                float xWithMargin = x + (1 - 2 * x / getWidth()) * mSideMargin;
-                canvas.drawText(text, xWithMargin, getHeight() - (float) mAxisTextSize / 2,
-                        mAxisTextPaint);
+                mXAxisLabels.draw(canvas, nextIndexToDrawXAxisValueToAnimate,
+                        mRenderState.getPointX(nextIndexToDrawXAxisValueToAnimate), y, getWidth());
                 nextIndexToDrawXAxisValueToAnimate += animatedStep;
             }
         }
 
+        mAxisTextPaint.setAlpha(255);
         while (nextIndexToDrawXAxisValue < lastPointToShowForAxis) {
-            mAxisTextPaint.setAlpha(255);
-            String text = mChartData.getXStringValues().get(nextIndexToDrawXAxisValue).getDateMonthOnly();
-            float x = (nextIndexToDrawXAxisValue * mStepXForMaxScale - translation) * scale;
-            float xWithMargin = x + (1 - 2 * x / getWidth()) * mSideMargin;
-            canvas.drawText(text, xWithMargin, getHeight() - (float) mAxisTextSize / 2, mAxisTextPaint);
+            mXAxisLabels.draw(canvas, nextIndexToDrawXAxisValue,
+                    mRenderState.getPointX(nextIndexToDrawXAxisValue), y, getWidth());
             if (xAxisValuesProgress < 1) {
                 nextIndexToDrawXAxisValue += animatedStep;
             } else {
-                nextIndexToDrawXAxisValue += mLastXValuesStep;
+                nextIndexToDrawXAxisValue += step;
             }
         }
         return xAxisValuesProgress;
@@ -796,21 +718,19 @@ class ChartView extends View {
     private void loop(float lineToggleProgress, float xAxisValuesProgress) {
         // Run draw loop in case animation is running.
         if (lineToggleProgress < 1 || xAxisValuesProgress < 1) {
-            invalidate();
+            requestAnimationFrame();
         } else {
             if (xAxisValuesProgress >= 1) {
                 mStartXAxisAnimTime = -1;
-                mPrevLastXValuesStep = mLastXValuesStep;
+                mVisibleRange.commitLabelStep();
             }
             if (lineToggleProgress >= 1) {
-                for (int i = 0; i < lastMaxArray.length; i++) {
-                    lastMaxArray[i] = desiredMaxArray[i];
-                }
                 mStartToggleTime = -1;
             }
             if (!mLinesToToggle.isEmpty()) {
+                mRenderState.commitTotals();
                 mLinesToToggle.clear();
-                invalidate();
+                requestAnimationFrame();
             }
         }
     }
@@ -818,11 +738,11 @@ class ChartView extends View {
     private void loop(long maxPossibleYever, long minPossibleYever, float lineToggleProgress, float xAxisValuesProgress) {
         // Run draw loop in case animation is running.
         if (lineToggleProgress < 1 || xAxisValuesProgress < 1) {
-            invalidate();
+            requestAnimationFrame();
         } else {
             if (xAxisValuesProgress >= 1) {
                 mStartXAxisAnimTime = -1;
-                mPrevLastXValuesStep = mLastXValuesStep;
+                mVisibleRange.commitLabelStep();
             }
             if (lineToggleProgress >= 1) {
                 mStartToggleTime = -1;
@@ -831,7 +751,7 @@ class ChartView extends View {
                 mLastMaxPossibleYever = maxPossibleYever;
                 mLastMinPossibleYever = minPossibleYever;
                 mLinesToToggle.clear();
-                invalidate();
+                requestAnimationFrame();
             }
         }
     }
@@ -839,136 +759,34 @@ class ChartView extends View {
     private void drawTouchedInfo(Canvas canvas, float scale, float translation) {
         // Draw info about touched section
         if (mTouchXValue > 0) {
-            float x = (mNearestIndexTouched * mStepXForMaxScale - translation) * scale;
-            float xValToDraw = x + (1 - 2 * x / getWidth()) * mSideMargin;
-            if (!mChartData.getYValues().get(0).isBar()) {
-                canvas.drawLine(xValToDraw, 0.2f * getHeightWithoutXAxis(), xValToDraw, getHeightWithoutXAxis() - mAxisWidth, mAxisPaint);
-            }
-            long totalVisible = 0;
-            if (mChartData.isStacked() || mChartData.isPercentage()) {
-                for (int k = 0; k < mChartData.getYValues().size(); k++) {
-                    ChartData.YData yData = mChartData.getYValues().get(k);
-                    Long yValue = yData.getValues().get(mNearestIndexTouched);
-                    if (yData.isShown()) {
-                        totalVisible += yValue;
-                    }
-                }
-            }
-            for (int k = 0; k < mChartData.getYValues().size(); k++) {
-                ChartData.YData yData = mChartData.getYValues().get(k);
-                LineViewHolder tvPair = mInfoPanelViewHolder.mLineValue.get(k);
-                Long yValue = yData.getValues().get(mNearestIndexTouched);
-                if (!yData.isShown()) {
-                    tvPair.parent.setVisibility(GONE);
-                    continue;
-                } else {
-                    tvPair.parent.setVisibility(VISIBLE);
-                    if (mChartData.isPercentage()) {
-                        tvPair.second.setText(getContext().getString(R.string.percentage, (float) (100f * yValue / totalVisible)));
-                    } else {
-                        tvPair.second.setText(Utils.prettyFormat(yValue));
-                    }
-                }
-                Paint paint = mPaints.get(yData.getVarName());
-                if (paint == null) {
-                    throw new RuntimeException("There is no color info for " + yData.getVarName());
-                }
-            }
-
-            if (mChartData.isStacked() && !mChartData.isPercentage()) {
-                mInfoPanelViewHolder.mLineValue.get(mInfoPanelViewHolder.mLineValue.size() - 1).second.setText(Utils.prettyFormat(totalVisible));
-            }
-
-            mInfoPanelViewHolder.mInfoViewTitle.setText(mChartData.getXStringValues().get(mNearestIndexTouched).getExtendedDate());
-
-            int widthSpec = MeasureSpec.makeMeasureSpec(MeasureSpec.getSize(ViewGroup.LayoutParams.WRAP_CONTENT), MeasureSpec.UNSPECIFIED);
-            int heightSpec = MeasureSpec.makeMeasureSpec(MeasureSpec.getSize(ViewGroup.LayoutParams.WRAP_CONTENT), MeasureSpec.UNSPECIFIED);
-            mInfoPanelViewHolder.mInfoView.measure(widthSpec, heightSpec);
-            int infoWidth = mInfoPanelViewHolder.mInfoView.getMeasuredWidth();
-            mInfoPanelViewHolder.mInfoView.layout(0, 0, infoWidth, mInfoPanelViewHolder.mInfoView.getMeasuredHeight());
-            canvas.save();
-            float translateValue;
-            if (mTouchXValue > getWidth() / 2) {
-                translateValue = mTouchXValue - INFO_PANEL_SHIFT - infoWidth;
-            } else {
-                translateValue = mTouchXValue + INFO_PANEL_SHIFT;
-            }
-            mLastInfoPanelPositionX = translateValue;
-            canvas.translate(translateValue, INFO_PANEL_SHIFT);
-            mInfoPanelViewHolder.mInfoView.draw(canvas);
-            canvas.restore();
-        } else {
-            mLastInfoPanelPositionX = -1;
-        }
-    }
-
-    private void drawTouchedInfo(Canvas canvas, long minPossibleComputed, float scale, float translation, float yStep) {
-        // Draw info about touched section
-        if (mTouchXValue > 0) {
-            float x = (mNearestIndexTouched * mStepXForMaxScale - translation) * scale;
+            float x = (mChartData.getXPositions().get(mNearestIndexTouched) * mStepXForMaxScale - translation) * scale;
             float xValToDraw = x + (1 - 2 * x / getWidth()) * mSideMargin;
             if (!mChartData.getYValues().get(0).isBar()) {
-                canvas.drawLine(xValToDraw, 0, xValToDraw, getHeightWithoutXAxis() - mAxisWidth, mAxisPaint);
-            }
-
-            long totalVisible = 0;
-            if (mChartData.isStacked() || mChartData.isPercentage()) {
-                for (int k = 0; k < mChartData.getYValues().size(); k++) {
-                    ChartData.YData yData = mChartData.getYValues().get(k);
-                    Long yValue = yData.getValues().get(mNearestIndexTouched);
-                    if (yData.isShown()) {
-                        totalVisible += yValue;
-                    }
-                }
+                // Percentage chart starts below its top labels.
+                float top = mChartData.isPercentage() ? 0.2f * getHeightWithoutXAxis() : 0;
+                canvas.drawLine(xValToDraw, top, xValToDraw, getHeightWithoutXAxis() - mAxisWidth, mAxisPaint);
             }
 
             for (int k = 0; k < mChartData.getYValues().size(); k++) {
                 ChartData.YData yData = mChartData.getYValues().get(k);
-                LineViewHolder tvPair = mInfoPanelViewHolder.mLineValue.get(k);
-                Long yValue = yData.getValues().get(mNearestIndexTouched);
-                if (!yData.isShown()) {
-                    tvPair.parent.setVisibility(GONE);
-                    continue;
-                } else {
-                    tvPair.parent.setVisibility(VISIBLE);
-                    tvPair.second.setText(Utils.prettyFormat(yValue));
-                }
-                Paint paint = mPaints.get(yData.getVarName());
-                if (paint == null) {
-                    throw new RuntimeException("There is no color info for " + yData.getVarName());
+                if (!yData.isShown()) continue;
+                long yValue = yData.getValues()[mNearestIndexTouched];
+                if (!yData.isBar() && !yData.isArea() && !mChartData.isPercentage()) {
+                    float y = mRenderState.getY(0, k, yValue);
+                    canvas.drawCircle(xValToDraw, y, mAxisSelectedCircleSize, mTouchedCirclePaint);
+                    canvas.drawCircle(xValToDraw, y, mAxisSelectedCircleSize, mPaints.get(yData.getVarName()));
                 }
-                if (!yData.isBar() && !mChartData.isPercentage()) {
-                    canvas.drawCircle(xValToDraw,
-                            getHeightWithoutXAxis() - (yValue - minPossibleComputed) * yStep,
-                            mAxisSelectedCircleSize, mTouchedCirclePaint);
-                    canvas.drawCircle(xValToDraw,
-                            getHeightWithoutXAxis() - (yValue - minPossibleComputed) * yStep,
-                            mAxisSelectedCircleSize, paint);
-                }
-            }
-
-            if (mChartData.isStacked() && !mChartData.isPercentage()) {
-                mInfoPanelViewHolder.mLineValue.get(mInfoPanelViewHolder.mLineValue.size() - 1).second.setText(Utils.prettyFormat(totalVisible));
             }
 
-            mInfoPanelViewHolder.mInfoViewTitle.setText(mChartData.getXStringValues().get(mNearestIndexTouched).getExtendedDate());
-
-            int widthSpec = MeasureSpec.makeMeasureSpec(MeasureSpec.getSize(ViewGroup.LayoutParams.WRAP_CONTENT), MeasureSpec.UNSPECIFIED);
-            int heightSpec = MeasureSpec.makeMeasureSpec(MeasureSpec.getSize(ViewGroup.LayoutParams.WRAP_CONTENT), MeasureSpec.UNSPECIFIED);
-            mInfoPanelViewHolder.mInfoView.measure(widthSpec, heightSpec);
-            int infoWidth = mInfoPanelViewHolder.mInfoView.getMeasuredWidth();
-            mInfoPanelViewHolder.mInfoView.layout(0, 0, infoWidth, mInfoPanelViewHolder.mInfoView.getMeasuredHeight());
-            canvas.save();
+            mInfoPanel.update(mNearestIndexTouched);
             float translateValue;
             if (mTouchXValue > getWidth() / 2) {
-                translateValue = mTouchXValue - INFO_PANEL_SHIFT - infoWidth;
+                translateValue = mTouchXValue - INFO_PANEL_SHIFT - mInfoPanel.getWidth();
             } else {
                 translateValue = mTouchXValue + INFO_PANEL_SHIFT;
             }
             mLastInfoPanelPositionX = translateValue;
-            canvas.translate(translateValue, INFO_PANEL_SHIFT);
-            mInfoPanelViewHolder.mInfoView.draw(canvas);
-            canvas.restore();
+            mInfoPanel.draw(canvas, translateValue, INFO_PANEL_SHIFT);
         } else {
             mLastInfoPanelPositionX = -1;
         }
@@ -976,12 +794,11 @@ class ChartView extends View {
 
     private void drawChartYAxis(Canvas canvas) {
         // Draw chart Y axis
-        int yAxisStep = 25;
-        int yDistance = getHeightWithoutXAxis() / 5;
-        for (int i = 0; i < 5; i++) {
+        int yDistance = getHeightWithoutXAxis() / PERCENTAGE_LABELS.length;
+        for (int i = 0; i < PERCENTAGE_LABELS.length; i++) {
             int y = (getHeightWithoutXAxis() - mAxisWidth - yDistance * i);
             canvas.drawLine(mSideMargin, y, getWidth() - mSideMargin, y, mAxisPaint);
-            canvas.drawText(String.valueOf(yAxisStep * (i)), mSideMargin, y - (float) mAxisTextSize / 2, mAxisTextPaint);
+            canvas.drawText(PERCENTAGE_LABELS[i], mSideMargin, y - (float) mAxisTextSize / 2, mAxisTextPaint);
         }
     }
 
@@ -1006,250 +823,140 @@ class ChartView extends View {
                 mAxisPaint.setAlpha((int) ((lineToggleProgress) * MAX_AXIS_ALPHA));
             }
             canvas.drawLine(mSideMargin, y, getWidth() - mSideMargin, y, mAxisPaint);
-            canvas.drawText(Utils.coolFormat(yAxisStep * (i) + minPossibleYever), mSideMargin, y - (float) mAxisTextSize / 2, mAxisTextPaint);
+            int length = Utils.coolFormat(yAxisStep * (i) + minPossibleYever, mLabelBuffer);
+            canvas.drawText(mLabelBuffer, 0, length, mSideMargin, y - (float) mAxisTextSize / 2, mAxisTextPaint);
             if (mLastMaxPossibleYever != maxPossibleYever || mLastMinPossibleYever != minPossibleYever) {
                 int yOfPrev = (getHeightWithoutXAxis() - mAxisWidth - yDistance * i);
                 yOfPrev += (animDirection * (lineToggleProgress) * yDistance) * (i + 1);
                 mAxisTextPaint.setAlpha((int) ((1 - lineToggleProgress) * 255));
                 mAxisPaint.setAlpha((int) ((1 - lineToggleProgress) * MAX_AXIS_ALPHA));
                 canvas.drawLine(mSideMargin, yOfPrev, getWidth() - mSideMargin, yOfPrev, mAxisPaint);
-                canvas.drawText(Utils.coolFormat(prevYAxisStep * (i) + minPossibleYever), mSideMargin, yOfPrev - (float) mAxisTextSize / 2, mAxisTextPaint);
+                int prevLength = Utils.coolFormat(prevYAxisStep * (i) + minPossibleYever, mLabelBuffer);
+                canvas.drawText(mLabelBuffer, 0, prevLength, mSideMargin, yOfPrev - (float) mAxisTextSize / 2, mAxisTextPaint);
             }
         }
     }
 
-    boolean isAnimatedLine = false;
-    float prevYStep;
-    float nextYStep;
-    byte direction;
-    ColorMatrixColorFilter selectedFilter;
-    int indexToDrawSelectedAbove = -1;
-
-    private void drawChartLines(Canvas canvas, long computedMinPossibleY, long desiredMaxPossibleY,
-                                int firstPointToShow, int lastPointToShow, float lineToggleProgress,
-                                float scale, float translation, float yStep) {
-        // Draw chart lines
-        float x;
-        float xWithMargin;
-        float y;
-        prevYStep = (float) getHeightWithoutXAxis() / (desiredMaxPossibleY);
-        nextYStep = (float) getHeightWithoutXAxis() / (mLastMaxPossibleYever);
-        boolean isFirstChart = true;
-        for (int k = 0; k < mChartData.getYValues().size(); k++) {
-            ChartData.YData yData = mChartData.getYValues().get(k);
-
-
-            if (!mLinesToToggle.contains(yData.getVarName())) {
-                if (!yData.isShown()) {
-                    continue;
-                }
-            }
-
-            x = (firstPointToShow * mStepXForMaxScale - translation) * scale;
-            xWithMargin = x + (1 - 2 * x / getWidth()) * mSideMargin;
-            int pointIndex;
-
-            Paint paint = mPaints.get(yData.getVarName());
-            if (paint == null) {
-                throw new RuntimeException("There is no color info for " + yData.getVarName());
-            }
-            if (mLinesToToggle.contains(yData.getVarName()) && !mChartData.isStacked()) {
-                if (yData.isShown()) {
-                    paint.setAlpha(Math.min(((int) (255 * lineToggleProgress)), 255));
-                } else {
-                    paint.setAlpha(Math.max((int) (255 * (1 - lineToggleProgress)), 0));
-                }
-            } else {
-                paint.setAlpha(255);
-            }
-
-            isAnimatedLine = mLinesToToggle.contains(yData.getVarName());
-            if (isAnimatedLine) {
-                if (desiredMaxPossibleY > mLastMaxPossibleYever) {
-                    direction = 1;
-                } else {
-                    direction = -1;
-                }
-            }
-
-            if (!yData.isBar() && !mChartData.isPercentage()) {
-                mPathPoints[0] = xWithMargin;
-                mPathPoints[1] = getHeightWithoutXAxis() - (yData.getValues().get(0) - computedMinPossibleY) * yStep;
-                pointIndex = 2;
-                for (int i = firstPointToShow + 1; i <= lastPointToShow; i++) {
-                    x = (i * mStepXForMaxScale - translation) * scale;
-                    xWithMargin = x + (1 - 2 * x / getWidth()) * mSideMargin;
-                    y = getHeightWithoutXAxis() - (yData.getValues().get(i) - computedMinPossibleY) * yStep;
-                    mPathPoints[pointIndex] = xWithMargin;
-                    mPathPoints[pointIndex + 1] = y;
-                    mPathPoints[pointIndex + 2] = xWithMargin;
-                    mPathPoints[pointIndex + 3] = y;
-                    pointIndex += 4;
-                }
-            } else {
-                if (isFirstChart) {
-                    isFirstChart = false;
-                    pointIndex = 0;
-                    for (int i = firstPointToShow + 1; i <= lastPointToShow; i++) {
-                        if (i == mNearestIndexTouched) {
-                            indexToDrawSelectedAbove = pointIndex;
-                        }
-                        x = (i * mStepXForMaxScale - translation) * scale;
-                        xWithMargin = x + (1 - 2 * x / getWidth()) * mSideMargin;
-                        if (isAnimatedLine) {
-                            if (yData.isShown()) {
-                                y = getHeightWithoutXAxis() - (yData.getValues().get(i) - computedMinPossibleY) * prevYStep * lineToggleProgress;
-                            } else {
-                                y = getHeightWithoutXAxis() - (yData.getValues().get(i) - computedMinPossibleY) * nextYStep * (1 - lineToggleProgress);
-                            }
-                        } else {
-                            y = getHeightWithoutXAxis() - (yData.getValues().get(i) - computedMinPossibleY) * yStep;
-                        }
-                        mPathPoints[pointIndex] = xWithMargin;
-                        mPathPoints[pointIndex + 1] = getHeightWithoutXAxis();
-                        mPathPoints[pointIndex + 2] = xWithMargin;
-                        mPathPoints[pointIndex + 3] = y;
-                        pointIndex += 4;
-                    }
-                } else {
-                    pointIndex = 0;
-                    float shift;
-                    for (int i = firstPointToShow + 1; i <= lastPointToShow; i++) {
-                        if (isAnimatedLine) {
-                            if (yData.isShown()) {
-                                y = getHeightWithoutXAxis() - (yData.getValues().get(i) - computedMinPossibleY) * prevYStep * lineToggleProgress;
-                            } else {
-                                y = getHeightWithoutXAxis() - (yData.getValues().get(i) - computedMinPossibleY) * nextYStep * (1 - lineToggleProgress);
-                            }
-                        } else {
-                            y = getHeightWithoutXAxis() - (yData.getValues().get(i) - computedMinPossibleY) * yStep;
-                        }
-                        shift = getHeightWithoutXAxis() - mPathPoints[pointIndex + 3];
-                        mPathPoints[pointIndex + 1] = getHeightWithoutXAxis() - shift;
-                        mPathPoints[pointIndex + 3] = y - shift;
-                        pointIndex += 4;
-                    }
-                }
-
-                paint.setStrokeWidth((mPathPoints[4] - mPathPoints[0]) + 1);
-                if (mNearestIndexTouched >= 0) {
-                    paint.setColorFilter(selectedFilter);
-                } else {
-                    paint.setColorFilter(null);
+    /**
+     * Draws lines and selection of the chart. While chart is panned or animated its body is
+     * drawn directly, once it stays the same for two frames it is drawn into layer which is
+     * reused until render state changes.
+     */
+    private void drawBody(Canvas canvas) {
+        if (mBodyView != null) {
+            if (mRenderState.getVersion() != mPostedVersion
+                    || mRenderState.getSelectedPoint() != mPostedSelectedPoint) {
+                mBodyView.post(mRenderState.snapshot());
+                mPostedVersion = mRenderState.getVersion();
+                mPostedSelectedPoint = mRenderState.getSelectedPoint();
+            }
+            if (mBodyView.isAvailable()) {
+                if (mMetrics != null) {
+                    mMetrics.setBody(RenderMetrics.BODY_RENDER_THREAD, false);
                 }
+                return;
             }
-
-            canvas.drawLines(mPathPoints, 0, pointIndex - 1, paint);
-            paint.setColorFilter(null);
-            if (mNearestIndexTouched >= 0 && indexToDrawSelectedAbove >= 0) {
-                canvas.drawLines(mPathPoints, indexToDrawSelectedAbove, 4, paint);
-            }
+        }
+        int geometryBuilds = mRenderState.getGeometryBuildCount();
+        boolean cached = true;
+        int version = mRenderState.getVersion();
+        if (version != mBodyLayerVersion && version == mLastFrameVersion) {
+            if (mBodyLayer == null) {
+                mBodyLayer = Bitmap.createBitmap(getWidth(), getHeight(), Bitmap.Config.ARGB_8888);
+                mBodyLayerCanvas = new Canvas(mBodyLayer);
+            }
+            mBodyLayer.eraseColor(Color.TRANSPARENT);
+            mChartCanvas.setCanvas(mBodyLayerCanvas);
+            mRenderer.draw(mChartCanvas, mRenderState);
+            mBodyLayerVersion = version;
+            cached = false;
+        }
+        mChartCanvas.setCanvas(canvas);
+        if (version == mBodyLayerVersion) {
+            canvas.drawBitmap(mBodyLayer, 0, 0, null);
+        } else {
+            mRenderer.draw(mChartCanvas, mRenderState);
+            cached = false;
+        }
+        mRenderer.drawSelection(mChartCanvas, mRenderState);
+        mLastFrameVersion = version;
+        if (mMetrics != null) {
+            mMetrics.setBody(cached ? RenderMetrics.BODY_CACHED : RenderMetrics.BODY_DRAWN,
+                    mRenderState.getGeometryBuildCount() != geometryBuilds);
         }
     }
 
-    List<Path> percentagePath;
-
-    private void drawChartLinesPercentage(Canvas canvas, int firstPointToShow, int lastPointToShow, float lineToggleProgress,
-                                          float scale, float translation) {
-        // Draw chart lines
-        float x;
-        float xWithMargin;
-        float y;
-        float yToCompute;
-
-        int firstShownIndex = 0;
-        for (int i = 0; i < mChartData.getYValues().size(); i++) {
-            if (mChartData.getYValues().get(i).isShown() || mLinesToToggle.contains(mChartData.getYValues().get(i).getVarName())) {
-                firstShownIndex = i;
-                break;
+    /**
+     * @param bodyView view under this one which draws the body on render thread, or null to
+     *                 draw it here
+     */
+    void setBodyView(ChartBodyView bodyView) {
+        mBodyView = bodyView;
+        mPostedVersion = -1;
+        if (bodyView != null) {
+            bodyView.setOverlay(this);
+            if (mChartData != null) {
+                bodyView.setChartData(mChartData, mLinePaint, mSelectionFilter);
             }
         }
+        invalidate();
+    }
 
-        x = (firstPointToShow * mStepXForMaxScale - translation) * scale;
-        xWithMargin = x + (1 - 2 * x / getWidth()) * mSideMargin;
-        Path p = percentagePath.get(0);
-        p.reset();
-        p.moveTo(xWithMargin, getHeightWithoutXAxis());
-        p.lineTo(xWithMargin, getHeightWithoutXAxis() * 0.2f);
-        x = ((lastPointToShow) * mStepXForMaxScale - translation) * scale;
-        xWithMargin = x + (1 - 2 * x / getWidth()) * mSideMargin;
-        p.lineTo(xWithMargin, getHeightWithoutXAxis() * 0.2f);
-        p.lineTo(xWithMargin, getHeightWithoutXAxis());
-        p.close();
-
-        Paint paint = mPaints.get(mChartData.getYValues().get(firstShownIndex).getVarName());
-
-        canvas.drawPath(p, paint);
-
-        if (firstShownIndex >= percentagePath.size()) {
-            return;
+    /**
+     * @param metrics metrics to report frames to, or null to stop measuring
+     * @param overlay whether to draw timings of the last frame above the chart
+     */
+    void setRenderMetrics(RenderMetrics metrics, boolean overlay) {
+        mMetrics = metrics;
+        if (metrics != null && overlay) {
+            mMetricsPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+            mMetricsPaint.setColor(mAxisTextPaint.getColor());
+            mMetricsPaint.setTextSize(mAxisTextSize);
+        } else {
+            mMetricsPaint = null;
         }
+        invalidate();
+    }
 
-        x = (firstPointToShow * mStepXForMaxScale - translation) * scale;
-        xWithMargin = x + (1 - 2 * x / getWidth()) * mSideMargin;
-
-        for (int i = 0; i < percentagePath.size(); i++) {
-            percentagePath.get(i).reset();
-            percentagePath.get(i).moveTo(xWithMargin, getHeightWithoutXAxis());
+    private void releaseBodyLayer() {
+        if (mBodyLayer != null) {
+            mBodyLayer.recycle();
+            mBodyLayer = null;
+            mBodyLayerCanvas = null;
         }
+        mBodyLayerVersion = -1;
+    }
 
-        for (int i = firstPointToShow; i <= lastPointToShow; i++) {
-            long valueToCompute;
-
-            valueToCompute = (long) (lastMaxArray[i] + (desiredMaxArray[i] - lastMaxArray[i]) * (lineToggleProgress));
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        releaseBodyLayer();
+    }
 
-            x = (i * mStepXForMaxScale - translation) * scale;
-            xWithMargin = x + (1 - 2 * x / getWidth()) * mSideMargin;
-            if (mLinesToToggle.contains(mChartData.getYValues().get(firstShownIndex).getVarName())) {
-                if (mChartData.getYValues().get(firstShownIndex).isShown()) {
-                    y = (float) mChartData.getYValues().get(firstShownIndex).getValues().get(i) / valueToCompute * lineToggleProgress;
-                } else {
-                    y = (float) mChartData.getYValues().get(firstShownIndex).getValues().get(i) / valueToCompute * (1 - lineToggleProgress);
-                }
-            } else {
-                y = (float) mChartData.getYValues().get(firstShownIndex).getValues().get(i) / valueToCompute;
-            }
-            y = getHeightWithoutXAxis() * 0.2f + getHeightWithoutXAxis() * 0.8f * y;
-            percentagePath.get(firstShownIndex).lineTo(xWithMargin, y);
-            for (int k = firstShownIndex + 1; k < mChartData.getYValues().size() - 1; k++) {
-                ChartData.YData yData = mChartData.getYValues().get(k);
-                if (!yData.isShown() && !mLinesToToggle.contains(yData.getVarName())) continue;
-                if (mLinesToToggle.contains(yData.getVarName())) {
-                    if (yData.isShown()) {
-                        yToCompute = (float) yData.getValues().get(i) / valueToCompute * lineToggleProgress;
-                    } else {
-                        yToCompute = (float) yData.getValues().get(i) / valueToCompute * (1 - lineToggleProgress);
-                    }
-                } else {
-                    yToCompute = (float) yData.getValues().get(i) / valueToCompute;
-                }
-                y += getHeightWithoutXAxis() * 0.8f * yToCompute;
-                percentagePath.get(k).lineTo(xWithMargin, y);
-                if (i == lastPointToShow) {
-                    percentagePath.get(k).lineTo(xWithMargin, getHeightWithoutXAxis());
-                }
-            }
-            if (i == lastPointToShow) {
-                percentagePath.get(firstShownIndex).lineTo(xWithMargin, getHeightWithoutXAxis());
-            }
-        }
-        for (int i = firstShownIndex; i < percentagePath.size(); i++) {
-            if (!mChartData.getYValues().get(i).isShown() && !mLinesToToggle.contains(mChartData.getYValues().get(i).getVarName()))
-                continue;
-            percentagePath.get(i).close();
-            for (int j = i + 1; j < percentagePath.size() + 1; j++) {
-                if (mChartData.getYValues().get(j).isShown() || mLinesToToggle.contains(mChartData.getYValues().get(j).getVarName())) {
-                    canvas.drawPath(percentagePath.get(i), mPaints.get(mChartData.getYValues().get(j).getVarName()));
-                    break;
-                }
-            }
-        }
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        mClock.cancel(this);
+        releaseBodyLayer();
     }
 
     private int getHeightWithoutXAxis() {
         return getHeight() - mAxisXHeight;
     }
 
+    /**
+     * Updates state of renderer for the frame, lines are drawn from top down to the X axis.
+     */
+    private void setRenderState(int firstPointToShow, int lastPointToShow, float lineToggleProgress,
+                                float scale, float translation, float top) {
+        mRenderState.setToggledLines(mLinesToToggle);
+        mRenderState.setProgress(lineToggleProgress);
+        mRenderState.setX(firstPointToShow, lastPointToShow, mStepXForMaxScale, scale, translation,
+                mSideMargin, getWidth());
+        mRenderState.setBand(top, getHeightWithoutXAxis());
+        mRenderState.setSelectedPoint(mNearestIndexTouched);
+    }
+
     /**
      * We assume that whole seekbar graph is descrete from 0 to {@link ChartLayout#MAX_DISCRETE_PROGRESS}.
      * User can't stop it's scroll on e.g. 0.5 point, from 0 graph will jump to 1 directly.
@@ -1284,16 +991,10 @@ class ChartView extends View {
     }
 
     public void setChartData(ChartData data) {
-        LayoutInflater inflater = LayoutInflater.from(getContext());
-        percentagePath = new ArrayList<>(data.getYValues().size() - 1);
-        for (int i = 0; i < data.getYValues().size() - 1; i++) {
-            percentagePath.add(new Path());
-        }
-        ViewGroup infoView = (ViewGroup) inflater.inflate(R.layout.float_info_panel, null);
-        TextView infoViewTitle = infoView.findViewById(R.id.tvTitle);
-
-        lastMaxArray = null;
-        desiredMaxArray = new long[data.getYValues().get(0).getSize()];
+        mTouchXValue = -1;
+        mNearestIndexTouched = -1;
+        mNotifiedIndexTouched = -1;
+        mXAxisLabels.reset(data, mAxisTextPaint);
 
         if (data.isDoubleYAxis()) {
             mLastMaxPossibleEachLine = new long[data.getYValues().size()];
@@ -1312,18 +1013,15 @@ class ChartView extends View {
             mAxisTextSecondPaint.setTextSize(mAxisTextSize);
         }
 
-        mPathPoints = new float[data.getXValues().size() * 4];
-
         mChartData = data;
         mPaints.clear();
-        List<LineViewHolder> valueViews = new ArrayList<>(mChartData.getYValues().size());
         for (ChartData.YData yData : mChartData.getYValues()) {
             Paint paint = new Paint();
 
             int lineColor = Color.parseColor(yData.getColor());
             paint.setColor(lineColor);
             paint.setFlags(Paint.ANTI_ALIAS_FLAG);
-            if (mChartData.isPercentage()) {
+            if (ChartRenderers.isFilled(mChartData)) {
                 paint.setStyle(Paint.Style.FILL_AND_STROKE);
             } else {
                 paint.setStyle(Paint.Style.STROKE);
@@ -1331,24 +1029,18 @@ class ChartView extends View {
             paint.setStrokeWidth(4);
 
             mPaints.put(yData.getVarName(), paint);
-            ViewGroup viewGroup = (ViewGroup) inflater.inflate(R.layout.item_float_info_panel, infoView, false);
-            TextView value = viewGroup.findViewById(R.id.tvValue);
-            TextView axisName = viewGroup.findViewById(R.id.tvAxis);
-            value.setTextColor(lineColor);
-            axisName.setText(yData.getAlias());
-            valueViews.add(new LineViewHolder(viewGroup, axisName, value));
-            infoView.addView(viewGroup);
         }
-
-        if (mChartData.isStacked() && !mChartData.isPercentage()) {
-            ViewGroup viewGroup = (ViewGroup) inflater.inflate(R.layout.item_float_info_panel, infoView, false);
-            TextView value = viewGroup.findViewById(R.id.tvValue);
-            TextView axisName = viewGroup.findViewById(R.id.tvAxis);
-            axisName.setText(getContext().getString(R.string.all));
-            valueViews.add(new LineViewHolder(viewGroup, axisName, value));
-            infoView.addView(viewGroup);
+        mLinePaint = new ChartPaint();
+        mLinePaint.setStyle(ChartRenderers.isFilled(mChartData)
+                ? ChartPaint.STYLE_FILL_AND_STROKE : ChartPaint.STYLE_STROKE);
+        mLinePaint.setStrokeWidth(4);
+        mInfoPanel.setChartData(mChartData, getContext().getString(R.string.all));
+        mRenderState.setChartData(mChartData, mLinePaint);
+        mRenderer = ChartRenderers.create(mChartData);
+        if (mBodyView != null) {
+            mBodyView.setChartData(mChartData, mLinePaint, mSelectionFilter);
+            mPostedVersion = -1;
         }
-        mInfoPanelViewHolder = new InfoPanelViewHolder(infoView, infoViewTitle, valueViews);
         invalidate();
     }
 
@@ -1363,39 +1055,48 @@ class ChartView extends View {
      */
     void onYChartToggled(String yVarName) {
         if (mStartToggleTime == -1) {
-            mStartToggleTime = System.currentTimeMillis();
+            mStartToggleTime = mClock.now();
         }
         mLinesToToggle.add(yVarName);
         invalidate();
     }
 
+    /**
+     * @return point nearest to the touch, sides of the chart are pulled in by margins
+     */
+    private int getNearestIndex(float touchX) {
+        float scale = (float) getWidth() / (mRightCurrentXBoarderValue - mLeftCurrentXBoarderValue);
+        float xWithMarginToSearch = touchX - (1 - 2 * touchX / getWidth()) * mSideMargin;
+        return mChartData.getXPositions().getNearestPoint(
+                (xWithMarginToSearch / scale + mLeftCurrentXBoarderValue) / mStepXForMaxScale);
+    }
+
+    /**
+     * Notifies listener when user scrubs to another point, from touch handler, so that frames
+     * don't start loads.
+     */
+    private void notifyPointTouched() {
+        int index = mTouchXValue > 0 && mStepXForMaxScale != 0 ? getNearestIndex(mTouchXValue) : -1;
+        if (mNotifiedIndexTouched == index) return;
+        mNotifiedIndexTouched = index;
+        if (index >= 0 && mListener != null) {
+            mListener.onPointTouched(index);
+        }
+    }
+
     public interface Listener {
         void onViewTouched();
 
         void onViewReleased();
-    }
 
-    private class InfoPanelViewHolder {
-        ViewGroup mInfoView;
-        TextView mInfoViewTitle;
-        List<LineViewHolder> mLineValue;
+        /**
+         * Called when info panel is shown for another point.
+         */
+        void onPointTouched(int index);
 
-        public InfoPanelViewHolder(ViewGroup infoView, TextView infoViewTitle, List<LineViewHolder> lineValue) {
-            mInfoView = infoView;
-            mInfoViewTitle = infoViewTitle;
-            mLineValue = lineValue;
-        }
-    }
-    
-    private class LineViewHolder {
-        View parent;
-        TextView first;
-        TextView second;
-
-        public LineViewHolder(View parent, TextView first, TextView second) {
-            this.parent = parent;
-            this.first = first;
-            this.second = second;
-        }
+        /**
+         * Called when info panel of the point is clicked.
+         */
+        void onPointClicked(int index);
     }
 }
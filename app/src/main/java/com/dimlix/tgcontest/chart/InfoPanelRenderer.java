@@ -0,0 +1,179 @@
+package com.dimlix.tgcontest.chart;
+
+import android.content.res.Resources;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Typeface;
+
+import com.dimlix.tgcontest.R;
+import com.dimlix.tgcontest.model.ChartData;
+
+import java.util.List;
+
+/**
+ * Draws info panel of the touched point: date and value of each shown line, plus total of
+ * stacked lines. Values are formatted and measured only when touched point or shown lines
+ * change, while user scrubs the panel is just drawn with prepared chars.
+ */
+class InfoPanelRenderer {
+    private static final int SHADOW_COLOR = 0x11000000;
+
+    private final int mPadding;
+    private final int mRowWidth;
+    private final int mRowPadding;
+    private final int mCornerRadius;
+    private final int mShadowSize;
+
+    private final Paint mShadowPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint mBgPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint mTitlePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint mNamePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint mValuePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private int mTextColor;
+
+    private ChartData mData;
+    private int[] mLineColors;
+    private String mTotalName;
+
+    // Layout of the point which panel was updated for.
+    private int mIndex = -1;
+    private boolean[] mShown;
+    private String mTitle;
+    private int mRowCount;
+    // Line of each row, -1 for total.
+    private int[] mRowLines;
+    private char[][] mValues;
+    private int[] mValueLengths;
+    private float[] mValueWidths;
+    private float mWidth;
+    private float mHeight;
+
+    InfoPanelRenderer(Resources resources) {
+        mPadding = resources.getDimensionPixelSize(R.dimen.side_margin);
+        mRowWidth = resources.getDimensionPixelSize(R.dimen.info_row_width);
+        mRowPadding = resources.getDimensionPixelSize(R.dimen.info_row_padding);
+        mCornerRadius = resources.getDimensionPixelSize(R.dimen.info_corner_radius);
+        mShadowSize = resources.getDimensionPixelSize(R.dimen.info_shadow_size);
+        mShadowPaint.setColor(SHADOW_COLOR);
+        mTitlePaint.setTextSize(resources.getDimensionPixelSize(R.dimen.info_title_text_size));
+        mTitlePaint.setTypeface(Typeface.create("sans-serif-black", Typeface.NORMAL));
+        mNamePaint.setTextSize(resources.getDimensionPixelSize(R.dimen.info_text_size));
+        mValuePaint.setTextSize(resources.getDimensionPixelSize(R.dimen.info_text_size));
+        mValuePaint.setTypeface(Typeface.DEFAULT_BOLD);
+    }
+
+    void setColors(int textColor, int bgColor) {
+        mTextColor = textColor;
+        mBgPaint.setColor(bgColor);
+        mTitlePaint.setColor(textColor);
+        mNamePaint.setColor(textColor);
+    }
+
+    /**
+     * @param totalName name of total row which is shown for stacked charts
+     */
+    void setChartData(ChartData data, String totalName) {
+        List<ChartData.YData> lines = data.getYValues();
+        int rows = lines.size() + 1;
+        mData = data;
+        mTotalName = totalName;
+        mLineColors = new int[lines.size()];
+        for (int k = 0; k < lines.size(); k++) {
+            mLineColors[k] = Color.parseColor(lines.get(k).getColor());
+        }
+        mShown = new boolean[lines.size()];
+        mRowLines = new int[rows];
+        mValues = new char[rows][Utils.MAX_LENGTH];
+        mValueLengths = new int[rows];
+        mValueWidths = new float[rows];
+        mIndex = -1;
+    }
+
+    /**
+     * Lays out panel for the point unless it is already laid out for the same point and lines.
+     */
+    void update(int index) {
+        List<ChartData.YData> lines = mData.getYValues();
+        boolean changed = index != mIndex;
+        for (int k = 0; k < lines.size(); k++) {
+            if (mShown[k] != lines.get(k).isShown()) {
+                mShown[k] = !mShown[k];
+                changed = true;
+            }
+        }
+        if (changed) {
+            mIndex = index;
+            layout(lines);
+        }
+    }
+
+    float getWidth() {
+        return mWidth;
+    }
+
+    float getHeight() {
+        return mHeight;
+    }
+
+    void draw(Canvas canvas, float left, float top) {
+        float right = left + mWidth;
+        float bottom = top + mHeight;
+        canvas.drawRoundRect(left, top, right, bottom, mCornerRadius, mCornerRadius, mShadowPaint);
+        canvas.drawRoundRect(left + mShadowSize, top + mShadowSize, right - mShadowSize,
+                bottom - 2 * mShadowSize, mCornerRadius, mCornerRadius, mBgPaint);
+
+        float y = top + mPadding - mTitlePaint.ascent();
+        canvas.drawText(mTitle, left + mPadding, y, mTitlePaint);
+        y += mTitlePaint.descent();
+        float rowHeight = mNamePaint.descent() - mNamePaint.ascent();
+        for (int row = 0; row < mRowCount; row++) {
+            int line = mRowLines[row];
+            y += mRowPadding;
+            float baseline = y - mNamePaint.ascent();
+            String name = line >= 0 ? mData.getYValues().get(line).getAlias() : mTotalName;
+            canvas.drawText(name, left + mPadding, baseline, mNamePaint);
+            mValuePaint.setColor(line >= 0 ? mLineColors[line] : mTextColor);
+            canvas.drawText(mValues[row], 0, mValueLengths[row],
+                    right - mPadding - mValueWidths[row], baseline, mValuePaint);
+            y += rowHeight;
+        }
+    }
+
+    private void layout(List<ChartData.YData> lines) {
+        long total = 0;
+        if (mData.isStacked() || mData.isPercentage()) {
+            total = mData.getStackOffsets().getTotal(mIndex);
+        }
+        mTitle = mData.getXStringValue(mIndex).getExtendedDate();
+        float contentWidth = Math.max(mTitlePaint.measureText(mTitle), mRowWidth);
+        mRowCount = 0;
+        for (int k = 0; k < lines.size(); k++) {
+            if (!mShown[k]) continue;
+            long value = lines.get(k).getValues()[mIndex];
+            int length = mData.isPercentage()
+                    ? Utils.percentFormat(Utils.getPercentHundredths(value, total), mValues[mRowCount])
+                    : Utils.prettyFormat(value, mValues[mRowCount]);
+            contentWidth = Math.max(contentWidth, addRow(k, length, lines.get(k).getAlias()));
+        }
+        if (mData.isStacked() && !mData.isPercentage()) {
+            int length = Utils.prettyFormat(total, mValues[mRowCount]);
+            contentWidth = Math.max(contentWidth, addRow(-1, length, mTotalName));
+        }
+        float rowHeight = mNamePaint.descent() - mNamePaint.ascent();
+        mWidth = contentWidth + 2 * mPadding;
+        mHeight = 2 * mPadding + mTitlePaint.descent() - mTitlePaint.ascent()
+                + mRowCount * (mRowPadding + rowHeight);
+    }
+
+    /**
+     * @return width which the row needs
+     */
+    private float addRow(int line, int valueLength, String name) {
+        int row = mRowCount++;
+        mRowLines[row] = line;
+        mValueLengths[row] = valueLength;
+        mValueWidths[row] = mValuePaint.measureText(mValues[row], 0, valueLength);
+        return mNamePaint.measureText(name) + mPadding + mValueWidths[row];
+    }
+}
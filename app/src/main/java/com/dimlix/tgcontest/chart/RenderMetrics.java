@@ -0,0 +1,305 @@
+package com.dimlix.tgcontest.chart;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+
+/**
+ * Collects timings of the frames drawn by a chart view, e.g. to find charts which don't fit
+ * into the frame budget. Each frame is split into phases of {@code onDraw}, last frames are
+ * kept in a ring buffer and every frame is reported to {@link Listener}.
+ * <p>
+ * Views measure nothing until metrics are set, see
+ * {@link ChartLayout#setRenderMetrics(RenderMetrics, RenderMetrics)}. Frames are preallocated,
+ * so collecting doesn't allocate either. Must be used from the main thread.
+ */
+public class RenderMetrics {
+    /**
+     * Search of Y ranges of the visible points and animation state.
+     */
+    public static final int PHASE_Y_RANGE = 0;
+    /**
+     * Lines of the chart: computing their geometry and drawing it or the cached body.
+     */
+    public static final int PHASE_BODY = 1;
+    public static final int PHASE_Y_AXIS = 2;
+    /**
+     * Selected point and its info panel.
+     */
+    public static final int PHASE_TOOLTIP = 3;
+    public static final int PHASE_X_AXIS = 4;
+    /**
+     * Overlay of the view which is drawn above the chart, e.g. controls of the range.
+     */
+    public static final int PHASE_OVERLAY = 5;
+    public static final int PHASE_COUNT = 6;
+
+    /**
+     * Body is drawn by renderer in this frame.
+     */
+    public static final int BODY_DRAWN = 0;
+    /**
+     * Body is drawn from the bitmap cached by one of previous frames.
+     */
+    public static final int BODY_CACHED = 1;
+    /**
+     * Body is posted to the render thread, see {@link ChartLayout#setRenderThreadEnabled}.
+     */
+    public static final int BODY_RENDER_THREAD = 2;
+
+    private static final int DEFAULT_CAPACITY = 120;
+    private static final String[] PHASE_NAMES = {"y", "body", "yAxis", "info", "xAxis", "ovl"};
+
+    private final Frame[] mFrames;
+    private int mNext;
+    private int mSize;
+    private Frame mCurrent;
+    private long mPhaseStart;
+    private Listener mListener;
+
+    private long mFrameCount;
+    private long mAnimationFrameCount;
+    private long mBodyDrawnCount;
+    private long mBodyCachedCount;
+    private long mGeometryBuildCount;
+
+    private final char[] mOverlayBuffer = new char[Utils.MAX_LENGTH];
+
+    public RenderMetrics() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity how many last frames to keep
+     */
+    public RenderMetrics(int capacity) {
+        mFrames = new Frame[capacity];
+        for (int i = 0; i < capacity; i++) {
+            mFrames[i] = new Frame();
+        }
+    }
+
+    public void setListener(Listener listener) {
+        mListener = listener;
+    }
+
+    /**
+     * @return number of kept frames, at most capacity
+     */
+    public int getSize() {
+        return mSize;
+    }
+
+    /**
+     * @param i index of the kept frame, 0 is the oldest one
+     * @return the frame, it is reused once it leaves the buffer
+     */
+    public Frame getFrame(int i) {
+        if (i < 0 || i >= mSize) {
+            throw new IndexOutOfBoundsException("Frame " + i + " of " + mSize);
+        }
+        return mFrames[(mNext - mSize + i + mFrames.length) % mFrames.length];
+    }
+
+    /**
+     * @return the last drawn frame or null if there is none
+     */
+    public Frame getLastFrame() {
+        return mSize == 0 ? null : getFrame(mSize - 1);
+    }
+
+    public long getFrameCount() {
+        return mFrameCount;
+    }
+
+    /**
+     * @return number of frames which were drawn because an animation requested them
+     */
+    public long getAnimationFrameCount() {
+        return mAnimationFrameCount;
+    }
+
+    /**
+     * @return part of frames which drew the body from cached bitmap instead of the renderer,
+     * frames drawn on render thread are not counted
+     */
+    public float getBodyCacheHitRate() {
+        long total = mBodyDrawnCount + mBodyCachedCount;
+        return total == 0 ? 0 : (float) mBodyCachedCount / total;
+    }
+
+    /**
+     * @return part of frames drawn by renderer which reused chart-space geometry of previous
+     * ones, e.g. while chart is panned
+     */
+    public float getGeometryCacheHitRate() {
+        return mBodyDrawnCount == 0 ? 0 : 1 - (float) mGeometryBuildCount / mBodyDrawnCount;
+    }
+
+    /**
+     * Clears kept frames and counters.
+     */
+    public void reset() {
+        mNext = 0;
+        mSize = 0;
+        mFrameCount = 0;
+        mAnimationFrameCount = 0;
+        mBodyDrawnCount = 0;
+        mBodyCachedCount = 0;
+        mGeometryBuildCount = 0;
+    }
+
+    void beginFrame(boolean animation) {
+        mCurrent = mFrames[mNext];
+        mCurrent.reset();
+        mCurrent.mAnimation = animation;
+        mCurrent.mStartNanos = System.nanoTime();
+        mPhaseStart = mCurrent.mStartNanos;
+    }
+
+    /**
+     * Ends the phase, it lasts since the previous one ended.
+     */
+    void endPhase(int phase) {
+        long now = System.nanoTime();
+        mCurrent.mPhaseNanos[phase] += now - mPhaseStart;
+        mPhaseStart = now;
+    }
+
+    /**
+     * @param points number of visible points of each line
+     * @param lines  number of drawn lines
+     */
+    void setPoints(int points, int lines) {
+        mCurrent.mPoints = points * lines;
+        mCurrent.mLines = lines;
+    }
+
+    /**
+     * @param geometryBuilt whether renderer computed geometry for the frame
+     */
+    void setBody(int body, boolean geometryBuilt) {
+        mCurrent.mBody = body;
+        mCurrent.mGeometryBuilt = geometryBuilt;
+    }
+
+    void endFrame() {
+        Frame frame = mCurrent;
+        frame.mTotalNanos = System.nanoTime() - frame.mStartNanos;
+        mCurrent = null;
+        mNext = (mNext + 1) % mFrames.length;
+        mSize = Math.min(mSize + 1, mFrames.length);
+        mFrameCount++;
+        if (frame.mAnimation) {
+            mAnimationFrameCount++;
+        }
+        if (frame.mBody == BODY_DRAWN) {
+            mBodyDrawnCount++;
+            if (frame.mGeometryBuilt) {
+                mGeometryBuildCount++;
+            }
+        } else if (frame.mBody == BODY_CACHED) {
+            mBodyCachedCount++;
+        }
+        if (mListener != null) {
+            mListener.onFrame(frame);
+        }
+    }
+
+    /**
+     * Draws timings of the last frame in milliseconds, one line per phase below the total.
+     */
+    void drawOverlay(Canvas canvas, float x, float y, Paint paint) {
+        Frame frame = getLastFrame();
+        if (frame == null) return;
+        float lineHeight = paint.getTextSize();
+        canvas.drawText("frame", x, y, paint);
+        drawMillis(canvas, frame.mTotalNanos, x, y, paint);
+        for (int phase = 0; phase < PHASE_COUNT; phase++) {
+            if (frame.mPhaseNanos[phase] == 0) continue;
+            y += lineHeight;
+            canvas.drawText(PHASE_NAMES[phase], x, y, paint);
+            drawMillis(canvas, frame.mPhaseNanos[phase], x, y, paint);
+        }
+    }
+
+    private void drawMillis(Canvas canvas, long nanos, float x, float y, Paint paint) {
+        int length = Utils.hundredthsFormat(nanos / 10000, mOverlayBuffer);
+        canvas.drawText(mOverlayBuffer, 0, length, x + 4 * paint.getTextSize(), y, paint);
+    }
+
+    /**
+     * Metrics of one frame.
+     */
+    public static class Frame {
+        private final long[] mPhaseNanos = new long[PHASE_COUNT];
+        private long mStartNanos;
+        private long mTotalNanos;
+        private boolean mAnimation;
+        private int mPoints;
+        private int mLines;
+        private int mBody;
+        private boolean mGeometryBuilt;
+
+        private void reset() {
+            for (int i = 0; i < PHASE_COUNT; i++) {
+                mPhaseNanos[i] = 0;
+            }
+            mTotalNanos = 0;
+            mAnimation = false;
+            mPoints = 0;
+            mLines = 0;
+            mBody = BODY_DRAWN;
+            mGeometryBuilt = false;
+        }
+
+        /**
+         * @return wall time of {@code onDraw}
+         */
+        public long getTotalNanos() {
+            return mTotalNanos;
+        }
+
+        /**
+         * @param phase one of PHASE_ constants
+         */
+        public long getPhaseNanos(int phase) {
+            return mPhaseNanos[phase];
+        }
+
+        /**
+         * @return whether the frame was requested by an animation rather than by user or data
+         */
+        public boolean isAnimation() {
+            return mAnimation;
+        }
+
+        /**
+         * @return number of visible points of all drawn lines
+         */
+        public int getPointCount() {
+            return mPoints;
+        }
+
+        public int getLineCount() {
+            return mLines;
+        }
+
+        /**
+         * @return how body was drawn, one of BODY_ constants
+         */
+        public int getBody() {
+            return mBody;
+        }
+
+        public boolean isGeometryBuilt() {
+            return mGeometryBuilt;
+        }
+    }
+
+    public interface Listener {
+        /**
+         * Called after the frame is drawn, frame is reused later, so copy what should be kept.
+         */
+        void onFrame(Frame frame);
+    }
+}
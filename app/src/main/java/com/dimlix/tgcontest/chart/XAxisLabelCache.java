@@ -0,0 +1,68 @@
+package com.dimlix.tgcontest.chart;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+
+import com.dimlix.tgcontest.model.ChartData;
+
+import java.util.Arrays;
+
+/**
+ * Laid out X axis labels: chars and measured width of each label.
+ * <p>
+ * Text of a label depends only on its point index, so labels of current step and of the
+ * previous one (while they fade) share one table, which is keyed by index with fibonacci
+ * hashing to spread indexes that are multiples of the step. While chart is panned the same
+ * labels are drawn from the table and only their x is recomputed.
+ */
+class XAxisLabelCache {
+    private static final int SIZE_BITS = 7;
+    private static final int SIZE = 1 << SIZE_BITS;
+
+    private final int[] mIndexes = new int[SIZE];
+    private final char[][] mChars = new char[SIZE][];
+    private final int[] mLengths = new int[SIZE];
+    private final float[] mWidths = new float[SIZE];
+
+    private ChartData mData;
+    private Paint mPaint;
+
+    XAxisLabelCache() {
+        Arrays.fill(mIndexes, -1);
+    }
+
+    /**
+     * Drops laid out labels, must be called when data or text paint changes.
+     */
+    void reset(ChartData data, Paint paint) {
+        mData = data;
+        mPaint = paint;
+        Arrays.fill(mIndexes, -1);
+    }
+
+    /**
+     * Draws label of the point with left edge at x, labels outside of [0, maxX] are skipped.
+     */
+    void draw(Canvas canvas, int index, float x, float y, float maxX) {
+        if (x > maxX) return;
+        int slot = layout(index);
+        if (x + mWidths[slot] < 0) return;
+        canvas.drawText(mChars[slot], 0, mLengths[slot], x, y, mPaint);
+    }
+
+    private int layout(int index) {
+        int slot = (index * 0x9E3779B1) >>> (32 - SIZE_BITS);
+        if (mIndexes[slot] != index) {
+            String text = mData.getXStringValue(index).getDateMonthOnly();
+            int length = text.length();
+            if (mChars[slot] == null || mChars[slot].length < length) {
+                mChars[slot] = new char[length];
+            }
+            text.getChars(0, length, mChars[slot], 0);
+            mLengths[slot] = length;
+            mWidths[slot] = mPaint.measureText(mChars[slot], 0, length);
+            mIndexes[slot] = index;
+        }
+        return slot;
+    }
+}
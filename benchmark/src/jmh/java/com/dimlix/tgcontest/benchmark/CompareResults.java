@@ -0,0 +1,86 @@
+package com.dimlix.tgcontest.benchmark;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Prints change of every benchmark score between two JMH JSON reports, e.g. of two versions
+ * of the app. Change which is within errors of both scores is marked as noise.
+ */
+public class CompareResults {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: CompareResults <base.json> <current.json>");
+            System.exit(2);
+        }
+        Map<String, JSONObject> base = read(new File(args[0]));
+        Map<String, JSONObject> current = read(new File(args[1]));
+        List<String> keys = new ArrayList<>(current.keySet());
+        Collections.sort(keys);
+        System.out.println(String.format(Locale.US, "%-90s %14s %14s %9s",
+                "Benchmark", "Base", "Current", "Change"));
+        for (String key : keys) {
+            JSONObject now = current.get(key).getJSONObject("primaryMetric");
+            String unit = now.getString("scoreUnit");
+            if (!base.containsKey(key)) {
+                System.out.println(String.format(Locale.US, "%-90s %14s %14.3f %9s  %s",
+                        key, "-", now.getDouble("score"), "new", unit));
+                continue;
+            }
+            JSONObject was = base.get(key).getJSONObject("primaryMetric");
+            double change = (now.getDouble("score") - was.getDouble("score")) / was.getDouble("score");
+            boolean noise = Math.abs(now.getDouble("score") - was.getDouble("score"))
+                    <= errorOf(now) + errorOf(was);
+            System.out.println(String.format(Locale.US, "%-90s %14.3f %14.3f %+8.1f%%  %s%s",
+                    key, was.getDouble("score"), now.getDouble("score"), change * 100, unit,
+                    noise ? "  (noise)" : ""));
+        }
+        for (String key : base.keySet()) {
+            if (!current.containsKey(key)) {
+                System.out.println(String.format(Locale.US, "%-90s %14s", key, "removed"));
+            }
+        }
+    }
+
+    /**
+     * @return results by benchmark name and its parameters
+     */
+    private static Map<String, JSONObject> read(File file) throws IOException {
+        JSONArray results = new JSONArray(new String(Files.readAllBytes(file.toPath()), UTF_8));
+        Map<String, JSONObject> byKey = new LinkedHashMap<>();
+        for (int i = 0; i < results.length(); i++) {
+            JSONObject result = results.getJSONObject(i);
+            StringBuilder key = new StringBuilder(result.getString("benchmark")
+                    .replace("com.dimlix.tgcontest.benchmark.", ""));
+            JSONObject params = result.optJSONObject("params");
+            if (params != null) {
+                List<String> names = new ArrayList<>(params.keySet());
+                Collections.sort(names);
+                for (String name : names) {
+                    key.append(' ').append(name).append('=').append(params.getString(name));
+                }
+            }
+            byKey.put(key.toString(), result);
+        }
+        return byKey;
+    }
+
+    private static double errorOf(JSONObject metric) {
+        double error = metric.optDouble("scoreError", 0);
+        // Error is NaN when there are too few iterations to estimate it.
+        return Double.isNaN(error) ? 0 : error;
+    }
+}
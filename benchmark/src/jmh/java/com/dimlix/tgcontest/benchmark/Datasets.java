@@ -0,0 +1,106 @@
+package com.dimlix.tgcontest.benchmark;
+
+import com.dimlix.tgcontest.model.ChartData;
+import com.dimlix.tgcontest.stress.ChartGenerator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Synthetic charts of any size for benchmarks. Values are random walks and timestamps are
+ * daily, so data looks like real charts; the same seed gives the same chart.
+ */
+class Datasets {
+    static final long SEED = 42;
+    static final long START_MILLIS = 1514764800000L;
+    static final long DAY_MILLIS = 24 * 60 * 60 * 1000L;
+
+    private static final String[] COLORS = {"#3DC23F", "#F34C44", "#3896E8", "#ECB41C", "#9E5FE6"};
+    // Rough size of one value in json, e.g. "123456,".
+    private static final int JSON_BYTES_PER_VALUE = 8;
+
+    private Datasets() {
+    }
+
+    /**
+     * @param type one of {@link ChartData.Type}, lines of all series
+     */
+    static ChartData createChart(int points, int series, String type, long seed) {
+        checkFits((long) points * series * 8);
+        Random random = new Random(seed);
+        ChartData data = new ChartData();
+        data.setName("Synthetic " + points + "x" + series);
+        data.setXValues(createXValues(points));
+        for (int k = 0; k < series; k++) {
+            data.addYValues(new ChartData.YData("y" + k, "Series " + k, type,
+                    COLORS[k % COLORS.length], createValues(points, random)));
+        }
+        return data;
+    }
+
+    static long[] createXValues(int points) {
+        long[] x = new long[points];
+        for (int i = 0; i < points; i++) {
+            x[i] = START_MILLIS + i * DAY_MILLIS;
+        }
+        return x;
+    }
+
+    /**
+     * @return random walk of positive values
+     */
+    static long[] createValues(int points, Random random) {
+        long[] values = new long[points];
+        long value = 1000 + random.nextInt(100000);
+        for (int i = 0; i < points; i++) {
+            value = Math.max(0, value + random.nextInt(2001) - 1000);
+            values[i] = value;
+        }
+        return values;
+    }
+
+    /**
+     * @return chart in the format of app assets
+     */
+    static byte[] createJson(int points, int series, String type, long seed) {
+        // Bytes of the stream and their copy.
+        checkFits((long) points * (series + 1) * JSON_BYTES_PER_VALUE * 2);
+        ChartData data = createChart(points, series, type, seed);
+        ByteArrayOutputStream os = new ByteArrayOutputStream(points * (series + 1) * JSON_BYTES_PER_VALUE);
+        try {
+            ChartGenerator.writeJson(data, os);
+        } catch (IOException e) {
+            // Can't happen, stream is in memory.
+            throw new IllegalStateException(e);
+        }
+        return os.toByteArray();
+    }
+
+    /**
+     * @return array of charts of different seeds, as the app read all charts of a single file
+     */
+    static byte[] createJsonArray(int charts, int points, int series, String type, long seed) {
+        checkFits((long) charts * points * (series + 1) * JSON_BYTES_PER_VALUE * 2);
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        os.write('[');
+        for (int i = 0; i < charts; i++) {
+            if (i > 0) os.write(',');
+            byte[] chart = createJson(points, series, type, seed + i);
+            os.write(chart, 0, chart.length);
+        }
+        os.write(']');
+        return os.toByteArray();
+    }
+
+    /**
+     * Fails setup of parameters which would not fit into heap, JMH reports them and goes on.
+     */
+    private static void checkFits(long bytes) {
+        // Chart is kept twice at most, e.g. parsed copy of the json one.
+        if (bytes * 2 > Runtime.getRuntime().maxMemory()) {
+            throw new IllegalStateException("Dataset of " + (bytes >> 20) + " MB doesn't fit into "
+                    + (Runtime.getRuntime().maxMemory() >> 20) + " MB heap, skipped");
+        }
+    }
+}
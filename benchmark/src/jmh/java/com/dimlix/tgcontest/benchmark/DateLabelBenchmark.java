@@ -0,0 +1,62 @@
+package com.dimlix.tgcontest.benchmark;
+
+import com.dimlix.tgcontest.model.ChartData;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Date labels of X axis and info panel. Points are visited with a large stride, so each label
+ * is formatted instead of being taken from the dates cache of the chart, as when user flings
+ * a long chart.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DateLabelBenchmark {
+    private static final int LABELS = 1024;
+    private static final int STRIDE = 7919;
+
+    @Param({"10000", "1000000", "10000000"})
+    public int points;
+
+    private ChartData mData;
+    private int mNext;
+
+    @Setup
+    public void setUp() {
+        mData = new ChartData();
+        mData.setXValues(Datasets.createXValues(points));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LABELS)
+    public void axisLabels(Blackhole blackhole) {
+        for (int i = 0; i < LABELS; i++) {
+            blackhole.consume(mData.getXStringValue(nextPoint()).getDateMonthOnly());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LABELS)
+    public void infoPanelTitles(Blackhole blackhole) {
+        for (int i = 0; i < LABELS; i++) {
+            blackhole.consume(mData.getXStringValue(nextPoint()).getExtendedDate());
+        }
+    }
+
+    private int nextPoint() {
+        mNext = (mNext + STRIDE) % points;
+        return mNext;
+    }
+}
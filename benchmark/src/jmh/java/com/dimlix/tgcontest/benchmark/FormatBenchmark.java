@@ -0,0 +1,73 @@
+package com.dimlix.tgcontest.benchmark;
+
+import com.dimlix.tgcontest.chart.Utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Number labels of Y axis and info panel.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FormatBenchmark {
+    private static final int VALUES = 1024;
+
+    /**
+     * Upper bound of formatted values.
+     */
+    @Param({"1000", "1000000", "1000000000000"})
+    public long magnitude;
+
+    private final long[] mValues = new long[VALUES];
+    private final char[] mBuffer = new char[Utils.MAX_LENGTH];
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(Datasets.SEED);
+        for (int i = 0; i < VALUES; i++) {
+            mValues[i] = (long) (random.nextDouble() * magnitude);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public int coolFormat() {
+        int length = 0;
+        for (long value : mValues) {
+            length += Utils.coolFormat(value, mBuffer);
+        }
+        return length + mBuffer[0];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public int prettyFormat() {
+        int length = 0;
+        for (long value : mValues) {
+            length += Utils.prettyFormat(value, mBuffer);
+        }
+        return length + mBuffer[0];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public int percentFormat() {
+        int length = 0;
+        for (long value : mValues) {
+            length += Utils.percentFormat(value % 10001, mBuffer);
+        }
+        return length + mBuffer[0];
+    }
+}
@@ -0,0 +1,145 @@
+package com.dimlix.tgcontest.benchmark;
+
+import com.dimlix.tgcontest.chart.render.ChartPaint;
+import com.dimlix.tgcontest.chart.render.ChartRenderer;
+import com.dimlix.tgcontest.chart.render.ChartRenderers;
+import com.dimlix.tgcontest.chart.render.RecordingCanvas;
+import com.dimlix.tgcontest.chart.render.RenderState;
+import com.dimlix.tgcontest.model.ChartData;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chart body of a single frame drawn by renderers on {@link RecordingCanvas}: while chart is
+ * panned, when chart-space geometry is reused and only mapped to the view, and when geometry
+ * is computed again, e.g. on every frame of Y range animation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GeometryBenchmark {
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1000;
+    private static final int SIDE_MARGIN = 40;
+    private static final Set<String> NO_TOGGLED = Collections.emptySet();
+
+    @Param({"10000", "1000000", "10000000"})
+    public int points;
+
+    @Param({"2", "10", "50"})
+    public int series;
+
+    /**
+     * Visible part of the chart.
+     */
+    @Param({"0.01", "0.25", "1"})
+    public float window;
+
+    @Param({"line", "bar", "area", "percentage"})
+    public String mode;
+
+    private final RenderState mState = new RenderState();
+    private final RecordingCanvas mCanvas = new RecordingCanvas();
+    private ChartRenderer mRenderer;
+    private int mFirstPoint;
+    private int mLastPoint;
+    private float mPointStep;
+    private float mScale;
+    private long mMax;
+    private boolean mShifted;
+    private boolean mRangeGrown;
+
+    @Setup
+    public void setUp() {
+        ChartData data;
+        switch (mode) {
+            case "bar":
+                data = Datasets.createChart(points, series, ChartData.Type.BAR, Datasets.SEED);
+                data.setStacked(true);
+                break;
+            case "area":
+                data = Datasets.createChart(points, series, ChartData.Type.AREA, Datasets.SEED);
+                data.setStacked(true);
+                break;
+            case "percentage":
+                data = Datasets.createChart(points, series, ChartData.Type.AREA, Datasets.SEED);
+                data.setStacked(true);
+                data.setPercentage(true);
+                break;
+            default:
+                data = Datasets.createChart(points, series, ChartData.Type.LINE, Datasets.SEED);
+                break;
+        }
+        ChartPaint paint = new ChartPaint();
+        paint.setStyle(ChartRenderers.isFilled(data) ? ChartPaint.STYLE_FILL : ChartPaint.STYLE_STROKE);
+        paint.setStrokeWidth(4);
+        mState.setChartData(data, paint);
+        mState.setToggledLines(NO_TOGGLED);
+        mState.setBand(0, HEIGHT);
+        mRenderer = ChartRenderers.create(data);
+
+        // Window in the middle of the chart, so that it can be shifted to both sides.
+        int span = Math.max((int) ((points - 1) * window), 1);
+        mFirstPoint = Math.max((points - 1 - span) / 2, 0);
+        mLastPoint = Math.min(mFirstPoint + span, points - 1);
+        mPointStep = (float) WIDTH / (points - 1);
+        mScale = (float) (points - 1) / span;
+        if (data.isStacked()) {
+            for (long total : data.getStackOffsets().getTotals()) {
+                mMax = Math.max(mMax, total);
+            }
+        } else {
+            for (ChartData.YData yData : data.getYValues()) {
+                for (long value : yData.getValues()) {
+                    mMax = Math.max(mMax, value);
+                }
+            }
+        }
+        mState.setYRange(0, 0, mMax, 0, mMax);
+        setX(0);
+        mRenderer.draw(mCanvas, mState);
+    }
+
+    /**
+     * Chart is moved by a point back and forth, geometry stays in the cached range.
+     */
+    @Benchmark
+    public long pan() {
+        mShifted = !mShifted;
+        setX(mShifted ? 1 : 0);
+        return draw();
+    }
+
+    /**
+     * Y range changes, so geometry of the whole cached range is computed again.
+     */
+    @Benchmark
+    public long rebuild() {
+        mRangeGrown = !mRangeGrown;
+        mState.setYRange(0, 0, mMax, 0, mRangeGrown ? mMax + 1 : mMax);
+        return draw();
+    }
+
+    private void setX(int shift) {
+        int first = mFirstPoint + shift;
+        int last = Math.min(mLastPoint + shift, points - 1);
+        mState.setX(first, last, mPointStep, mScale, first * mPointStep, SIDE_MARGIN, WIDTH);
+    }
+
+    private long draw() {
+        mCanvas.reset();
+        mRenderer.draw(mCanvas, mState);
+        return mCanvas.getChecksum();
+    }
+}
@@ -0,0 +1,60 @@
+package com.dimlix.tgcontest.benchmark;
+
+import com.dimlix.tgcontest.JsonGraphReader;
+import com.dimlix.tgcontest.model.ChartData;
+import com.dimlix.tgcontest.model.GraphData;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of array of charts, chart by chart and concurrently on the parser pool.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class GraphParseBenchmark {
+    @Param({"5", "20"})
+    public int charts;
+
+    @Param({"10000", "1000000", "10000000"})
+    public int points;
+
+    @Param({"2", "10", "50"})
+    public int series;
+
+    private final JsonGraphReader mReader = new JsonGraphReader();
+    private byte[] mJson;
+
+    @Setup
+    public void setUp() {
+        mJson = Datasets.createJsonArray(charts, points, series, ChartData.Type.LINE, Datasets.SEED);
+        // Both modes must read every chart, otherwise they are not compared on the same work.
+        checkParsed(mReader.getGraphDataFromJson(mJson, false));
+        checkParsed(mReader.getGraphDataFromJson(mJson, true));
+    }
+
+    @Benchmark
+    public GraphData sequential() {
+        return mReader.getGraphDataFromJson(mJson, false);
+    }
+
+    @Benchmark
+    public GraphData parallel() {
+        return mReader.getGraphDataFromJson(mJson, true);
+    }
+
+    private void checkParsed(GraphData data) {
+        if (!data.getErrors().isEmpty() || data.getChartData().size() != charts) {
+            throw new IllegalStateException("Charts are not parsed: " + data.getErrors());
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.dimlix.tgcontest.benchmark;
+
+import com.dimlix.tgcontest.JsonGraphReader;
+import com.dimlix.tgcontest.model.ChartData;
+
+import org.json.JSONException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of a single chart from bytes and from stream, as assets are read by the app.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class JsonParseBenchmark {
+    @Param({"10000", "1000000", "10000000"})
+    public int points;
+
+    @Param({"2", "10", "50"})
+    public int series;
+
+    private final JsonGraphReader mReader = new JsonGraphReader();
+    private byte[] mJson;
+
+    @Setup
+    public void setUp() {
+        mJson = Datasets.createJson(points, series, ChartData.Type.LINE, Datasets.SEED);
+    }
+
+    @Benchmark
+    public ChartData parseBytes() throws JSONException {
+        return mReader.getChartDataFromJson(mJson);
+    }
+
+    @Benchmark
+    public ChartData parseStream() throws IOException, JSONException {
+        return mReader.getChartDataFromJson(new ByteArrayInputStream(mJson));
+    }
+}
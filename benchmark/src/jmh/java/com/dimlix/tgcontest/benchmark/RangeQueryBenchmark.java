@@ -0,0 +1,106 @@
+package com.dimlix.tgcontest.benchmark;
+
+import com.dimlix.tgcontest.model.ChartData;
+import com.dimlix.tgcontest.model.MinMaxIndex;
+import com.dimlix.tgcontest.model.XPositions;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Work of a chart frame which depends on the visible window: finding its points by position
+ * and Y range of all shown series inside it. Scan of the window is the baseline for the index.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RangeQueryBenchmark {
+    private static final int WINDOWS = 256;
+
+    @Param({"10000", "1000000", "10000000"})
+    public int points;
+
+    @Param({"2", "10", "50"})
+    public int series;
+
+    /**
+     * Visible part of the chart.
+     */
+    @Param({"0.01", "0.25", "1"})
+    public float window;
+
+    private ChartData mData;
+    private List<ChartData.YData> mLines;
+    // Random windows, so that branch predictor doesn't learn a single one.
+    private final float[] mStarts = new float[WINDOWS];
+    private float mWidth;
+    private int mNext;
+
+    @Setup
+    public void setUp() {
+        mData = Datasets.createChart(points, series, ChartData.Type.LINE, Datasets.SEED);
+        mLines = mData.getYValues();
+        mWidth = (points - 1) * window;
+        Random random = new Random(Datasets.SEED);
+        for (int i = 0; i < WINDOWS; i++) {
+            mStarts[i] = random.nextFloat() * (points - 1 - mWidth);
+        }
+        mData.getXPositions();
+    }
+
+    @Benchmark
+    public int findWindow() {
+        float start = nextStart();
+        XPositions positions = mData.getXPositions();
+        return positions.getPointAtOrBefore(start) + positions.getPointAtOrAfter(start + mWidth);
+    }
+
+    @Benchmark
+    public long yRangeIndex() {
+        float start = nextStart();
+        XPositions positions = mData.getXPositions();
+        int from = positions.getPointAtOrBefore(start);
+        int to = positions.getPointAtOrAfter(start + mWidth) + 1;
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int k = 0; k < mLines.size(); k++) {
+            MinMaxIndex index = mLines.get(k).getMinMaxIndex();
+            min = Math.min(min, index.getMin(from, to));
+            max = Math.max(max, index.getMax(from, to));
+        }
+        return max - min;
+    }
+
+    @Benchmark
+    public long yRangeScan() {
+        float start = nextStart();
+        XPositions positions = mData.getXPositions();
+        int from = positions.getPointAtOrBefore(start);
+        int to = positions.getPointAtOrAfter(start + mWidth) + 1;
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int k = 0; k < mLines.size(); k++) {
+            long[] values = mLines.get(k).getValues();
+            for (int i = from; i < to; i++) {
+                if (min > values[i]) min = values[i];
+                if (max < values[i]) max = values[i];
+            }
+        }
+        return max - min;
+    }
+
+    private float nextStart() {
+        mNext = (mNext + 1) & (WINDOWS - 1);
+        return mStarts[mNext];
+    }
+}
@@ -0,0 +1,92 @@
+package com.dimlix.tgcontest.benchmark;
+
+import com.dimlix.tgcontest.chart.Utils;
+import com.dimlix.tgcontest.model.ChartData;
+import com.dimlix.tgcontest.model.StackOffsets;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sums of stacked and percentage charts: computing them for all lines, updating them when
+ * a line is toggled and reading layers of a visible window as renderers do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StackBenchmark {
+    // Points of a visible window which are read per invocation.
+    private static final int WINDOW = 1000;
+
+    @Param({"10000", "1000000", "10000000"})
+    public int points;
+
+    @Param({"2", "10", "50"})
+    public int series;
+
+    private ChartData mData;
+    private ChartData.YData mToggledLine;
+    private int mWindowStart;
+
+    @Setup
+    public void setUp() {
+        mData = Datasets.createChart(points, series, ChartData.Type.AREA, Datasets.SEED);
+        mData.setStacked(true);
+        mData.getStackOffsets();
+        // The lowest line is the most expensive to toggle, layers of all lines above it change.
+        mToggledLine = mData.getYValues().get(0);
+        mWindowStart = Math.max(points / 2 - WINDOW / 2, 0);
+    }
+
+    @Benchmark
+    public long[] computeOffsets() {
+        ChartData data = new ChartData();
+        data.setXValues(mData.getXValues());
+        for (ChartData.YData yData : mData.getYValues()) {
+            data.addYValues(yData);
+        }
+        return data.getStackOffsets().getTotals();
+    }
+
+    @Benchmark
+    public long toggleLine() {
+        // Hide and show back, so that every invocation starts with the same state.
+        mData.setLineShown(mToggledLine, false);
+        mData.setLineShown(mToggledLine, true);
+        return mData.getStackOffsets().getTotal(0);
+    }
+
+    @Benchmark
+    public long stackedWindow() {
+        StackOffsets offsets = mData.getStackOffsets();
+        long sum = 0;
+        int to = Math.min(mWindowStart + WINDOW, points);
+        for (int k = 0; k < series; k++) {
+            for (int i = mWindowStart; i < to; i++) {
+                sum += offsets.getTop(k, i) - offsets.getBottom(k, i);
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long percentageWindow() {
+        StackOffsets offsets = mData.getStackOffsets();
+        long sum = 0;
+        int to = Math.min(mWindowStart + WINDOW, points);
+        for (int k = 0; k < series; k++) {
+            for (int i = mWindowStart; i < to; i++) {
+                sum += Utils.getPercentHundredths(offsets.getTop(k, i), offsets.getTotal(i));
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,474 @@
+package com.dimlix.tgcontest.stress;
+
+import com.dimlix.tgcontest.ChartSnapshot;
+import com.dimlix.tgcontest.JsonGraphReader;
+import com.dimlix.tgcontest.model.ChartData;
+import com.dimlix.tgcontest.model.GraphData;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Synthetic charts of any size in the format of app assets, so that parsing and drawing can be
+ * tried on production-like loads. The same options and seed give the same chart.
+ * <p>
+ * Run with {@code ./gradlew :benchmark:generateChart -Pargs="--points 1000000 --out big.json"},
+ * see {@link #printUsage()} for the options.
+ */
+public class ChartGenerator {
+    /**
+     * How timestamps of points are spaced.
+     */
+    public @interface Gaps {
+        // Daily points.
+        String NONE = "none";
+        // Daily points without weekends.
+        String WEEKENDS = "weekends";
+        // Daily points with missing spans of random length.
+        String RANDOM = "random";
+    }
+
+    /**
+     * How values of lines are distributed.
+     */
+    public @interface Distribution {
+        // Random walk, looks like most of real charts.
+        String WALK = "walk";
+        String UNIFORM = "uniform";
+        // Low values with rare peaks, e.g. views of a post.
+        String SPIKES = "spikes";
+        // Weekly and yearly waves with noise.
+        String SEASONAL = "seasonal";
+    }
+
+    private static final long START_MILLIS = 1514764800000L;
+    private static final long DAY_MILLIS = 24 * 60 * 60 * 1000L;
+    private static final String[] COLORS = {"#3DC23F", "#F34C44", "#3896E8", "#ECB41C", "#9E5FE6",
+            "#5FB641", "#E65850", "#4BD964", "#FE3C30", "#108BE3"};
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private int mPoints = 10000;
+    private int mSeries = 5;
+    private String mType = ChartData.Type.LINE;
+    private boolean mYScaled;
+    private boolean mStacked;
+    private boolean mPercentage;
+    private String mGaps = Gaps.NONE;
+    private String mDistribution = Distribution.WALK;
+    private long mSeed = 42;
+
+    public void setPoints(int points) {
+        mPoints = points;
+    }
+
+    public void setSeries(int series) {
+        mSeries = series;
+    }
+
+    /**
+     * @param type one of {@link ChartData.Type}, lines of all series
+     */
+    public void setType(String type) {
+        mType = type;
+    }
+
+    public void setYScaled(boolean yScaled) {
+        mYScaled = yScaled;
+    }
+
+    public void setStacked(boolean stacked) {
+        mStacked = stacked;
+    }
+
+    public void setPercentage(boolean percentage) {
+        mPercentage = percentage;
+    }
+
+    /**
+     * @param gaps one of {@link Gaps}
+     */
+    public void setGaps(String gaps) {
+        mGaps = gaps;
+    }
+
+    /**
+     * @param distribution one of {@link Distribution}
+     */
+    public void setDistribution(String distribution) {
+        mDistribution = distribution;
+    }
+
+    public void setSeed(long seed) {
+        mSeed = seed;
+    }
+
+    /**
+     * @return short description of the chart, e.g. for file names and reports
+     */
+    public String getName() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(mType).append('_').append(mPoints).append('x').append(mSeries);
+        if (mYScaled) sb.append("_yscaled");
+        if (mStacked) sb.append("_stacked");
+        if (mPercentage) sb.append("_percentage");
+        if (!Gaps.NONE.equals(mGaps)) sb.append('_').append(mGaps);
+        if (!Distribution.WALK.equals(mDistribution)) sb.append('_').append(mDistribution);
+        return sb.toString();
+    }
+
+    /**
+     * @throws IllegalArgumentException if options don't make a chart app can draw
+     */
+    public void validate() {
+        if (mPoints < 2 || mSeries < 1) {
+            throw new IllegalArgumentException("Chart needs at least 2 points and 1 series");
+        }
+        if (mYScaled && mSeries != 2) {
+            throw new IllegalArgumentException(JsonGraphReader.Set.Y_SCALED + " chart must have 2 series");
+        }
+        if (mPercentage && !ChartData.Type.AREA.equals(mType)) {
+            throw new IllegalArgumentException(JsonGraphReader.Set.PERCENTAGE + " chart must be of "
+                    + ChartData.Type.AREA + " type");
+        }
+        if (!Arrays.asList(Gaps.NONE, Gaps.WEEKENDS, Gaps.RANDOM).contains(mGaps)) {
+            throw new IllegalArgumentException("Unknown gaps " + mGaps);
+        }
+        if (!Arrays.asList(Distribution.WALK, Distribution.UNIFORM, Distribution.SPIKES,
+                Distribution.SEASONAL).contains(mDistribution)) {
+            throw new IllegalArgumentException("Unknown distribution " + mDistribution);
+        }
+        if (!Arrays.asList(ChartData.Type.LINE, ChartData.Type.BAR, ChartData.Type.AREA).contains(mType)) {
+            throw new IllegalArgumentException("Unknown type " + mType);
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if chart is too large for its snapshot to be read, which
+     *                                  is mapped into a single buffer
+     */
+    public void validateSnapshot() {
+        validate();
+        // Columns take almost all of the snapshot, names and headers fit into a few KB.
+        long bytes = 8L * mPoints * (mSeries + 1) + 4096;
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Snapshot of " + mPoints + " points x " + mSeries
+                    + " series takes about " + (bytes >> 20) + " MB, at most "
+                    + (Integer.MAX_VALUE >> 20) + " MB can be mapped");
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if options don't make a chart app can draw
+     */
+    public ChartData generate() {
+        validate();
+        Random random = new Random(mSeed);
+        ChartData data = new ChartData();
+        data.setName(getName());
+        data.setXValues(createXValues(random));
+        for (int k = 0; k < mSeries; k++) {
+            data.addYValues(new ChartData.YData("y" + k, "Series " + k, mType,
+                    COLORS[k % COLORS.length], createValues(random)));
+        }
+        data.setDoubleYAxis(mYScaled);
+        data.setStacked(mStacked || mPercentage);
+        data.setPercentage(mPercentage);
+        return data;
+    }
+
+    private long[] createXValues(Random random) {
+        long[] x = new long[mPoints];
+        long day = 0;
+        for (int i = 0; i < mPoints; i++) {
+            switch (mGaps) {
+                case Gaps.WEEKENDS:
+                    // Start is Monday, skip Saturday and Sunday.
+                    if (day % 7 == 5) day += 2;
+                    break;
+                case Gaps.RANDOM:
+                    if (random.nextInt(100) == 0) day += 1 + random.nextInt(30);
+                    break;
+                case Gaps.NONE:
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown gaps " + mGaps);
+            }
+            x[i] = START_MILLIS + day * DAY_MILLIS;
+            day++;
+        }
+        return x;
+    }
+
+    /**
+     * @return positive values, stacked charts can't draw negative ones
+     */
+    private long[] createValues(Random random) {
+        long[] values = new long[mPoints];
+        long base = 1000 + random.nextInt(100000);
+        switch (mDistribution) {
+            case Distribution.WALK:
+                long value = base;
+                for (int i = 0; i < mPoints; i++) {
+                    value = Math.max(0, value + random.nextInt(2001) - 1000);
+                    values[i] = value;
+                }
+                break;
+            case Distribution.UNIFORM:
+                for (int i = 0; i < mPoints; i++) {
+                    values[i] = (long) (random.nextDouble() * base * 2);
+                }
+                break;
+            case Distribution.SPIKES:
+                for (int i = 0; i < mPoints; i++) {
+                    values[i] = random.nextInt(1000) == 0
+                            ? base * (10 + random.nextInt(1000))
+                            : random.nextInt((int) (base / 10) + 1);
+                }
+                break;
+            case Distribution.SEASONAL:
+                double phase = random.nextDouble() * 2 * Math.PI;
+                for (int i = 0; i < mPoints; i++) {
+                    double wave = 1 + 0.3 * Math.sin(2 * Math.PI * i / 7 + phase)
+                            + 0.5 * Math.sin(2 * Math.PI * i / 365 + phase);
+                    values[i] = Math.max(0, (long) (base * wave * (0.9 + 0.2 * random.nextDouble())));
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown distribution " + mDistribution);
+        }
+        return values;
+    }
+
+    /**
+     * Writes chart in the format of app assets. Json is streamed, so charts larger than heap
+     * can be written as long as the chart itself fits.
+     */
+    public static void writeJson(ChartData data, OutputStream os) throws IOException {
+        JsonWriter writer = new JsonWriter(os);
+        writer.write("{\"").write(JsonGraphReader.Set.COLUMNS).write("\":[");
+        writer.writeColumn(ChartData.Type.X, data.getXValues());
+        for (ChartData.YData yData : data.getYValues()) {
+            writer.write(",");
+            writer.writeColumn(yData.getVarName(), yData.getValues());
+        }
+        writer.write("],\"").write(JsonGraphReader.Set.TYPES).write("\":{");
+        writer.writeEntry(ChartData.Type.X, ChartData.Type.X, true);
+        for (ChartData.YData yData : data.getYValues()) {
+            writer.writeEntry(yData.getVarName(), yData.getType(), false);
+        }
+        writer.write("},\"").write(JsonGraphReader.Set.NAMES).write("\":{");
+        boolean first = true;
+        for (ChartData.YData yData : data.getYValues()) {
+            writer.writeEntry(yData.getVarName(), yData.getAlias(), first);
+            first = false;
+        }
+        writer.write("},\"").write(JsonGraphReader.Set.COLORS).write("\":{");
+        first = true;
+        for (ChartData.YData yData : data.getYValues()) {
+            writer.writeEntry(yData.getVarName(), yData.getColor(), first);
+            first = false;
+        }
+        writer.write("}");
+        writer.writeFlag(JsonGraphReader.Set.Y_SCALED, data.isDoubleYAxis());
+        writer.writeFlag(JsonGraphReader.Set.STACKED, data.isStacked());
+        writer.writeFlag(JsonGraphReader.Set.PERCENTAGE, data.isPercentage());
+        writer.write("}");
+        writer.flush();
+    }
+
+    public static void writeJson(ChartData data, File file) throws IOException {
+        OutputStream os = new FileOutputStream(file);
+        try {
+            writeJson(data, os);
+        } finally {
+            os.close();
+        }
+    }
+
+    /**
+     * Writes chart as {@link ChartSnapshot}, the binary equivalent of json which app caches.
+     */
+    public static void writeSnapshot(ChartData data, File file) throws IOException {
+        GraphData graph = new GraphData();
+        graph.addChartData(data);
+        ChartSnapshot.write(graph, file);
+    }
+
+    /**
+     * Applies generator options from the arguments and returns the rest of them.
+     *
+     * @throws IllegalArgumentException if option has no value or value is malformed
+     */
+    List<String> parseArgs(List<String> args) {
+        List<String> rest = new ArrayList<>();
+        for (int i = 0; i < args.size(); i++) {
+            String arg = args.get(i);
+            switch (arg) {
+                case "--points":
+                    mPoints = Integer.parseInt(getValue(args, ++i, arg));
+                    break;
+                case "--series":
+                    mSeries = Integer.parseInt(getValue(args, ++i, arg));
+                    break;
+                case "--type":
+                    mType = getValue(args, ++i, arg);
+                    break;
+                case "--y-scaled":
+                    mYScaled = true;
+                    break;
+                case "--stacked":
+                    mStacked = true;
+                    break;
+                case "--percentage":
+                    mPercentage = true;
+                    break;
+                case "--gaps":
+                    mGaps = getValue(args, ++i, arg);
+                    break;
+                case "--distribution":
+                    mDistribution = getValue(args, ++i, arg);
+                    break;
+                case "--seed":
+                    mSeed = Long.parseLong(getValue(args, ++i, arg));
+                    break;
+                default:
+                    rest.add(arg);
+            }
+        }
+        return rest;
+    }
+
+    /**
+     * @return value of the option at the index
+     */
+    static String getValue(List<String> args, int index, String option) {
+        if (index >= args.size()) {
+            throw new IllegalArgumentException("No value for " + option);
+        }
+        return args.get(index);
+    }
+
+    static void printUsage() {
+        System.err.println("Chart options:\n"
+                + "  --points <n>             points of the chart, default 10000\n"
+                + "  --series <n>             lines of the chart, default 5\n"
+                + "  --type <type>            line, bar or area, default line\n"
+                + "  --y-scaled               own Y axis for each of 2 lines\n"
+                + "  --stacked                stacked lines\n"
+                + "  --percentage             stacked areas in percents, implies --stacked\n"
+                + "  --gaps <gaps>            none, weekends or random, default none\n"
+                + "  --distribution <values>  walk, uniform, spikes or seasonal, default walk\n"
+                + "  --seed <n>               seed of random values, default 42");
+    }
+
+    /**
+     * Writes chart json to --out file, and its binary snapshot with --snapshot.
+     */
+    public static void main(String[] args) throws IOException {
+        ChartGenerator generator = new ChartGenerator();
+        File out = null;
+        boolean snapshot = false;
+        try {
+            List<String> rest = generator.parseArgs(Arrays.asList(args));
+            for (int i = 0; i < rest.size(); i++) {
+                String arg = rest.get(i);
+                switch (arg) {
+                    case "--out":
+                        out = new File(getValue(rest, ++i, arg));
+                        break;
+                    case "--snapshot":
+                        snapshot = true;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + arg);
+                }
+            }
+            if (snapshot) {
+                generator.validateSnapshot();
+            } else {
+                generator.validate();
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: ChartGenerator [--out <file.json>] [--snapshot] [chart options]");
+            printUsage();
+            System.exit(2);
+            return;
+        }
+        if (out == null) {
+            out = new File(generator.getName() + ".json");
+        }
+        ChartData data = generator.generate();
+        writeJson(data, out);
+        System.out.println("Written " + out + ", " + (out.length() >> 10) + " KB");
+        if (snapshot) {
+            File binary = new File(out.getPath().replaceFirst("\\.json$", "") + ".bin");
+            writeSnapshot(data, binary);
+            System.out.println("Written " + binary + ", " + (binary.length() >> 10) + " KB");
+        }
+    }
+
+    /**
+     * Writes ASCII json without intermediate strings for values.
+     */
+    private static class JsonWriter {
+        private final OutputStream mOs;
+        private final byte[] mDigits = new byte[20];
+
+        JsonWriter(OutputStream os) {
+            mOs = new BufferedOutputStream(os, BUFFER_SIZE);
+        }
+
+        JsonWriter write(String s) throws IOException {
+            for (int i = 0; i < s.length(); i++) {
+                mOs.write(s.charAt(i));
+            }
+            return this;
+        }
+
+        void writeColumn(String id, long[] values) throws IOException {
+            write("[\"").write(id).write("\"");
+            for (long value : values) {
+                mOs.write(',');
+                writeLong(value);
+            }
+            mOs.write(']');
+        }
+
+        void writeEntry(String key, String value, boolean first) throws IOException {
+            write(first ? "\"" : ",\"").write(key).write("\":\"").write(value).write("\"");
+        }
+
+        void writeFlag(String key, boolean value) throws IOException {
+            if (value) {
+                write(",\"").write(key).write("\":true");
+            }
+        }
+
+        private void writeLong(long value) throws IOException {
+            if (value < 0) {
+                mOs.write('-');
+                value = -value;
+            }
+            int length = 0;
+            do {
+                mDigits[length++] = (byte) ('0' + value % 10);
+                value /= 10;
+            } while (value > 0);
+            while (length > 0) {
+                mOs.write(mDigits[--length]);
+            }
+        }
+
+        void flush() throws IOException {
+            mOs.flush();
+        }
+    }
+}
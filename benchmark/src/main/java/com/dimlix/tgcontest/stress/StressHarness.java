@@ -0,0 +1,387 @@
+package com.dimlix.tgcontest.stress;
+
+import com.dimlix.tgcontest.ChartSnapshot;
+import com.dimlix.tgcontest.JsonGraphReader;
+import com.dimlix.tgcontest.chart.VisibleRange;
+import com.dimlix.tgcontest.chart.render.ChartPaint;
+import com.dimlix.tgcontest.chart.render.ChartRenderer;
+import com.dimlix.tgcontest.chart.render.ChartRenderers;
+import com.dimlix.tgcontest.chart.render.RecordingCanvas;
+import com.dimlix.tgcontest.chart.render.RenderState;
+import com.dimlix.tgcontest.model.ChartData;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Generates chart with {@link ChartGenerator}, writes it as json and as binary snapshot, loads
+ * it back the way app does and renders it headless on {@link RecordingCanvas} while it is
+ * panned, zoomed and a line is toggled. Prints time and peak heap of every stage.
+ * <p>
+ * Peak heap is the sum of peaks of heap pools since the start of the stage, which is an upper
+ * bound of the real peak; retained heap is measured after full gc, so it shows what the stage
+ * keeps, e.g. size of parsed chart.
+ * <p>
+ * Run with {@code ./gradlew :benchmark:stress -Pargs="--points 10000000 --series 10"}.
+ */
+public class StressHarness {
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1000;
+    private static final int SIDE_MARGIN = 40;
+    // Visible part of the chart while it is panned.
+    private static final float PAN_WINDOW = 0.1f;
+    private static final float MIN_ZOOM_WINDOW = 0.001f;
+
+    private final ChartGenerator mGenerator;
+    private final File mDir;
+    private final int mFrames;
+    private final boolean mKeepFiles;
+    private final List<String[]> mReport = new ArrayList<>();
+
+    // Chart which is drawn and the state of its frames.
+    private ChartData mData;
+    private RenderState mState;
+    private ChartRenderer mRenderer;
+    private final RecordingCanvas mCanvas = new RecordingCanvas();
+    private final VisibleRange mVisibleRange = new VisibleRange();
+    private long[] mMin;
+    private long[] mMax;
+    // Geometry build count of the state when current stage started.
+    private int mStageBuilds;
+
+    StressHarness(ChartGenerator generator, File dir, int frames, boolean keepFiles) {
+        mGenerator = generator;
+        mDir = dir;
+        mFrames = frames;
+        mKeepFiles = keepFiles;
+    }
+
+    void run() throws Exception {
+        if (!mDir.isDirectory() && !mDir.mkdirs()) {
+            throw new IOException("Can't create " + mDir);
+        }
+        final File json = new File(mDir, mGenerator.getName() + ".json");
+        final File snapshot = new File(mDir, mGenerator.getName() + ".bin");
+        System.out.println("Chart " + mGenerator.getName() + ", heap "
+                + (Runtime.getRuntime().maxMemory() >> 20) + " MB, " + mFrames + " frames per stage");
+        try {
+            final ChartData[] generated = new ChartData[1];
+            measure("generate", new Stage() {
+                @Override
+                String run() {
+                    generated[0] = mGenerator.generate();
+                    return generated[0].getSize() + " points";
+                }
+            });
+            measure("write json", new Stage() {
+                @Override
+                String run() throws IOException {
+                    ChartGenerator.writeJson(generated[0], json);
+                    return formatSize(json.length());
+                }
+            });
+            measure("write snapshot", new Stage() {
+                @Override
+                String run() throws IOException {
+                    ChartGenerator.writeSnapshot(generated[0], snapshot);
+                    return formatSize(snapshot.length());
+                }
+            });
+            generated[0] = null;
+
+            measure("load snapshot", new Stage() {
+                @Override
+                String run() throws IOException {
+                    ChartData data = ChartSnapshot.read(snapshot).getChartData().get(0);
+                    return data.getSize() + " points";
+                }
+            });
+            measure("parse json", new Stage() {
+                @Override
+                String run() throws IOException {
+                    mData = parse(json);
+                    return mData.getSize() + " points, " + mData.getYValues().size() + " lines"
+                            + (json.length() > Integer.MAX_VALUE ? ", streamed" : "");
+                }
+            });
+            measure("build indexes", new Stage() {
+                @Override
+                String run() {
+                    mData.getXPositions();
+                    for (ChartData.YData yData : mData.getYValues()) {
+                        yData.getMinMaxIndex();
+                    }
+                    if (mData.isStacked() || mData.isPercentage()) {
+                        mData.getStackOffsets();
+                    }
+                    return "";
+                }
+            });
+            measure("first frame", new Stage() {
+                @Override
+                String run() {
+                    setUpRendering();
+                    drawFrame(0, mData.getSize() - 1, 1);
+                    return describeCanvas();
+                }
+            });
+            measure("pan", new Stage() {
+                @Override
+                String run() {
+                    int size = mData.getSize();
+                    int span = Math.max((int) ((size - 1) * PAN_WINDOW), 1);
+                    long[] times = new long[mFrames];
+                    for (int f = 0; f < mFrames; f++) {
+                        int first = (int) ((long) (size - 1 - span) * f / Math.max(mFrames - 1, 1));
+                        long start = System.nanoTime();
+                        drawFrame(first, first + span, 1);
+                        times[f] = System.nanoTime() - start;
+                    }
+                    return describeFrames(times);
+                }
+            });
+            measure("zoom", new Stage() {
+                @Override
+                String run() {
+                    int size = mData.getSize();
+                    long[] times = new long[mFrames];
+                    for (int f = 0; f < mFrames; f++) {
+                        // Window shrinks exponentially around the middle, like pinch does.
+                        double window = Math.pow(MIN_ZOOM_WINDOW, (double) f / Math.max(mFrames - 1, 1));
+                        int span = Math.max((int) ((size - 1) * window), 1);
+                        int first = (size - 1 - span) / 2;
+                        long start = System.nanoTime();
+                        drawFrame(first, first + span, 1);
+                        times[f] = System.nanoTime() - start;
+                    }
+                    return describeFrames(times);
+                }
+            });
+            measure("toggle line", new Stage() {
+                @Override
+                String run() {
+                    ChartData.YData line = mData.getYValues().get(0);
+                    mData.setLineShown(line, false);
+                    mState.setToggledLines(Collections.singleton(line.getVarName()));
+                    long[] times = new long[mFrames];
+                    for (int f = 0; f < mFrames; f++) {
+                        long start = System.nanoTime();
+                        drawFrame(0, mData.getSize() - 1, (float) (f + 1) / mFrames);
+                        times[f] = System.nanoTime() - start;
+                    }
+                    mState.setToggledLines(Collections.<String>emptySet());
+                    if (mData.isStacked() || mData.isPercentage()) {
+                        mState.commitTotals();
+                    }
+                    return describeFrames(times);
+                }
+            });
+        } finally {
+            if (!mKeepFiles) {
+                json.delete();
+                snapshot.delete();
+            }
+        }
+        printReport();
+    }
+
+    /**
+     * Reads json mapped into memory, the same way app reads its assets. Json which is too large
+     * for a single mapped buffer is streamed from the file instead.
+     */
+    private static ChartData parse(File json) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(json, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            if (channel.size() > Integer.MAX_VALUE) {
+                return new JsonGraphReader().getChartDataFromJson(Channels.newInputStream(channel));
+            }
+            return new JsonGraphReader().getChartDataFromJson(
+                    channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } finally {
+            raf.close();
+        }
+    }
+
+    private void setUpRendering() {
+        int lines = mData.getYValues().size();
+        ChartPaint paint = new ChartPaint();
+        paint.setStyle(ChartRenderers.isFilled(mData) ? ChartPaint.STYLE_FILL_AND_STROKE : ChartPaint.STYLE_STROKE);
+        paint.setStrokeWidth(4);
+        mState = new RenderState();
+        mState.setChartData(mData, paint);
+        mState.setBand(0, HEIGHT);
+        mState.setToggledLines(Collections.<String>emptySet());
+        mRenderer = ChartRenderers.create(mData);
+        mMin = new long[lines];
+        mMax = new long[lines];
+        mStageBuilds = 0;
+    }
+
+    /**
+     * Sets the state the way chart view does for the visible points and draws the body.
+     */
+    private void drawFrame(int first, int last, float progress) {
+        int size = mData.getSize();
+        float pointStep = (float) WIDTH / (size - 1);
+        float scale = (float) (size - 1) / (mData.getXPositions().get(last) - mData.getXPositions().get(first));
+        mState.setProgress(progress);
+        mState.setX(first, last, pointStep, scale, mData.getXPositions().get(first) * pointStep,
+                SIDE_MARGIN, WIDTH);
+        updateYRanges(first, last);
+        mCanvas.reset();
+        synchronized (mData) {
+            mRenderer.draw(mCanvas, mState);
+        }
+    }
+
+    private void updateYRanges(int first, int last) {
+        mVisibleRange.setYRange(mData, first, last);
+        for (int axis = 0; axis < mVisibleRange.getAxisCount(); axis++) {
+            long min = mVisibleRange.getMin(axis);
+            long max = mVisibleRange.getMax(axis);
+            if (min >= max) {
+                // Nothing is shown, keep the previous range.
+                continue;
+            }
+            mState.setYRange(axis, mMin[axis], mMax[axis], min, max);
+            mMin[axis] = min;
+            mMax[axis] = max;
+        }
+    }
+
+    private String describeCanvas() {
+        return String.format(Locale.US, "%d ops, %d segments, %d vertices, %d geometry builds",
+                mCanvas.getOpCount(), mCanvas.getSegmentCount(), mCanvas.getVertexCount(),
+                mState.getGeometryBuildCount() - mStageBuilds);
+    }
+
+    private String describeFrames(long[] times) {
+        long[] sorted = times.clone();
+        Arrays.sort(sorted);
+        long total = 0;
+        for (long time : times) {
+            total += time;
+        }
+        return String.format(Locale.US, "frame avg %.2f ms, p95 %.2f ms, max %.2f ms; last %s",
+                total / 1e6 / times.length, sorted[(int) (sorted.length * 0.95)] / 1e6,
+                sorted[sorted.length - 1] / 1e6, describeCanvas());
+    }
+
+    private void measure(String name, Stage stage) throws Exception {
+        List<MemoryPoolMXBean> pools = getHeapPools();
+        System.gc();
+        long before = getUsedHeap(pools);
+        for (MemoryPoolMXBean pool : pools) {
+            pool.resetPeakUsage();
+        }
+        mStageBuilds = mState != null ? mState.getGeometryBuildCount() : 0;
+        long start = System.nanoTime();
+        String details = stage.run();
+        long time = System.nanoTime() - start;
+        long peak = 0;
+        for (MemoryPoolMXBean pool : pools) {
+            peak += pool.getPeakUsage().getUsed();
+        }
+        System.gc();
+        long retained = getUsedHeap(pools) - before;
+        String[] row = {name, String.format(Locale.US, "%.1f", time / 1e6), formatSize(peak),
+                (retained >= 0 ? "+" : "-") + formatSize(Math.abs(retained)), details};
+        mReport.add(row);
+        System.out.println(name + " done in " + row[1] + " ms");
+    }
+
+    private void printReport() {
+        System.out.println();
+        System.out.println(String.format(Locale.US, "%-16s %12s %12s %12s  %s",
+                "Stage", "Time, ms", "Peak heap", "Retained", "Details"));
+        for (String[] row : mReport) {
+            System.out.println(String.format(Locale.US, "%-16s %12s %12s %12s  %s",
+                    row[0], row[1], row[2], row[3], row[4]));
+        }
+    }
+
+    private static List<MemoryPoolMXBean> getHeapPools() {
+        List<MemoryPoolMXBean> pools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                pools.add(pool);
+            }
+        }
+        return pools;
+    }
+
+    private static long getUsedHeap(List<MemoryPoolMXBean> pools) {
+        long used = 0;
+        for (MemoryPoolMXBean pool : pools) {
+            used += pool.getUsage().getUsed();
+        }
+        return used;
+    }
+
+    private static String formatSize(long bytes) {
+        if (bytes < 1024 * 1024) {
+            return String.format(Locale.US, "%.1f KB", bytes / 1024.0);
+        }
+        return String.format(Locale.US, "%.1f MB", bytes / (1024.0 * 1024));
+    }
+
+    /**
+     * Stage of the load, returns details for the report.
+     */
+    private abstract static class Stage {
+        abstract String run() throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        ChartGenerator generator = new ChartGenerator();
+        File dir = new File("build/stress");
+        int frames = 120;
+        boolean keepFiles = false;
+        try {
+            List<String> rest = generator.parseArgs(Arrays.asList(args));
+            for (int i = 0; i < rest.size(); i++) {
+                String arg = rest.get(i);
+                switch (arg) {
+                    case "--dir":
+                        dir = new File(ChartGenerator.getValue(rest, ++i, arg));
+                        break;
+                    case "--frames":
+                        frames = Integer.parseInt(ChartGenerator.getValue(rest, ++i, arg));
+                        break;
+                    case "--keep":
+                        keepFiles = true;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + arg);
+                }
+            }
+            if (frames < 1) {
+                throw new IllegalArgumentException("Frames must be positive");
+            }
+            // Harness writes and reads the snapshot too.
+            generator.validateSnapshot();
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: StressHarness [--dir <dir>] [--frames <n>] [--keep] [chart options]\n"
+                    + "  --dir <dir>              where files are written, default build/stress\n"
+                    + "  --frames <n>             frames of pan, zoom and toggle stages, default 120\n"
+                    + "  --keep                   keep generated files");
+            ChartGenerator.printUsage();
+            System.exit(2);
+            return;
+        }
+        new StressHarness(generator, dir, frames, keepFiles).run();
+    }
+}
@@ -0,0 +1,261 @@
+package com.dimlix.tgcontest;
+
+import com.dimlix.tgcontest.model.ChartData;
+import com.dimlix.tgcontest.model.GraphData;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.List;
+
+/**
+ * Binary snapshot of parsed charts which is loaded without per-element parsing.
+ * <p>
+ * Layout, all numbers are little-endian:
+ * <pre>
+ * header:  int magic, int version, int charts count
+ * chart:   int flags, int lines count, x column, line * lines count
+ * line:    string var name, string alias, string type, string color, column
+ * string:  int bytes count or -1 for null, UTF-8 bytes
+ * column:  int values count, padding to 8 bytes, long * values count
+ * </pre>
+ * Columns are aligned, so they are copied from mapped file with a single bulk get.
+ */
+public class ChartSnapshot {
+    private static final int MAGIC = 0x53434754; // "TGCS"
+    public static final int VERSION = 1;
+
+    private static final int FLAG_DOUBLE_Y_AXIS = 1;
+    private static final int FLAG_STACKED = 1 << 1;
+    private static final int FLAG_PERCENTAGE = 1 << 2;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private ChartSnapshot() {
+    }
+
+    /**
+     * Writes snapshot through a small buffer, so that charts are not copied to heap as a whole.
+     *
+     * @throws IOException if file can't be written or snapshot would be too large to map
+     */
+    public static void write(GraphData data, File file) throws IOException {
+        List<ChartData> charts = data.getChartData();
+        long size = 12;
+        for (ChartData chart : charts) {
+            size = getColumnEnd(size + 8, chart.getXValues());
+            for (ChartData.YData line : chart.getYValues()) {
+                size += getStringSize(line.getVarName()) + getStringSize(line.getAlias())
+                        + getStringSize(line.getType()) + getStringSize(line.getColor());
+                size = getColumnEnd(size, line.getValues());
+            }
+        }
+        if (size > Integer.MAX_VALUE) {
+            // Single mapped buffer can't be larger.
+            throw new IOException("Snapshot of " + size + " bytes is too large to map");
+        }
+
+        FileOutputStream os = new FileOutputStream(file);
+        try {
+            Output output = new Output(os.getChannel());
+            output.putInt(MAGIC);
+            output.putInt(VERSION);
+            output.putInt(charts.size());
+            for (ChartData chart : charts) {
+                int flags = 0;
+                if (chart.isDoubleYAxis()) flags |= FLAG_DOUBLE_Y_AXIS;
+                if (chart.isStacked()) flags |= FLAG_STACKED;
+                if (chart.isPercentage()) flags |= FLAG_PERCENTAGE;
+                output.putInt(flags);
+                output.putInt(chart.getYValues().size());
+                output.putColumn(chart.getXValues());
+                for (ChartData.YData line : chart.getYValues()) {
+                    output.putString(line.getVarName());
+                    output.putString(line.getAlias());
+                    output.putString(line.getType());
+                    output.putString(line.getColor());
+                    output.putColumn(line.getValues());
+                }
+            }
+            output.flush();
+            os.getFD().sync();
+        } finally {
+            os.close();
+        }
+    }
+
+    /**
+     * @throws IOException if file can't be read or it is not a snapshot of current version
+     */
+    public static GraphData read(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return read(mapped);
+        } finally {
+            raf.close();
+        }
+    }
+
+    static GraphData read(ByteBuffer buffer) throws IOException {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Unsupported snapshot");
+            }
+            GraphData result = new GraphData();
+            int chartsCount = buffer.getInt();
+            // Snapshots are written for charts which are parsed, so there is at least one.
+            if (chartsCount <= 0) {
+                throw new IOException("Malformed snapshot");
+            }
+            for (int i = 0; i < chartsCount; i++) {
+                ChartData chart = new ChartData();
+                int flags = buffer.getInt();
+                int linesCount = buffer.getInt();
+                if (linesCount < 0) {
+                    throw new IOException("Malformed snapshot");
+                }
+                chart.setDoubleYAxis((flags & FLAG_DOUBLE_Y_AXIS) != 0);
+                chart.setStacked((flags & FLAG_STACKED) != 0);
+                chart.setPercentage((flags & FLAG_PERCENTAGE) != 0);
+                chart.setXValues(getColumn(buffer));
+                for (int k = 0; k < linesCount; k++) {
+                    String varName = getString(buffer);
+                    String alias = getString(buffer);
+                    String type = getString(buffer);
+                    String color = getString(buffer);
+                    chart.addYValues(new ChartData.YData(varName, alias, type, color, getColumn(buffer)));
+                }
+                result.addChartData(chart);
+            }
+            return result;
+        } catch (RuntimeException e) {
+            // Truncated or corrupted file.
+            throw new IOException("Malformed snapshot", e);
+        }
+    }
+
+    private static int getStringSize(String value) {
+        return value == null ? 4 : 4 + value.getBytes(UTF_8).length;
+    }
+
+    private static long getColumnEnd(long position, long[] values) {
+        return align(position + 4) + values.length * 8L;
+    }
+
+    private static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+
+    private static int align(int position) {
+        return (position + 7) & ~7;
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        checkRemaining(buffer, length);
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    private static long[] getColumn(ByteBuffer buffer) throws IOException {
+        int count = buffer.getInt();
+        buffer.position(align(buffer.position()));
+        if (count < 0 || (long) count * 8 > buffer.remaining()) {
+            throw new IOException("Malformed snapshot");
+        }
+        long[] values = new long[count];
+        buffer.asLongBuffer().get(values);
+        buffer.position(buffer.position() + values.length * 8);
+        return values;
+    }
+
+    /**
+     * Counts of corrupted file are checked before allocation, so that they can't run out of memory.
+     */
+    private static void checkRemaining(ByteBuffer buffer, long bytes) {
+        if (bytes < 0 || bytes > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+    }
+
+    /**
+     * Writes little-endian values to channel through a reused buffer and keeps file position
+     * for alignment of columns.
+     */
+    private static class Output {
+        private static final int BUFFER_SIZE = 64 * 1024;
+
+        private final FileChannel mChannel;
+        private final ByteBuffer mBuffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        private long mFlushed;
+
+        Output(FileChannel channel) {
+            mChannel = channel;
+        }
+
+        void putInt(int value) throws IOException {
+            ensure(4);
+            mBuffer.putInt(value);
+        }
+
+        void putString(String value) throws IOException {
+            if (value == null) {
+                putInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(UTF_8);
+            putInt(bytes.length);
+            for (int offset = 0; offset < bytes.length; ) {
+                ensure(1);
+                int count = Math.min(bytes.length - offset, mBuffer.remaining());
+                mBuffer.put(bytes, offset, count);
+                offset += count;
+            }
+        }
+
+        void putColumn(long[] values) throws IOException {
+            putInt(values.length);
+            long position = mFlushed + mBuffer.position();
+            ensure(8);
+            mBuffer.position(mBuffer.position() + (int) (align(position) - position));
+            for (int i = 0; i < values.length; ) {
+                ensure(8);
+                int count = Math.min(values.length - i, mBuffer.remaining() / 8);
+                mBuffer.asLongBuffer().put(values, i, count);
+                mBuffer.position(mBuffer.position() + count * 8);
+                i += count;
+            }
+        }
+
+        /**
+         * Flushes buffer unless it has room for the given number of bytes.
+         */
+        private void ensure(int bytes) throws IOException {
+            if (mBuffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        void flush() throws IOException {
+            mBuffer.flip();
+            while (mBuffer.hasRemaining()) {
+                mFlushed += mChannel.write(mBuffer);
+            }
+            mBuffer.clear();
+        }
+    }
+}
@@ -0,0 +1,556 @@
+package com.dimlix.tgcontest;
+
+import com.dimlix.tgcontest.model.ChartData;
+
+import org.json.JSONException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pull parser of chart json which reads UTF-8 bytes once and writes column values directly
+ * into primitive arrays, without building JSONObject tree and boxing every number.
+ * <p>
+ * Follows org.json semantics of the previous reader: only integer literals are taken from
+ * columns, first string of column is its id, columns are resolved with types, names and
+ * colors after whole chart object is read, so keys may come in any order.
+ */
+class JsonChartParser {
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    // Source of the next bytes when mBuffer is over, at most one of them is set.
+    private final InputStream mInput;
+    private final ByteBuffer mSource;
+    private byte[] mBuffer;
+    private int mPos;
+    private int mLimit;
+
+    // Reused between strings and columns of the same parser.
+    private char[] mChars = new char[64];
+    private long[] mValues = new long[1024];
+    // Value of the last integer read by readNumber.
+    private long mNumber;
+
+    JsonChartParser(InputStream input) {
+        mInput = input;
+        mSource = null;
+        mBuffer = new byte[BUFFER_SIZE];
+    }
+
+    /**
+     * Reads bytes between position and limit of the buffer, position is not changed. Heap
+     * buffer is read in place, direct or mapped one is copied chunk by chunk.
+     */
+    JsonChartParser(ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            mInput = null;
+            mSource = null;
+            mBuffer = buffer.array();
+            mPos = buffer.arrayOffset() + buffer.position();
+            mLimit = buffer.arrayOffset() + buffer.limit();
+        } else {
+            mInput = null;
+            mSource = buffer.duplicate();
+            mBuffer = new byte[BUFFER_SIZE];
+        }
+    }
+
+    /**
+     * Reads array of chart objects.
+     */
+    List<ChartData> readCharts() throws IOException, JSONException {
+        List<ChartData> result = new ArrayList<>();
+        expect('[');
+        if (peekToken() == ']') {
+            mPos++;
+        } else {
+            do {
+                result.add(readChart());
+            } while (nextSeparator(']'));
+        }
+        expectEnd();
+        return result;
+    }
+
+    /**
+     * Finds bounds of top-level array elements between position and limit of the buffer without
+     * parsing them, so that each chart can be parsed separately by
+     * {@link #JsonChartParser(ByteBuffer)}. Position of the buffer is not changed.
+     *
+     * @return pairs of element start and end (exclusive) indices in the buffer
+     */
+    static int[] splitArray(ByteBuffer buffer) throws JSONException {
+        int[] ranges = new int[16];
+        int count = 0;
+        int end = buffer.limit();
+        int pos = buffer.position();
+        while (pos < end && isWhitespace(buffer.get(pos))) pos++;
+        if (pos == end || buffer.get(pos) != '[') {
+            throw new JSONException("Expected '[' near byte " + pos);
+        }
+        pos++;
+        int depth = 0;
+        int elementStart = -1;
+        for (; pos < end; pos++) {
+            byte c = buffer.get(pos);
+            if (c == '"') {
+                if (elementStart < 0) elementStart = pos;
+                // Skip string, so brackets and commas inside it are not counted.
+                for (pos++; pos < end && buffer.get(pos) != '"'; pos++) {
+                    if (buffer.get(pos) == '\\') pos++;
+                }
+            } else if (c == '{' || c == '[') {
+                if (elementStart < 0) elementStart = pos;
+                depth++;
+            } else if (depth > 0 && (c == '}' || c == ']')) {
+                depth--;
+            } else if (depth == 0 && (c == ',' || c == ']')) {
+                if (elementStart >= 0) {
+                    if (count + 2 > ranges.length) {
+                        ranges = Arrays.copyOf(ranges, ranges.length * 2);
+                    }
+                    ranges[count++] = elementStart;
+                    ranges[count++] = trimEnd(buffer, elementStart, pos);
+                    elementStart = -1;
+                } else if (c == ',' || count > 0) {
+                    throw new JSONException("Empty array element near byte " + pos);
+                }
+                if (c == ']') {
+                    return Arrays.copyOf(ranges, count);
+                }
+            } else if (elementStart < 0 && !isWhitespace(c)) {
+                elementStart = pos;
+            }
+        }
+        throw new JSONException("Unterminated array");
+    }
+
+    private static int trimEnd(ByteBuffer buffer, int start, int end) {
+        while (end > start && isWhitespace(buffer.get(end - 1))) end--;
+        return end;
+    }
+
+    private static boolean isWhitespace(int c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+    }
+
+    /**
+     * Reads single chart object which must be the only value of the input.
+     */
+    ChartData readSingleChart() throws IOException, JSONException {
+        ChartData result = readChart();
+        expectEnd();
+        return result;
+    }
+
+    private ChartData readChart() throws IOException, JSONException {
+        Map<String, String> types = null;
+        Map<String, String> names = null;
+        Map<String, String> colors = null;
+        List<String> columnIds = new ArrayList<>();
+        List<long[]> columns = new ArrayList<>();
+        boolean doubleYAxis = false;
+        boolean stacked = false;
+        boolean percentage = false;
+
+        expect('{');
+        if (peekToken() == '}') {
+            mPos++;
+        } else {
+            do {
+                String key = readString();
+                expect(':');
+                switch (key) {
+                    case JsonGraphReader.Set.COLUMNS:
+                        readColumns(columnIds, columns);
+                        break;
+                    case JsonGraphReader.Set.TYPES:
+                        types = readKeyValueSet();
+                        break;
+                    case JsonGraphReader.Set.NAMES:
+                        names = readKeyValueSet();
+                        break;
+                    case JsonGraphReader.Set.COLORS:
+                        colors = readKeyValueSet();
+                        break;
+                    case JsonGraphReader.Set.Y_SCALED:
+                        doubleYAxis = readBoolean();
+                        break;
+                    case JsonGraphReader.Set.STACKED:
+                        stacked = readBoolean();
+                        break;
+                    case JsonGraphReader.Set.PERCENTAGE:
+                        percentage = readBoolean();
+                        break;
+                    default:
+                        skipValue();
+                }
+            } while (nextSeparator('}'));
+        }
+        if (types == null || names == null || colors == null) {
+            throw new JSONException("Chart must have " + JsonGraphReader.Set.TYPES + ", "
+                    + JsonGraphReader.Set.NAMES + " and " + JsonGraphReader.Set.COLORS);
+        }
+
+        ChartData chartData = new ChartData();
+        for (int i = 0; i < columns.size(); i++) {
+            String chartId = columnIds.get(i);
+            String type = types.get(chartId);
+            if (type == null) {
+                throw new JSONException("No type for column " + chartId);
+            }
+            switch (type) {
+                case ChartData.Type.BAR:
+                case ChartData.Type.AREA:
+                case ChartData.Type.LINE:
+                    chartData.addYValues(new ChartData.YData(chartId,
+                            names.get(chartId), type, colors.get(chartId), columns.get(i)));
+                    break;
+                case ChartData.Type.X:
+                    chartData.setXValues(columns.get(i));
+                    break;
+            }
+        }
+        chartData.setDoubleYAxis(doubleYAxis);
+        chartData.setStacked(stacked);
+        chartData.setPercentage(percentage);
+        return chartData;
+    }
+
+    private void readColumns(List<String> columnIds, List<long[]> columns)
+            throws IOException, JSONException {
+        expect('[');
+        if (peekToken() == ']') {
+            mPos++;
+            return;
+        }
+        do {
+            expect('[');
+            String chartId = "";
+            int count = 0;
+            if (peekToken() == ']') {
+                mPos++;
+            } else {
+                do {
+                    int c = peekToken();
+                    if (c == '"') {
+                        chartId = readString();
+                    } else if (c == '-' || (c >= '0' && c <= '9')) {
+                        if (readNumber()) {
+                            if (count == mValues.length) {
+                                mValues = Arrays.copyOf(mValues, count * 2);
+                            }
+                            mValues[count++] = mNumber;
+                        }
+                    } else {
+                        skipValue();
+                    }
+                } while (nextSeparator(']'));
+            }
+            columnIds.add(chartId);
+            columns.add(Arrays.copyOf(mValues, count));
+        } while (nextSeparator(']'));
+    }
+
+    private Map<String, String> readKeyValueSet() throws IOException, JSONException {
+        Map<String, String> result = new HashMap<>();
+        expect('{');
+        if (peekToken() == '}') {
+            mPos++;
+            return result;
+        }
+        do {
+            String key = readString();
+            expect(':');
+            result.put(key, readString());
+        } while (nextSeparator('}'));
+        return result;
+    }
+
+    private boolean readBoolean() throws IOException, JSONException {
+        int c = peekToken();
+        if (c == '"') {
+            String value = readString();
+            if (value.equalsIgnoreCase("true")) return true;
+            if (value.equalsIgnoreCase("false")) return false;
+            throw error("Expected boolean");
+        }
+        if (c == 't') {
+            expectLiteral("true");
+            return true;
+        }
+        expectLiteral("false");
+        return false;
+    }
+
+    /**
+     * Reads number literal. Numbers with fraction or exponent and the ones which do not fit
+     * into long are consumed but not returned, the same way org.json values of other types
+     * were ignored.
+     *
+     * @return true if number is integer and its value is stored to {@link #mNumber}
+     */
+    private boolean readNumber() throws IOException, JSONException {
+        boolean negative = false;
+        if (mBuffer[mPos] == '-') {
+            negative = true;
+            mPos++;
+        }
+        long result = 0;
+        boolean isInteger = true;
+        int digits = 0;
+        while (ensure()) {
+            int c = mBuffer[mPos];
+            if (c < '0' || c > '9') break;
+            int digit = c - '0';
+            // Accumulate negative value, so that Long.MIN_VALUE is also parsed.
+            if (result < (Long.MIN_VALUE + digit) / 10) {
+                isInteger = false;
+            } else {
+                result = result * 10 - digit;
+            }
+            digits++;
+            mPos++;
+        }
+        if (digits == 0) {
+            throw error("Expected number");
+        }
+        if (!negative && result == Long.MIN_VALUE) {
+            isInteger = false;
+        }
+        if (negative && result == 0) {
+            // org.json reads -0 as double.
+            isInteger = false;
+        }
+        while (ensure()) {
+            int c = mBuffer[mPos];
+            if ((c >= '0' && c <= '9') || c == '.' || c == 'e' || c == 'E' || c == '+' || c == '-') {
+                isInteger = false;
+                mPos++;
+            } else {
+                break;
+            }
+        }
+        mNumber = negative ? result : -result;
+        return isInteger;
+    }
+
+    private String readString() throws IOException, JSONException {
+        expect('"');
+        int length = 0;
+        while (true) {
+            if (!ensure()) throw error("Unterminated string");
+            int b = mBuffer[mPos++] & 0xFF;
+            if (b == '"') break;
+            int c;
+            if (b == '\\') {
+                if (!ensure()) throw error("Unterminated string");
+                int escaped = mBuffer[mPos++];
+                switch (escaped) {
+                    case '"':
+                    case '\\':
+                    case '/':
+                        c = escaped;
+                        break;
+                    case 'b':
+                        c = '\b';
+                        break;
+                    case 'f':
+                        c = '\f';
+                        break;
+                    case 'n':
+                        c = '\n';
+                        break;
+                    case 'r':
+                        c = '\r';
+                        break;
+                    case 't':
+                        c = '\t';
+                        break;
+                    case 'u':
+                        c = 0;
+                        for (int i = 0; i < 4; i++) {
+                            if (!ensure()) throw error("Unterminated string");
+                            int digit = Character.digit(mBuffer[mPos++], 16);
+                            if (digit < 0) throw error("Invalid escape");
+                            c = (c << 4) | digit;
+                        }
+                        break;
+                    default:
+                        throw error("Invalid escape");
+                }
+            } else if (b < 0x80) {
+                c = b;
+            } else {
+                int extra;
+                int min;
+                if (b >= 0xF8 || b < 0xC0) {
+                    throw error("Invalid UTF-8");
+                } else if (b >= 0xF0) {
+                    c = b & 0x07;
+                    extra = 3;
+                    min = 0x10000;
+                } else if (b >= 0xE0) {
+                    c = b & 0x0F;
+                    extra = 2;
+                    min = 0x800;
+                } else {
+                    c = b & 0x1F;
+                    extra = 1;
+                    min = 0x80;
+                }
+                for (int i = 0; i < extra; i++) {
+                    if (!ensure()) throw error("Unterminated string");
+                    int next = mBuffer[mPos++];
+                    if ((next & 0xC0) != 0x80) throw error("Invalid UTF-8");
+                    c = (c << 6) | (next & 0x3F);
+                }
+                // Overlong forms, surrogates and code points past Unicode range.
+                if (c < min || c > Character.MAX_CODE_POINT
+                        || (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE)) {
+                    throw error("Invalid UTF-8");
+                }
+            }
+            if (length + 2 > mChars.length) {
+                mChars = Arrays.copyOf(mChars, mChars.length * 2);
+            }
+            length += Character.toChars(c, mChars, length);
+        }
+        return new String(mChars, 0, length);
+    }
+
+    private void skipValue() throws IOException, JSONException {
+        int c = peekToken();
+        switch (c) {
+            case '"':
+                readString();
+                break;
+            case '{':
+                mPos++;
+                if (peekToken() == '}') {
+                    mPos++;
+                    break;
+                }
+                do {
+                    readString();
+                    expect(':');
+                    skipValue();
+                } while (nextSeparator('}'));
+                break;
+            case '[':
+                mPos++;
+                if (peekToken() == ']') {
+                    mPos++;
+                    break;
+                }
+                do {
+                    skipValue();
+                } while (nextSeparator(']'));
+                break;
+            case 't':
+                expectLiteral("true");
+                break;
+            case 'f':
+                expectLiteral("false");
+                break;
+            case 'n':
+                expectLiteral("null");
+                break;
+            case '-':
+            case '0':
+            case '1':
+            case '2':
+            case '3':
+            case '4':
+            case '5':
+            case '6':
+            case '7':
+            case '8':
+            case '9':
+                readNumber();
+                break;
+            default:
+                throw error("Unexpected character");
+        }
+    }
+
+    /**
+     * Reads separator between elements of object or array.
+     *
+     * @return true if next element follows, false if container is closed
+     */
+    private boolean nextSeparator(char close) throws IOException, JSONException {
+        int c = peekToken();
+        mPos++;
+        if (c == ',') return true;
+        if (c == close) return false;
+        throw error("Expected ',' or '" + close + "'");
+    }
+
+    private void expect(char expected) throws IOException, JSONException {
+        if (peekToken() != expected) {
+            throw error("Expected '" + expected + "'");
+        }
+        mPos++;
+    }
+
+    private void expectLiteral(String literal) throws IOException, JSONException {
+        for (int i = 0; i < literal.length(); i++) {
+            if (!ensure() || mBuffer[mPos] != literal.charAt(i)) {
+                throw error("Expected " + literal);
+            }
+            mPos++;
+        }
+    }
+
+    private void expectEnd() throws IOException, JSONException {
+        if (peekToken() != -1) {
+            throw error("Unexpected data after json");
+        }
+    }
+
+    /**
+     * Skips whitespaces.
+     *
+     * @return next byte without consuming it or -1 if input is over
+     */
+    private int peekToken() throws IOException {
+        while (ensure()) {
+            int c = mBuffer[mPos];
+            if (!isWhitespace(c)) {
+                return c;
+            }
+            mPos++;
+        }
+        return -1;
+    }
+
+    /**
+     * @return true if at least one byte is available at {@link #mPos}
+     */
+    private boolean ensure() throws IOException {
+        if (mPos < mLimit) return true;
+        int read;
+        if (mInput != null) {
+            read = mInput.read(mBuffer, 0, mBuffer.length);
+        } else if (mSource != null) {
+            read = Math.min(mSource.remaining(), mBuffer.length);
+            mSource.get(mBuffer, 0, read);
+        } else {
+            return false;
+        }
+        mPos = 0;
+        mLimit = Math.max(read, 0);
+        return read > 0;
+    }
+
+    private JSONException error(String message) {
+        return new JSONException(message + " near byte " + mPos);
+    }
+}
@@ -0,0 +1,176 @@
+package com.dimlix.tgcontest;
+
+import com.dimlix.tgcontest.model.ChartData;
+import com.dimlix.tgcontest.model.GraphData;
+
+import org.json.JSONException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+public class JsonGraphReader {
+    public @interface Set {
+        String COLUMNS = "columns";
+        String TYPES = "types";
+        String NAMES = "names";
+        String COLORS = "colors";
+        String Y_SCALED = "y_scaled";
+        String STACKED = "stacked";
+        String PERCENTAGE = "percentage";
+    }
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static ExecutorService sParseExecutor;
+
+    public GraphData getGraphDataFromJson(String json) {
+        return getGraphDataFromJson(json, false);
+    }
+
+    public GraphData getGraphDataFromJson(String json, boolean parallel) {
+        return getGraphDataFromJson(ByteBuffer.wrap(json.getBytes(UTF_8)), parallel);
+    }
+
+    public GraphData getGraphDataFromJson(byte[] json, boolean parallel) {
+        return getGraphDataFromJson(ByteBuffer.wrap(json), parallel);
+    }
+
+    /**
+     * Reads array of charts from UTF-8 bytes between position and limit of the buffer, mapped
+     * buffer is read without copying it to heap as a whole. Chart which can't be parsed is
+     * reported in {@link GraphData#getErrors()} and doesn't affect other charts.
+     *
+     * @param parallel parse charts of the array concurrently on a pool sized to available cores
+     */
+    public GraphData getGraphDataFromJson(ByteBuffer json, boolean parallel) {
+        GraphData data = new GraphData();
+        final ByteBuffer buffer = json.duplicate();
+        int[] ranges;
+        try {
+            ranges = JsonChartParser.splitArray(buffer);
+        } catch (JSONException e) {
+            data.addError(new GraphData.ChartError(-1, e));
+            return data;
+        }
+        int count = ranges.length / 2;
+        if (!parallel || count < 2) {
+            for (int i = 0; i < count; i++) {
+                try {
+                    data.addChartData(parseRange(buffer, ranges[2 * i], ranges[2 * i + 1]));
+                } catch (JSONException e) {
+                    data.addError(new GraphData.ChartError(i, e));
+                }
+            }
+            return data;
+        }
+
+        List<Future<ChartData>> results = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final int start = ranges[2 * i];
+            final int end = ranges[2 * i + 1];
+            results.add(getParseExecutor().submit(new Callable<ChartData>() {
+                @Override
+                public ChartData call() throws JSONException {
+                    return parseRange(buffer, start, end);
+                }
+            }));
+        }
+        // Futures are read in array order, so order of charts is kept.
+        for (int i = 0; i < count; i++) {
+            try {
+                data.addChartData(results.get(i).get());
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                data.addError(new GraphData.ChartError(i, cause instanceof Exception ? (Exception) cause : e));
+            } catch (InterruptedException e) {
+                for (int j = i; j < count; j++) {
+                    results.get(j).cancel(true);
+                    data.addError(new GraphData.ChartError(j, e));
+                }
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return data;
+    }
+
+    /**
+     * Parses chart between the given indices of the buffer, position of the buffer is not
+     * changed, so it may be shared by threads.
+     */
+    private static ChartData parseRange(ByteBuffer buffer, int start, int end) throws JSONException {
+        ByteBuffer chart = buffer.duplicate();
+        chart.limit(end);
+        chart.position(start);
+        try {
+            return new JsonChartParser(chart).readSingleChart();
+        } catch (IOException e) {
+            // Can't happen, all bytes are already in memory.
+            throw new JSONException(e.getMessage());
+        } catch (RuntimeException e) {
+            throw malformed(e);
+        }
+    }
+
+    /**
+     * Unexpected failure of the parser is reported as any other malformed chart, so that it
+     * doesn't abort reading of other charts.
+     */
+    private static JSONException malformed(RuntimeException e) {
+        JSONException error = new JSONException("Malformed chart: " + e);
+        error.initCause(e);
+        return error;
+    }
+
+    private static synchronized ExecutorService getParseExecutor() {
+        if (sParseExecutor == null) {
+            sParseExecutor = Executors.newFixedThreadPool(
+                    Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+                        @Override
+                        public Thread newThread(Runnable r) {
+                            Thread thread = new Thread(r, "ChartParser");
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+        }
+        return sParseExecutor;
+    }
+
+    public ChartData getChartDataFromJson(String json) throws JSONException {
+        return getChartDataFromJson(json.getBytes(UTF_8));
+    }
+
+    public ChartData getChartDataFromJson(byte[] json) throws JSONException {
+        return getChartDataFromJson(ByteBuffer.wrap(json));
+    }
+
+    /**
+     * Reads chart from UTF-8 bytes between position and limit of the buffer, mapped buffer is
+     * read in chunks without copying it to heap as a whole.
+     */
+    public ChartData getChartDataFromJson(ByteBuffer json) throws JSONException {
+        return parseRange(json, json.position(), json.limit());
+    }
+
+    /**
+     * Reads chart from UTF-8 stream without loading whole json into memory, stream is not closed.
+     */
+    public ChartData getChartDataFromJson(InputStream json) throws IOException, JSONException {
+        try {
+            return new JsonChartParser(json).readSingleChart();
+        } catch (RuntimeException e) {
+            throw malformed(e);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.dimlix.tgcontest.chart;
+
+import java.text.DecimalFormatSymbols;
+
+/**
+ * Number formatting for labels which are drawn on every frame. Formats write chars into
+ * caller's buffer instead of creating Formatter and String, buffers of {@link #MAX_LENGTH}
+ * fit any long.
+ */
+public class Utils {
+
+    public static final int MAX_LENGTH = 32;
+
+    private static char[] c = new char[]{'k', 'm', 'b', 't'};
+    private static final char GROUPING_SEPARATOR = DecimalFormatSymbols.getInstance().getGroupingSeparator();
+    private static final char DECIMAL_SEPARATOR = DecimalFormatSymbols.getInstance().getDecimalSeparator();
+
+    /**
+     * Writes value below 1000 as is, otherwise as thousands, millions etc. with two digits
+     * rounded half up, e.g. 1.23k.
+     *
+     * @return number of chars written
+     */
+    public static int coolFormat(long n, char[] buffer) {
+        if (n < 1000) return writeLong(n, false, buffer, 0);
+        int charPos = -1;
+        long divider = 1;
+        while (charPos < 3 && n / divider >= 1000) {
+            divider *= 1000;
+            charPos++;
+        }
+        long hundredthDivider = divider / 100;
+        long hundredths = n / hundredthDivider;
+        if ((n % hundredthDivider) * 2 >= hundredthDivider) {
+            hundredths++;
+        }
+        int length = writeHundredths(hundredths, '.', buffer, 0);
+        buffer[length++] = c[charPos];
+        return length;
+    }
+
+    /**
+     * Writes value with grouping separator of default locale, e.g. 1,234,567.
+     *
+     * @return number of chars written
+     */
+    public static int prettyFormat(long n, char[] buffer) {
+        return writeLong(n, true, buffer, 0);
+    }
+
+    /**
+     * Writes percent with two digits and decimal separator of default locale, e.g. 12.34 %.
+     *
+     * @param hundredths percent multiplied by 100, see {@link #getPercentHundredths(long, long)}
+     * @return number of chars written
+     */
+    public static int percentFormat(long hundredths, char[] buffer) {
+        int length = hundredthsFormat(hundredths, buffer);
+        buffer[length++] = ' ';
+        buffer[length++] = '%';
+        return length;
+    }
+
+    /**
+     * Writes value multiplied by 100 with two digits and decimal separator of default locale,
+     * e.g. 1234 as 12.34.
+     *
+     * @return number of chars written
+     */
+    public static int hundredthsFormat(long hundredths, char[] buffer) {
+        return writeHundredths(hundredths, DECIMAL_SEPARATOR, buffer, 0);
+    }
+
+    /**
+     * @return value / total percent multiplied by 100 and rounded half up, 0 if total is 0
+     */
+    public static long getPercentHundredths(long value, long total) {
+        if (total == 0) return 0;
+        return (long) Math.floor(10000d * value / total + 0.5);
+    }
+
+    private static int writeHundredths(long hundredths, char separator, char[] buffer, int offset) {
+        int length = offset;
+        if (hundredths < 0) {
+            buffer[length++] = '-';
+        }
+        // Work with negative value, so that Long.MIN_VALUE is also written.
+        long negative = hundredths < 0 ? hundredths : -hundredths;
+        length = writeLong(-(negative / 100), false, buffer, length);
+        int fraction = (int) -(negative % 100);
+        buffer[length++] = separator;
+        buffer[length++] = (char) ('0' + fraction / 10);
+        buffer[length++] = (char) ('0' + fraction % 10);
+        return length;
+    }
+
+    private static int writeLong(long value, boolean grouped, char[] buffer, int offset) {
+        int length = offset;
+        if (value < 0) {
+            buffer[length++] = '-';
+        }
+        long negative = value < 0 ? value : -value;
+        int digits = 1;
+        for (long v = negative / 10; v != 0; v /= 10) {
+            digits++;
+        }
+        int end = length + digits + (grouped ? (digits - 1) / 3 : 0);
+        int pos = end;
+        int written = 0;
+        long v = negative;
+        do {
+            if (grouped && written > 0 && written % 3 == 0) {
+                buffer[--pos] = GROUPING_SEPARATOR;
+            }
+            buffer[--pos] = (char) ('0' - v % 10);
+            v /= 10;
+            written++;
+        } while (v != 0);
+        return end;
+    }
+}
@@ -0,0 +1,150 @@
+package com.dimlix.tgcontest.chart;
+
+import com.dimlix.tgcontest.model.ChartData;
+import com.dimlix.tgcontest.model.MinMaxIndex;
+
+import java.util.List;
+
+/**
+ * Y range of points between the first and the last visible ones and step between X axis
+ * labels, shared by the chart, its preview and headless runs, so that all of them scale the
+ * chart the same way.
+ */
+public class VisibleRange {
+    /**
+     * Minimum of the axis which has no shown lines to take it from.
+     */
+    public static final long NO_MIN = Integer.MAX_VALUE;
+
+    private static final int LABELS_MIN = 3;
+    private static final int LABELS_MAX = 5;
+    // Points by which visible distance must change, so that labels don't blink on its border.
+    private static final int DISTANCE_THRESHOLD = 4;
+
+    private long[] mMin = new long[1];
+    private long[] mMax = new long[1];
+    private int mAxisCount;
+
+    private int mLabelStep = -1;
+    private int mPrevLabelStep = -1;
+    private int mPrevDistance;
+
+    /**
+     * Computes Y range of every axis for points from first to last, exclusive. Lines of chart
+     * with two Y axes have own axes whether they are shown or not. Otherwise all shown lines
+     * share the axis, stacked lines by the sum of their maximums, and bars and stacked charts
+     * are drawn from zero.
+     */
+    public void setYRange(ChartData data, int first, int last) {
+        List<ChartData.YData> lines = data.getYValues();
+        mAxisCount = data.isDoubleYAxis() ? lines.size() : 1;
+        if (mMin.length < mAxisCount) {
+            mMin = new long[mAxisCount];
+            mMax = new long[mAxisCount];
+        }
+        if (data.isDoubleYAxis()) {
+            for (int k = 0; k < lines.size(); k++) {
+                MinMaxIndex index = lines.get(k).getMinMaxIndex();
+                mMin[k] = Math.min(NO_MIN, index.getMin(first, last));
+                mMax[k] = Math.max(0, index.getMax(first, last));
+            }
+            return;
+        }
+        long min = NO_MIN;
+        long max = 0;
+        for (int k = 0; k < lines.size(); k++) {
+            ChartData.YData yData = lines.get(k);
+            // Bars and stacked areas are always drawn from zero.
+            if (yData.isBar() || data.isStacked()) min = 0;
+            if (!yData.isShown()) continue;
+            MinMaxIndex index = yData.getMinMaxIndex();
+            long lineMax = Math.max(0, index.getMax(first, last));
+            if (!yData.isBar() && !data.isStacked()) {
+                min = Math.min(min, index.getMin(first, last));
+            }
+            if (data.isStacked()) {
+                max += lineMax;
+            } else if (lineMax > max) {
+                max = lineMax;
+            }
+        }
+        mMin[0] = min;
+        mMax[0] = max;
+    }
+
+    /**
+     * @return 1 or number of lines if each of them has own axis
+     */
+    public int getAxisCount() {
+        return mAxisCount;
+    }
+
+    /**
+     * @return minimum of the axis or {@link #NO_MIN}
+     */
+    public long getMin(int axis) {
+        return mMin[axis];
+    }
+
+    /**
+     * @return maximum of the axis or 0 if there are no shown lines
+     */
+    public long getMax(int axis) {
+        return mMax[axis];
+    }
+
+    /**
+     * Selects step between X axis labels, a power of two points, so that from {@link #LABELS_MIN}
+     * to {@link #LABELS_MAX} labels are visible. Step is halved or doubled only, so that half of
+     * labels stay in place while the others fade in or out.
+     *
+     * @return true if step is changed
+     */
+    public boolean setLabelStep(int first, int last) {
+        int distance = last - first;
+        if (mLabelStep == -1) {
+            mLabelStep = Math.max(Integer.highestOneBit(distance / LABELS_MAX - 1) * 2, 1);
+            mPrevLabelStep = mLabelStep;
+            mPrevDistance = distance;
+        } else if (distance / mLabelStep < LABELS_MIN && mLabelStep > 1
+                && Math.abs(distance - mPrevDistance) > DISTANCE_THRESHOLD) {
+            mPrevLabelStep = mLabelStep;
+            mLabelStep /= 2;
+            return true;
+        } else if (distance / mLabelStep > LABELS_MAX
+                && Math.abs(distance - mPrevDistance) > DISTANCE_THRESHOLD) {
+            mPrevLabelStep = mLabelStep;
+            mLabelStep *= 2;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return step between labels in points
+     */
+    public int getLabelStep() {
+        return mLabelStep;
+    }
+
+    /**
+     * @return step before the last change, until {@link #commitLabelStep()}
+     */
+    public int getPrevLabelStep() {
+        return mPrevLabelStep;
+    }
+
+    /**
+     * @return whether labels are being removed, i.e. step is increased
+     */
+    public boolean isLabelStepIncreased() {
+        return mLabelStep > mPrevLabelStep;
+    }
+
+    /**
+     * Ends transition from previous step, e.g. when labels are faded.
+     */
+    public void commitLabelStep() {
+        mPrevLabelStep = mLabelStep;
+    }
+}
@@ -0,0 +1,63 @@
+package com.dimlix.tgcontest.chart.render;
+
+/**
+ * Top border of an area in chart space for {@link CachedRange}, one vertex per point or per
+ * bucket of points at the level of the state, see {@link RenderState#getLevel()}. Only the
+ * visible part of it is mapped to the view and closed to the bottom of the chart, so polygon
+ * which is drawn doesn't grow with the cached range.
+ */
+class AreaPolygon {
+    private float[] mTops = new float[0];
+    private int mCount;
+    private float[] mMapped = new float[0];
+    private int mMappedCount;
+
+    /**
+     * Starts new border of the given number of points.
+     */
+    void reset(int pointCount) {
+        int size = pointCount * 2;
+        if (mTops.length < size) {
+            // Leave room for zoom out, so that buffer is not grown on every frame.
+            mTops = new float[size + size / 2];
+            mMapped = new float[mTops.length + 4];
+        }
+        mCount = 0;
+    }
+
+    void add(float x, float y) {
+        mTops[mCount] = x;
+        mTops[mCount + 1] = y;
+        mCount += 2;
+    }
+
+    /**
+     * Maps visible points of the state to the view and closes them to its bottom.
+     *
+     * @param from point which the border starts from
+     */
+    void map(RenderState state, int from) {
+        int level = state.getLevel();
+        int first = (state.getFirstPoint() >> level) - (from >> level);
+        int last = Math.min((state.getLastPoint() >> level) - (from >> level), mCount / 2 - 1);
+        if (first < 0 || last <= first) {
+            mMappedCount = 0;
+            return;
+        }
+        int count = (last - first + 1) * 2;
+        System.arraycopy(mTops, first * 2, mMapped, 2, count);
+        state.mapPoints(mMapped, mMapped, 2, count / 2);
+        float bottom = state.getBottom();
+        mMapped[0] = mMapped[2];
+        mMapped[1] = bottom;
+        mMapped[count + 2] = mMapped[count];
+        mMapped[count + 3] = bottom;
+        mMappedCount = count + 4;
+    }
+
+    void draw(ChartCanvas canvas, ChartPaint paint) {
+        if (mMappedCount > 0) {
+            canvas.drawPolygon(mMapped, 0, mMappedCount, paint);
+        }
+    }
+}
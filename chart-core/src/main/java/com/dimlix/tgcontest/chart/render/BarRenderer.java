@@ -0,0 +1,153 @@
+package com.dimlix.tgcontest.chart.render;
+
+import com.dimlix.tgcontest.model.ChartData;
+import com.dimlix.tgcontest.model.MinMaxIndex;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Draws stacked bars, each bar is a vertical segment with stroke of bar width. Bottom of each
+ * bar is sum of shown lines below it, bars are always drawn from zero so min value doesn't
+ * shift stack offsets.
+ * <p>
+ * When several points fall into single pixel each bucket of the level is drawn as one bar of
+ * max values of the bucket, see {@link RenderState#getLevel()}.
+ * <p>
+ * Bars are computed in chart space for {@link CachedRange}, the visible ones are mapped to the
+ * view on each frame.
+ */
+public class BarRenderer implements ChartRenderer {
+    // Segment of point or bucket i is at (i - range from) * 4.
+    private float[][] mPoints;
+    private float[][] mMapped;
+    // Tops of bars of the lines below for each bucket of the range, to stack bucket bars.
+    private float[] mBucketBottoms = new float[0];
+    private final CachedRange mRange = new CachedRange();
+    private int mVersion = -1;
+
+    @Override
+    public void draw(ChartCanvas canvas, RenderState state) {
+        ChartData data = state.getData();
+        List<ChartData.YData> lines = data.getYValues();
+        if (mPoints == null) {
+            mPoints = new float[lines.size()][];
+            mMapped = new float[lines.size()][];
+        }
+        if (state.getLastPoint() <= state.getFirstPoint()) return;
+        boolean map = mVersion != state.getVersion();
+        mVersion = state.getVersion();
+        boolean fill = map && mRange.update(state);
+        if (fill && state.getLevel() > 0) {
+            startBuckets(state);
+        }
+        // First bar is at the point after the first visible one.
+        int offset = getOffset(state, state.getFirstPoint() + 1);
+        int count = getOffset(state, state.getLastPoint()) + 4 - offset;
+        boolean hasSelection = state.getSelectedPoint() >= 0;
+        for (int k = 0; k < lines.size(); k++) {
+            ChartData.YData yData = lines.get(k);
+            if (!yData.isBar() || !state.isVisible(k)) continue;
+            if (fill && state.getLevel() > 0) {
+                fillBuckets(state, k, yData);
+            } else if (fill) {
+                fillPoints(state, k, yData);
+            }
+            if (map) {
+                if (mMapped[k] == null || mMapped[k].length < mPoints[k].length) {
+                    mMapped[k] = new float[mPoints[k].length];
+                }
+                System.arraycopy(mPoints[k], offset, mMapped[k], offset, count);
+                state.mapPoints(mMapped[k], mMapped[k], offset, count / 2);
+            }
+            ChartPaint paint = state.getPaint(k);
+            paint.setAlpha(data.isStacked() ? 255 : state.getAlpha(k));
+            paint.setStrokeWidth(state.getXStep() * (1 << state.getLevel()) + 1);
+            paint.setDimmed(hasSelection);
+            canvas.drawLines(mMapped[k], offset, count, paint);
+            paint.setDimmed(false);
+        }
+    }
+
+    /**
+     * Draws selected bar above the dimmed ones, must follow {@link #draw}.
+     */
+    @Override
+    public void drawSelection(ChartCanvas canvas, RenderState state) {
+        int selected = state.getSelectedPoint();
+        // First bar is at the point after the first visible one.
+        if (selected <= state.getFirstPoint() || selected > state.getLastPoint() || mMapped == null) {
+            return;
+        }
+        int offset = getOffset(state, selected);
+        List<ChartData.YData> lines = state.getData().getYValues();
+        for (int k = 0; k < lines.size(); k++) {
+            if (!lines.get(k).isBar() || !state.isVisible(k)) continue;
+            canvas.drawLines(mMapped[k], offset, 4, state.getPaint(k));
+        }
+    }
+
+    private int getOffset(RenderState state, int point) {
+        int level = state.getLevel();
+        return ((point >> level) - (mRange.getFrom() >> level)) * 4;
+    }
+
+    private void fillPoints(RenderState state, int line, ChartData.YData yData) {
+        int first = mRange.getFrom();
+        int last = mRange.getTo();
+        float min = state.getMin(0, line);
+        float yStep = state.getYStep(0, line);
+        long[] values = yData.getValues();
+        float[] points = ensureCapacity(line, (last - first + 1) * 4);
+        int count = 0;
+        for (int i = first; i <= last; i++) {
+            float x = state.getPosition(i);
+            float bottom = state.getStackBottom(line, i, min, yStep);
+            points[count] = x;
+            points[count + 1] = bottom;
+            points[count + 2] = x;
+            points[count + 3] = bottom - state.getLayerHeight(line, values[i], min, yStep);
+            count += 4;
+        }
+    }
+
+    private void startBuckets(RenderState state) {
+        int size = (mRange.getTo() >> state.getLevel()) - (mRange.getFrom() >> state.getLevel()) + 1;
+        if (mBucketBottoms.length < size) {
+            mBucketBottoms = new float[size + size / 2];
+        }
+        Arrays.fill(mBucketBottoms, 0, size, state.getBottom());
+    }
+
+    /**
+     * Stacks bars of bucket maximums on top of the lines below, which must be filled before.
+     */
+    private void fillBuckets(RenderState state, int line, ChartData.YData yData) {
+        int level = state.getLevel();
+        int first = mRange.getFrom() >> level;
+        int last = mRange.getTo() >> level;
+        float min = state.getMin(0, line);
+        float yStep = state.getYStep(0, line);
+        MinMaxIndex index = yData.getMinMaxIndex();
+        float[] points = ensureCapacity(line, (last - first + 1) * 4);
+        int count = 0;
+        for (int bucket = first; bucket <= last; bucket++) {
+            float x = state.getBucketPosition(bucket);
+            float bottom = mBucketBottoms[bucket - first];
+            float top = bottom - state.getLayerHeight(line, index.getBucketMax(level, bucket), min, yStep);
+            points[count] = x;
+            points[count + 1] = bottom;
+            points[count + 2] = x;
+            points[count + 3] = top;
+            mBucketBottoms[bucket - first] = top;
+            count += 4;
+        }
+    }
+
+    private float[] ensureCapacity(int line, int size) {
+        if (mPoints[line] == null || mPoints[line].length < size) {
+            mPoints[line] = new float[size + size / 2];
+        }
+        return mPoints[line];
+    }
+}
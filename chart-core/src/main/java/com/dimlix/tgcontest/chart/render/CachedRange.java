@@ -0,0 +1,45 @@
+package com.dimlix.tgcontest.chart.render;
+
+/**
+ * Range of points which chart-space geometry of a renderer is computed for. While chart is
+ * panned range is the visible one extended by its length on both sides, so geometry is reused
+ * until visible points leave the range. When {@link RenderState#getGeometryVersion()} changes,
+ * e.g. on every frame of Y range animation, geometry can't be reused anyway, so only the
+ * visible points are computed.
+ */
+class CachedRange {
+    private int mGeometryVersion = -1;
+    private int mFrom;
+    private int mTo;
+
+    /**
+     * @return true if range is moved and geometry must be computed again for it
+     */
+    boolean update(RenderState state) {
+        int first = state.getFirstPoint();
+        int last = state.getLastPoint();
+        boolean sameGeometry = mGeometryVersion == state.getGeometryVersion();
+        if (sameGeometry && first >= mFrom && last <= mTo) {
+            return false;
+        }
+        if (sameGeometry) {
+            int span = last - first;
+            mFrom = Math.max(first - span, 0);
+            mTo = Math.min(last + span, state.getData().getSize() - 1);
+        } else {
+            mFrom = first;
+            mTo = last;
+        }
+        mGeometryVersion = state.getGeometryVersion();
+        state.onGeometryBuilt();
+        return true;
+    }
+
+    int getFrom() {
+        return mFrom;
+    }
+
+    int getTo() {
+        return mTo;
+    }
+}
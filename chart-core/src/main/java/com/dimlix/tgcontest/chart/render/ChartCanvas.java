@@ -0,0 +1,27 @@
+package com.dimlix.tgcontest.chart.render;
+
+/**
+ * Surface which renderers draw on. Android views draw through an adapter of
+ * {@code android.graphics.Canvas}, {@link RecordingCanvas} draws nothing and is used to render
+ * charts headless, e.g. in benchmarks.
+ * <p>
+ * Arrays passed to the canvas are reused by renderers, so canvas must not keep them.
+ */
+public interface ChartCanvas {
+    /**
+     * Draws separate segments, each 4 floats of the points are x and y of segment start and end.
+     *
+     * @param count number of floats to draw, multiple of 4
+     */
+    void drawLines(float[] points, int offset, int count, ChartPaint paint);
+
+    /**
+     * Fills polygon, each 2 floats of the points are x and y of a vertex, the last vertex is
+     * connected to the first one.
+     *
+     * @param count number of floats to draw, multiple of 2
+     */
+    void drawPolygon(float[] points, int offset, int count, ChartPaint paint);
+
+    void drawRect(float left, float top, float right, float bottom, ChartPaint paint);
+}
@@ -0,0 +1,92 @@
+package com.dimlix.tgcontest.chart.render;
+
+/**
+ * Style of a chart line which platform canvas translates into its own paint. Renderers change
+ * alpha and stroke of paints of their {@link RenderState} while drawing, so paint is owned by
+ * the state and is not shared between threads.
+ */
+public class ChartPaint {
+    public static final int STYLE_STROKE = 0;
+    public static final int STYLE_FILL = 1;
+    public static final int STYLE_FILL_AND_STROKE = 2;
+
+    private int mColor = 0xFF000000;
+    private float mStrokeWidth = 1;
+    private int mStyle = STYLE_STROKE;
+    private boolean mDimmed;
+
+    public ChartPaint() {
+    }
+
+    public ChartPaint(ChartPaint paint) {
+        mColor = paint.mColor;
+        mStrokeWidth = paint.mStrokeWidth;
+        mStyle = paint.mStyle;
+        mDimmed = paint.mDimmed;
+    }
+
+    /**
+     * @return ARGB color including alpha
+     */
+    public int getColor() {
+        return mColor;
+    }
+
+    public void setColor(int color) {
+        mColor = color;
+    }
+
+    public int getAlpha() {
+        return mColor >>> 24;
+    }
+
+    public void setAlpha(int alpha) {
+        mColor = (mColor & 0x00FFFFFF) | (alpha << 24);
+    }
+
+    public float getStrokeWidth() {
+        return mStrokeWidth;
+    }
+
+    public void setStrokeWidth(float strokeWidth) {
+        mStrokeWidth = strokeWidth;
+    }
+
+    /**
+     * @return one of STYLE_ constants
+     */
+    public int getStyle() {
+        return mStyle;
+    }
+
+    public void setStyle(int style) {
+        mStyle = style;
+    }
+
+    /**
+     * @return whether shape is drawn faded, e.g. bars which are not selected
+     */
+    public boolean isDimmed() {
+        return mDimmed;
+    }
+
+    public void setDimmed(boolean dimmed) {
+        mDimmed = dimmed;
+    }
+
+    /**
+     * Parses color of chart json, #RRGGBB or #AARRGGBB.
+     */
+    public static int parseColor(String color) {
+        if (color == null || color.length() < 2 || color.charAt(0) != '#') {
+            throw new IllegalArgumentException("Unknown color " + color);
+        }
+        long value = Long.parseLong(color.substring(1), 16);
+        if (color.length() == 7) {
+            return (int) (value | 0xFF000000L);
+        } else if (color.length() == 9) {
+            return (int) value;
+        }
+        throw new IllegalArgumentException("Unknown color " + color);
+    }
+}
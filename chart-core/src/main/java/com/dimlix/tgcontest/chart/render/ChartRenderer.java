@@ -0,0 +1,17 @@
+package com.dimlix.tgcontest.chart.render;
+
+/**
+ * Draws lines of one chart type. Renderer keeps geometry of the last frame and recomputes it
+ * only when {@link RenderState#getVersion()} changes, so each view uses its own instance.
+ */
+public interface ChartRenderer {
+    /**
+     * Draws the chart body, it depends only on the state version, so it can be cached.
+     */
+    void draw(ChartCanvas canvas, RenderState state);
+
+    /**
+     * Draws highlight of {@link RenderState#getSelectedPoint()} above the body.
+     */
+    void drawSelection(ChartCanvas canvas, RenderState state);
+}
@@ -0,0 +1,73 @@
+package com.dimlix.tgcontest.chart.render;
+
+import com.dimlix.tgcontest.model.ChartData;
+
+public class ChartRenderers {
+
+    private ChartRenderers() {
+    }
+
+    /**
+     * @return new renderer for type of the chart
+     */
+    public static ChartRenderer create(ChartData data) {
+        if (data.isDoubleYAxis()) {
+            return new DualAxisRenderer();
+        }
+        if (data.isPercentage()) {
+            return new PercentageRenderer();
+        }
+        boolean hasBars = false;
+        boolean hasLines = false;
+        for (ChartData.YData yData : data.getYValues()) {
+            if (yData.isBar()) {
+                hasBars = true;
+            } else {
+                hasLines = true;
+            }
+        }
+        if (!hasBars && data.isStacked() && isArea(data)) {
+            return new StackedAreaRenderer();
+        }
+        if (!hasBars) {
+            return new LineRenderer();
+        }
+        if (!hasLines) {
+            return new BarRenderer();
+        }
+        return new BarsWithLinesRenderer();
+    }
+
+    /**
+     * @return true if lines of the chart are filled areas rather than strokes
+     */
+    public static boolean isFilled(ChartData data) {
+        return data.isPercentage() || (data.isStacked() && isArea(data));
+    }
+
+    private static boolean isArea(ChartData data) {
+        for (ChartData.YData yData : data.getYValues()) {
+            if (!yData.isArea()) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Chart which has both bars and lines, lines are drawn above bars.
+     */
+    private static class BarsWithLinesRenderer implements ChartRenderer {
+        private final BarRenderer mBars = new BarRenderer();
+        private final LineRenderer mLines = new LineRenderer();
+
+        @Override
+        public void draw(ChartCanvas canvas, RenderState state) {
+            mBars.draw(canvas, state);
+            mLines.draw(canvas, state);
+        }
+
+        @Override
+        public void drawSelection(ChartCanvas canvas, RenderState state) {
+            mBars.drawSelection(canvas, state);
+        }
+    }
+}
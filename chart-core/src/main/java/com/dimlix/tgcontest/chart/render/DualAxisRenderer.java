@@ -0,0 +1,12 @@
+package com.dimlix.tgcontest.chart.render;
+
+/**
+ * Draws lines where each line has its own Y axis.
+ */
+public class DualAxisRenderer extends LineRenderer {
+
+    @Override
+    protected int getAxis(int line) {
+        return line;
+    }
+}
@@ -0,0 +1,154 @@
+package com.dimlix.tgcontest.chart.render;
+
+import com.dimlix.tgcontest.model.ChartData;
+import com.dimlix.tgcontest.model.MinMaxIndex;
+
+import java.util.List;
+
+/**
+ * Draws lines in the single Y axis. When several points fall into single pixel min/max
+ * buckets of {@link MinMaxIndex} are drawn instead of raw values.
+ * <p>
+ * Segments are computed in chart space for {@link CachedRange} and only their visible part is
+ * mapped to the view on each frame, so panning doesn't query values again.
+ */
+public class LineRenderer implements ChartRenderer {
+    // Segments of each line in chart space for canvas.drawLines, see addPoint.
+    private float[][] mPoints;
+    private int[] mCounts;
+    // Visible segments of each line mapped to the view.
+    private float[][] mMapped;
+    private int[] mMappedOffsets;
+    private int[] mMappedCounts;
+    private final CachedRange mRange = new CachedRange();
+    private int mVersion = -1;
+
+    @Override
+    public void draw(ChartCanvas canvas, RenderState state) {
+        List<ChartData.YData> lines = state.getData().getYValues();
+        if (mPoints == null) {
+            mPoints = new float[lines.size()][];
+            mCounts = new int[lines.size()];
+            mMapped = new float[lines.size()][];
+            mMappedOffsets = new int[lines.size()];
+            mMappedCounts = new int[lines.size()];
+        }
+        boolean map = mVersion != state.getVersion();
+        mVersion = state.getVersion();
+        boolean fill = map && mRange.update(state);
+        for (int k = 0; k < lines.size(); k++) {
+            ChartData.YData yData = lines.get(k);
+            if (yData.isBar() || !state.isVisible(k)) continue;
+            if (fill) {
+                fillPoints(state, k, yData);
+            }
+            if (map) {
+                mapVisiblePoints(state, k);
+            }
+            ChartPaint paint = state.getPaint(k);
+            paint.setAlpha(state.getAlpha(k));
+            canvas.drawLines(mMapped[k], mMappedOffsets[k], mMappedCounts[k], paint);
+        }
+    }
+
+    @Override
+    public void drawSelection(ChartCanvas canvas, RenderState state) {
+        // Touched points of lines are marked by the view.
+    }
+
+    /**
+     * @return axis which the line is drawn in
+     */
+    protected int getAxis(int line) {
+        return 0;
+    }
+
+    private void fillPoints(RenderState state, int line, ChartData.YData yData) {
+        int first = mRange.getFrom();
+        int last = mRange.getTo();
+        int level = state.getLevel();
+        int axis = getAxis(line);
+        float min = state.getMin(axis, line);
+        float yStep = state.getYStep(axis, line);
+        float bottom = state.getBottom();
+        long[] values = yData.getValues();
+        float[] positions = state.getData().getXPositions().getPositions();
+        int count = 0;
+        if (level == 0) {
+            float[] points = ensureCapacity(line, (last - first + 1) * 4);
+            for (int i = first; i <= last; i++) {
+                count = addPoint(points, count, positions[i], bottom - (values[i] - min) * yStep);
+            }
+            mCounts[line] = count;
+            return;
+        }
+        MinMaxIndex index = yData.getMinMaxIndex();
+        float[] points = ensureCapacity(line, ((last >> level) - (first >> level) + 1) * 8);
+        for (int bucket = first >> level; bucket <= last >> level; bucket++) {
+            float x = state.getBucketPosition(bucket);
+            float yMin = bottom - (index.getBucketMin(level, bucket) - min) * yStep;
+            float yMax = bottom - (index.getBucketMax(level, bucket) - min) * yStep;
+            // Start from the value which is closer to the previous one to avoid extra zigzags.
+            if (count > 0 && Math.abs(points[count - 1] - yMax) < Math.abs(points[count - 1] - yMin)) {
+                count = addPoint(points, count, x, yMax);
+                count = addPoint(points, count, x, yMin);
+            } else {
+                count = addPoint(points, count, x, yMin);
+                count = addPoint(points, count, x, yMax);
+            }
+        }
+        mCounts[line] = count;
+    }
+
+    /**
+     * Maps segments between visible points, points of the level are either values or pairs
+     * of bucket min and max.
+     */
+    private void mapVisiblePoints(RenderState state, int line) {
+        int level = state.getLevel();
+        int from = mRange.getFrom();
+        int firstVertex;
+        int lastVertex;
+        if (level == 0) {
+            firstVertex = state.getFirstPoint() - from;
+            lastVertex = state.getLastPoint() - from;
+        } else {
+            firstVertex = 2 * ((state.getFirstPoint() >> level) - (from >> level));
+            lastVertex = 2 * ((state.getLastPoint() >> level) - (from >> level)) + 1;
+        }
+        lastVertex = Math.min(lastVertex, (mCounts[line] + 2) / 4 - 1);
+        int count = Math.max(lastVertex - firstVertex, 0) * 4;
+        int offset = count > 0 ? firstVertex * 4 : 0;
+        if (mMapped[line] == null || mMapped[line].length < mPoints[line].length) {
+            mMapped[line] = new float[mPoints[line].length];
+        }
+        System.arraycopy(mPoints[line], offset, mMapped[line], offset, count);
+        state.mapPoints(mMapped[line], mMapped[line], offset, count / 2);
+        mMappedOffsets[line] = offset;
+        mMappedCounts[line] = count;
+    }
+
+    private float[] ensureCapacity(int line, int size) {
+        if (mPoints[line] == null || mPoints[line].length < size) {
+            // Leave room for zoom out, so that buffer is not grown on every frame.
+            mPoints[line] = new float[size + size / 2];
+        }
+        return mPoints[line];
+    }
+
+    /**
+     * Adds point so that it ends previous segment and starts the next one.
+     */
+    private static int addPoint(float[] points, int count, float x, float y) {
+        if (count == 0) {
+            points[0] = x;
+            points[1] = y;
+            return 2;
+        }
+        points[count] = x;
+        points[count + 1] = y;
+        points[count + 2] = x;
+        points[count + 3] = y;
+        return count + 4;
+    }
+}
@@ -0,0 +1,139 @@
+package com.dimlix.tgcontest.chart.render;
+
+import com.dimlix.tgcontest.model.ChartData;
+
+import java.util.List;
+
+/**
+ * Draws stacked areas which share of each point total. First shown line is at the top and
+ * fills the whole band, polygon of each next line is its top border closed to the bottom.
+ * <p>
+ * While line is toggled totals are animated from the previous ones, see
+ * {@link RenderState#commitTotals()}.
+ * <p>
+ * When several points fall into single pixel shares are taken from max values of each bucket
+ * of the level instead, see {@link RenderState#getLevel()}.
+ * <p>
+ * Borders are computed in chart space for {@link CachedRange}, their visible part is mapped to
+ * the view on each frame, see {@link AreaPolygon}.
+ */
+public class PercentageRenderer implements ChartRenderer {
+    // Polygon of line k is drawn with paint of the next shown line, the last line needs none.
+    private AreaPolygon[] mPolygons;
+    private int mFirstShown;
+    private final CachedRange mRange = new CachedRange();
+    private int mVersion = -1;
+
+    @Override
+    public void draw(ChartCanvas canvas, RenderState state) {
+        List<ChartData.YData> lines = state.getData().getYValues();
+        if (mPolygons == null) {
+            mPolygons = new AreaPolygon[lines.size() - 1];
+            for (int k = 0; k < mPolygons.length; k++) {
+                mPolygons[k] = new AreaPolygon();
+            }
+        }
+        if (mVersion != state.getVersion()) {
+            mVersion = state.getVersion();
+            if (mRange.update(state)) {
+                fillBorders(state, lines);
+            }
+            for (int k = mFirstShown; k < mPolygons.length; k++) {
+                if (state.isVisible(k)) {
+                    mPolygons[k].map(state, mRange.getFrom());
+                }
+            }
+        }
+
+        canvas.drawRect(state.getPointX(state.getFirstPoint()), state.getTop(),
+                state.getPointX(state.getLastPoint()), state.getBottom(), state.getPaint(mFirstShown));
+        for (int k = mFirstShown; k < mPolygons.length; k++) {
+            if (!state.isVisible(k)) continue;
+            for (int next = k + 1; next < lines.size(); next++) {
+                if (state.isVisible(next)) {
+                    mPolygons[k].draw(canvas, state.getPaint(next));
+                    break;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void drawSelection(ChartCanvas canvas, RenderState state) {
+    }
+
+    private void fillBorders(RenderState state, List<ChartData.YData> lines) {
+        mFirstShown = 0;
+        for (int k = 0; k < lines.size(); k++) {
+            if (state.isVisible(k)) {
+                mFirstShown = k;
+                break;
+            }
+        }
+        if (mFirstShown >= mPolygons.length) {
+            return;
+        }
+
+        if (state.getLevel() > 0) {
+            fillBucketBorders(state, lines);
+            return;
+        }
+        int first = mRange.getFrom();
+        int last = mRange.getTo();
+        float top = state.getTop();
+        float height = state.getBottom() - top;
+        float progress = state.getProgress();
+        long[] totals = state.getData().getStackOffsets().getTotals();
+        long[] prevTotals = state.getPrevTotals();
+
+        for (AreaPolygon polygon : mPolygons) {
+            polygon.reset(last - first + 1);
+        }
+        for (int i = first; i <= last; i++) {
+            long total = (long) (prevTotals[i] + (totals[i] - prevTotals[i]) * progress);
+            float x = state.getPosition(i);
+            float y = top;
+            for (int k = mFirstShown; k < mPolygons.length; k++) {
+                if (!state.isVisible(k)) continue;
+                // Point without values has no shares, its borders stay at the top.
+                if (total > 0) {
+                    y += height * state.getToggleScale(k) * lines.get(k).getValues()[i] / total;
+                }
+                mPolygons[k].add(x, y);
+            }
+        }
+    }
+
+    /**
+     * Fills borders from shares of bucket maximums, toggled lines take their part of it.
+     */
+    private void fillBucketBorders(RenderState state, List<ChartData.YData> lines) {
+        int level = state.getLevel();
+        int first = mRange.getFrom() >> level;
+        int last = mRange.getTo() >> level;
+        float top = state.getTop();
+        float height = state.getBottom() - top;
+
+        for (AreaPolygon polygon : mPolygons) {
+            polygon.reset(last - first + 1);
+        }
+        for (int bucket = first; bucket <= last; bucket++) {
+            float total = 0;
+            for (int k = mFirstShown; k < lines.size(); k++) {
+                if (!state.isVisible(k)) continue;
+                total += state.getToggleScale(k) * lines.get(k).getMinMaxIndex().getBucketMax(level, bucket);
+            }
+            // Bucket without values has no shares, its borders stay at the top.
+            float valueHeight = total > 0 ? height / total : 0;
+            float x = state.getBucketPosition(bucket);
+            float y = top;
+            for (int k = mFirstShown; k < mPolygons.length; k++) {
+                if (!state.isVisible(k)) continue;
+                y += valueHeight * state.getToggleScale(k)
+                        * lines.get(k).getMinMaxIndex().getBucketMax(level, bucket);
+                mPolygons[k].add(x, y);
+            }
+        }
+    }
+
+}
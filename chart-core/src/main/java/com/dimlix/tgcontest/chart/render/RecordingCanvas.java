@@ -0,0 +1,142 @@
+package com.dimlix.tgcontest.chart.render;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Canvas which draws nothing and counts what renderers draw, so charts can be rendered on any
+ * JVM, e.g. to measure cost of geometry or to compare output of two versions by checksum.
+ * Operations themselves are kept only if asked, as they copy the points.
+ */
+public class RecordingCanvas implements ChartCanvas {
+    public static final int OP_LINES = 0;
+    public static final int OP_POLYGON = 1;
+    public static final int OP_RECT = 2;
+
+    private final boolean mKeepOps;
+    private final List<Op> mOps = new ArrayList<>();
+    private int mOpCount;
+    private long mSegmentCount;
+    private long mVertexCount;
+    private long mChecksum;
+
+    public RecordingCanvas() {
+        this(false);
+    }
+
+    /**
+     * @param keepOps whether to keep copy of every operation, see {@link #getOps()}
+     */
+    public RecordingCanvas(boolean keepOps) {
+        mKeepOps = keepOps;
+    }
+
+    @Override
+    public void drawLines(float[] points, int offset, int count, ChartPaint paint) {
+        mSegmentCount += count / 4;
+        record(OP_LINES, points, offset, count, paint);
+    }
+
+    @Override
+    public void drawPolygon(float[] points, int offset, int count, ChartPaint paint) {
+        mVertexCount += count / 2;
+        record(OP_POLYGON, points, offset, count, paint);
+    }
+
+    @Override
+    public void drawRect(float left, float top, float right, float bottom, ChartPaint paint) {
+        float[] points = {left, top, right, bottom};
+        record(OP_RECT, points, 0, points.length, paint);
+    }
+
+    /**
+     * @return number of draw calls
+     */
+    public int getOpCount() {
+        return mOpCount;
+    }
+
+    public long getSegmentCount() {
+        return mSegmentCount;
+    }
+
+    /**
+     * @return number of vertices of all polygons
+     */
+    public long getVertexCount() {
+        return mVertexCount;
+    }
+
+    /**
+     * @return hash of all operations with their points and paints in the order they were drawn
+     */
+    public long getChecksum() {
+        return mChecksum;
+    }
+
+    /**
+     * @return kept operations, empty unless canvas was created to keep them
+     */
+    public List<Op> getOps() {
+        return Collections.unmodifiableList(mOps);
+    }
+
+    public void reset() {
+        mOps.clear();
+        mOpCount = 0;
+        mSegmentCount = 0;
+        mVertexCount = 0;
+        mChecksum = 0;
+    }
+
+    private void record(int type, float[] points, int offset, int count, ChartPaint paint) {
+        mOpCount++;
+        long hash = mChecksum * 31 + type;
+        hash = hash * 31 + paint.getColor();
+        hash = hash * 31 + Float.floatToIntBits(paint.getStrokeWidth());
+        hash = hash * 31 + (paint.isDimmed() ? 1 : 0);
+        for (int i = offset; i < offset + count; i++) {
+            hash = hash * 31 + Float.floatToIntBits(points[i]);
+        }
+        mChecksum = hash;
+        if (mKeepOps) {
+            float[] copy = new float[count];
+            System.arraycopy(points, offset, copy, 0, count);
+            mOps.add(new Op(type, copy, new ChartPaint(paint)));
+        }
+    }
+
+    /**
+     * Copy of a single draw call.
+     */
+    public static final class Op {
+        private final int mType;
+        private final float[] mPoints;
+        private final ChartPaint mPaint;
+
+        private Op(int type, float[] points, ChartPaint paint) {
+            mType = type;
+            mPoints = points;
+            mPaint = paint;
+        }
+
+        /**
+         * @return one of OP_ constants
+         */
+        public int getType() {
+            return mType;
+        }
+
+        /**
+         * @return points of the operation, left, top, right and bottom for rect
+         */
+        public float[] getPoints() {
+            return mPoints;
+        }
+
+        public ChartPaint getPaint() {
+            return mPaint;
+        }
+    }
+}
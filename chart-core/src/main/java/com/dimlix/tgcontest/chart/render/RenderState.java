@@ -0,0 +1,512 @@
+package com.dimlix.tgcontest.chart.render;
+
+import com.dimlix.tgcontest.model.ChartData;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * State of the chart which renderers draw: data and paints of lines, visible points and their
+ * mapping to view coordinates, value ranges of Y axes and progress of lines toggle.
+ * <p>
+ * X is linear by position of the point, see {@link com.dimlix.tgcontest.model.XPositions},
+ * and values are mapped into vertical band [top, bottom]. Range of
+ * each axis is animated from previous to target one with the toggle progress.
+ * <p>
+ * Version of the state changes only when the chart body changes, so renderers keep points
+ * computed for the previous frame and views can cache the body while chart is redrawn for
+ * other reasons, e.g. when only overlay of the view is changed.
+ * <p>
+ * Renderers compute geometry in chart space, where x is position of the point and y is already
+ * in view coordinates. It depends on {@link #getGeometryVersion()} only, so it is reused while
+ * chart is panned or zoomed within the same level and mapped with {@link #mapPoints}.
+ * <p>
+ * State is not thread-safe, to draw it on another thread hand over {@link #snapshot()} and
+ * {@link #apply(Snapshot)} it to the state owned by that thread.
+ */
+public class RenderState {
+    private ChartData mData;
+    private float[] mPositions;
+    private ChartPaint[] mPaints;
+    private boolean[] mShown;
+    private boolean[] mToggled;
+    // Indexes of toggled lines in ascending order.
+    private int[] mToggledLines;
+    private int mToggledCount;
+    private float mProgress = 1;
+    private boolean mPinToggledLines;
+
+    private int mFirstPoint;
+    private int mLastPoint;
+    private float mXStep;
+    private float mXOffset;
+    private int mLevel;
+    private float mTop;
+    private float mBottom;
+
+    private long[] mPrevMin;
+    private long[] mPrevMax;
+    private long[] mTargetMin;
+    private long[] mTargetMax;
+    // Totals of stacked lines before current toggle.
+    private long[] mPrevTotals;
+
+    private int mSelectedPoint = -1;
+
+    private int mVersion;
+    private int mGeometryVersion;
+    private int mGeometryBuildCount;
+
+    /**
+     * @param paint style of lines, each line gets own copy of it with color of the line
+     */
+    public void setChartData(ChartData data, ChartPaint paint) {
+        List<ChartData.YData> lines = data.getYValues();
+        int count = lines.size();
+        mData = data;
+        mPositions = data.getXPositions().getPositions();
+        mPaints = new ChartPaint[count];
+        for (int k = 0; k < count; k++) {
+            String color = lines.get(k).getColor();
+            if (color == null) {
+                throw new RuntimeException("There is no color info for " + lines.get(k).getVarName());
+            }
+            mPaints[k] = new ChartPaint(paint);
+            mPaints[k].setColor(ChartPaint.parseColor(color));
+        }
+        mShown = new boolean[count];
+        mToggled = new boolean[count];
+        mToggledLines = new int[count];
+        mToggledCount = 0;
+        mPrevMin = new long[count];
+        mPrevMax = new long[count];
+        mTargetMin = new long[count];
+        mTargetMax = new long[count];
+        mPrevTotals = data.isStacked() || data.isPercentage()
+                ? data.getStackOffsets().getTotals().clone()
+                : null;
+        mSelectedPoint = -1;
+        mVersion++;
+        mGeometryVersion++;
+    }
+
+    /**
+     * Updates shown and toggled lines, must be called on every frame before drawing.
+     *
+     * @param toggled var names of lines which are being toggled
+     */
+    public void setToggledLines(Set<String> toggled) {
+        List<ChartData.YData> lines = mData.getYValues();
+        int count = 0;
+        for (int k = 0; k < lines.size(); k++) {
+            ChartData.YData yData = lines.get(k);
+            boolean shown = yData.isShown();
+            boolean isToggled = !toggled.isEmpty() && toggled.contains(yData.getVarName());
+            if (mShown[k] != shown || mToggled[k] != isToggled) {
+                mShown[k] = shown;
+                mToggled[k] = isToggled;
+                mVersion++;
+                mGeometryVersion++;
+            }
+            if (isToggled) {
+                mToggledLines[count++] = k;
+            }
+        }
+        mToggledCount = count;
+    }
+
+    /**
+     * @param progress progress of lines toggle and of Y ranges animation, from 0 to 1
+     */
+    public void setProgress(float progress) {
+        if (mProgress == progress) return;
+        mProgress = progress;
+        mVersion++;
+        mGeometryVersion++;
+    }
+
+    /**
+     * Toggled lines are drawn in target range when they appear and in previous range when
+     * they disappear instead of the animated one.
+     */
+    public void setPinToggledLines(boolean pin) {
+        if (mPinToggledLines == pin) return;
+        mPinToggledLines = pin;
+        mVersion++;
+        mGeometryVersion++;
+    }
+
+    /**
+     * Sets visible points and maps them to the view with the same transformation views use:
+     * {@code x = (position * pointStep - translation) * scale} shrunk by side margins.
+     */
+    public void setX(int firstPoint, int lastPoint, float pointStep, float scale, float translation,
+                     int sideMargin, int width) {
+        float marginScale = 1 - 2f * sideMargin / width;
+        float xStep = pointStep * scale * marginScale;
+        float xOffset = -translation * scale * marginScale + sideMargin;
+        int level = mData.getYValues().get(0).getMinMaxIndex().getLevel(1 / (pointStep * scale));
+        if (mFirstPoint == firstPoint && mLastPoint == lastPoint && mXStep == xStep
+                && mXOffset == xOffset && mLevel == level) {
+            return;
+        }
+        if (mLevel != level) {
+            mGeometryVersion++;
+        }
+        mFirstPoint = firstPoint;
+        mLastPoint = lastPoint;
+        mXStep = xStep;
+        mXOffset = xOffset;
+        mLevel = level;
+        mVersion++;
+    }
+
+    /**
+     * Sets vertical band which values are mapped into, max value is drawn at top.
+     */
+    public void setBand(float top, float bottom) {
+        if (mTop == top && mBottom == bottom) return;
+        mTop = top;
+        mBottom = bottom;
+        mVersion++;
+        mGeometryVersion++;
+    }
+
+    /**
+     * Sets range of the axis which is animated from previous to target one.
+     */
+    public void setYRange(int axis, long prevMin, long prevMax, long targetMin, long targetMax) {
+        if (mPrevMin[axis] == prevMin && mPrevMax[axis] == prevMax
+                && mTargetMin[axis] == targetMin && mTargetMax[axis] == targetMax) {
+            return;
+        }
+        mPrevMin[axis] = prevMin;
+        mPrevMax[axis] = prevMax;
+        mTargetMin[axis] = targetMin;
+        mTargetMax[axis] = targetMax;
+        mVersion++;
+        mGeometryVersion++;
+    }
+
+    /**
+     * Makes current totals of stacked lines previous ones, must be called when toggle is over.
+     */
+    public void commitTotals() {
+        // New array instead of copy, so that previous totals are shared with snapshots as is.
+        mPrevTotals = mData.getStackOffsets().getTotals().clone();
+        mVersion++;
+        mGeometryVersion++;
+    }
+
+    /**
+     * Body of the chart looks different while there is selected point, so version changes
+     * when selection appears or disappears, but not when another point is selected.
+     *
+     * @param point point which is highlighted, or -1
+     */
+    public void setSelectedPoint(int point) {
+        if ((mSelectedPoint >= 0) != (point >= 0)) {
+            mVersion++;
+        }
+        mSelectedPoint = point;
+    }
+
+    /**
+     * @return immutable copy of the state, paints are not copied
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(this);
+    }
+
+    /**
+     * Makes this state equal to the snapshot, must be called after {@link #setChartData} with
+     * the same data. Version of the state becomes the version of the snapshot. Arrays of the
+     * snapshot are shared, so the state must not be changed by setters afterwards.
+     */
+    public void apply(Snapshot snapshot) {
+        if (snapshot.mData != mData) {
+            throw new IllegalStateException("Snapshot of another chart data");
+        }
+        mShown = snapshot.mShown;
+        mToggled = snapshot.mToggled;
+        mToggledLines = snapshot.mToggledLines;
+        mToggledCount = mToggledLines.length;
+        mProgress = snapshot.mProgress;
+        mPinToggledLines = snapshot.mPinToggledLines;
+        mFirstPoint = snapshot.mFirstPoint;
+        mLastPoint = snapshot.mLastPoint;
+        mXStep = snapshot.mXStep;
+        mXOffset = snapshot.mXOffset;
+        mLevel = snapshot.mLevel;
+        mTop = snapshot.mTop;
+        mBottom = snapshot.mBottom;
+        mPrevMin = snapshot.mPrevMin;
+        mPrevMax = snapshot.mPrevMax;
+        mTargetMin = snapshot.mTargetMin;
+        mTargetMax = snapshot.mTargetMax;
+        mPrevTotals = snapshot.mPrevTotals;
+        mSelectedPoint = snapshot.mSelectedPoint;
+        mVersion = snapshot.mVersion;
+        mGeometryVersion = snapshot.mGeometryVersion;
+    }
+
+    public int getVersion() {
+        return mVersion;
+    }
+
+    /**
+     * @return version of chart-space geometry, which changes with everything but X mapping and
+     * visible range of points
+     */
+    public int getGeometryVersion() {
+        return mGeometryVersion;
+    }
+
+    /**
+     * @return how many times renderers computed chart-space geometry for this state, e.g. to
+     * measure how often it is reused
+     */
+    public int getGeometryBuildCount() {
+        return mGeometryBuildCount;
+    }
+
+    void onGeometryBuilt() {
+        mGeometryBuildCount++;
+    }
+
+    public ChartData getData() {
+        return mData;
+    }
+
+    public ChartPaint getPaint(int line) {
+        return mPaints[line];
+    }
+
+    public boolean isVisible(int line) {
+        return mShown[line] || mToggled[line];
+    }
+
+    /**
+     * @return 1 for line which is not toggled, otherwise part of line which is shown at the
+     * moment: grows from 0 to 1 when line appears and shrinks to 0 when it disappears
+     */
+    public float getToggleScale(int line) {
+        if (!mToggled[line]) {
+            return 1;
+        }
+        return mShown[line] ? mProgress : 1 - mProgress;
+    }
+
+    /**
+     * @return alpha of line which fades in or out while it is toggled
+     */
+    public int getAlpha(int line) {
+        return Math.max(Math.min((int) (255 * getToggleScale(line)), 255), 0);
+    }
+
+    public float getProgress() {
+        return mProgress;
+    }
+
+    public int getFirstPoint() {
+        return mFirstPoint;
+    }
+
+    public int getLastPoint() {
+        return mLastPoint;
+    }
+
+    /**
+     * @return level of details to draw lines, bars and areas with, see {@link com.dimlix.tgcontest.model.MinMaxIndex#getLevel(float)}
+     */
+    public int getLevel() {
+        return mLevel;
+    }
+
+    public float getXStep() {
+        return mXStep;
+    }
+
+    /**
+     * @return view x of the position in chart space
+     */
+    public float getX(float position) {
+        return position * mXStep + mXOffset;
+    }
+
+    public float getPointX(int point) {
+        return getX(mPositions[point]);
+    }
+
+    /**
+     * @return chart-space x of the point
+     */
+    public float getPosition(int point) {
+        return mPositions[point];
+    }
+
+    /**
+     * @return chart-space x of the middle of the bucket of points at the current level, see
+     * {@link #getLevel()}
+     */
+    public float getBucketPosition(int bucket) {
+        int from = bucket << mLevel;
+        int to = Math.min(from + (1 << mLevel), mPositions.length) - 1;
+        return (mPositions[from] + mPositions[to]) / 2;
+    }
+
+    /**
+     * Maps chart-space points, i.e. x is position of the point, to the view and keeps y.
+     *
+     * @param src        x and y pairs in chart space
+     * @param dst        array to write view points to, may be the same as src
+     * @param offset     index of the first float to map in both arrays
+     * @param pointCount number of x and y pairs to map
+     */
+    public void mapPoints(float[] src, float[] dst, int offset, int pointCount) {
+        int end = offset + pointCount * 2;
+        for (int i = offset; i < end; i += 2) {
+            dst[i] = src[i] * mXStep + mXOffset;
+            dst[i + 1] = src[i + 1];
+        }
+    }
+
+    public float getTop() {
+        return mTop;
+    }
+
+    public float getBottom() {
+        return mBottom;
+    }
+
+    public int getSelectedPoint() {
+        return mSelectedPoint;
+    }
+
+    public long[] getPrevTotals() {
+        return mPrevTotals;
+    }
+
+    public float getMin(int axis, int line) {
+        if (mPinToggledLines && mToggled[line]) {
+            return mShown[line] ? mTargetMin[axis] : mPrevMin[axis];
+        }
+        return mPrevMin[axis] + (mTargetMin[axis] - mPrevMin[axis]) * mProgress;
+    }
+
+    public float getMax(int axis, int line) {
+        if (mPinToggledLines && mToggled[line]) {
+            return mShown[line] ? mTargetMax[axis] : mPrevMax[axis];
+        }
+        return mPrevMax[axis] + (mTargetMax[axis] - mPrevMax[axis]) * mProgress;
+    }
+
+    /**
+     * @return pixels per value unit of the line drawn in the given axis
+     */
+    public float getYStep(int axis, int line) {
+        return (mBottom - mTop) / (getMax(axis, line) - getMin(axis, line));
+    }
+
+    public float getY(int axis, int line, long value) {
+        return mBottom - (value - getMin(axis, line)) * getYStep(axis, line);
+    }
+
+    /**
+     * @return y of bottom of the stacked layer, toggled layers below it have animated height
+     */
+    public float getStackBottom(int line, int point, float min, float yStep) {
+        float bottom = mBottom - mData.getStackOffsets().getBottom(line, point) * yStep;
+        List<ChartData.YData> lines = mData.getYValues();
+        for (int a = 0; a < mToggledCount && mToggledLines[a] < line; a++) {
+            int toggled = mToggledLines[a];
+            long value = lines.get(toggled).getValues()[point];
+            if (mShown[toggled]) {
+                bottom += value * yStep;
+            }
+            bottom -= getLayerHeight(toggled, value, min, yStep);
+        }
+        return bottom;
+    }
+
+    /**
+     * @return height of stacked layer, toggled layer grows from or shrinks to zero
+     */
+    public float getLayerHeight(int line, long value, float min, float yStep) {
+        if (!mToggled[line]) {
+            return (value - min) * yStep;
+        }
+        float height = mBottom - mTop;
+        if (mShown[line]) {
+            return (value - min) * (height / mTargetMax[0]) * mProgress;
+        }
+        return (value - min) * (height / mPrevMax[0]) * (1 - mProgress);
+    }
+
+    /**
+     * State of one frame, arrays are copied or never modified after snapshot is taken, so it
+     * can be read from any thread. Stacked charts still read offsets from {@link ChartData},
+     * so they must be drawn while holding lock of the data, see
+     * {@link ChartData#setLineShown(ChartData.YData, boolean)}.
+     */
+    public static final class Snapshot {
+        private final ChartData mData;
+        private final boolean[] mShown;
+        private final boolean[] mToggled;
+        private final int[] mToggledLines;
+        private final float mProgress;
+        private final boolean mPinToggledLines;
+        private final int mFirstPoint;
+        private final int mLastPoint;
+        private final float mXStep;
+        private final float mXOffset;
+        private final int mLevel;
+        private final float mTop;
+        private final float mBottom;
+        private final long[] mPrevMin;
+        private final long[] mPrevMax;
+        private final long[] mTargetMin;
+        private final long[] mTargetMax;
+        private final long[] mPrevTotals;
+        private final int mSelectedPoint;
+        private final int mVersion;
+        private final int mGeometryVersion;
+
+        private Snapshot(RenderState state) {
+            mData = state.mData;
+            mShown = state.mShown.clone();
+            mToggled = state.mToggled.clone();
+            mToggledLines = new int[state.mToggledCount];
+            System.arraycopy(state.mToggledLines, 0, mToggledLines, 0, mToggledLines.length);
+            mProgress = state.mProgress;
+            mPinToggledLines = state.mPinToggledLines;
+            mFirstPoint = state.mFirstPoint;
+            mLastPoint = state.mLastPoint;
+            mXStep = state.mXStep;
+            mXOffset = state.mXOffset;
+            mLevel = state.mLevel;
+            mTop = state.mTop;
+            mBottom = state.mBottom;
+            mPrevMin = state.mPrevMin.clone();
+            mPrevMax = state.mPrevMax.clone();
+            mTargetMin = state.mTargetMin.clone();
+            mTargetMax = state.mTargetMax.clone();
+            mPrevTotals = state.mPrevTotals;
+            mSelectedPoint = state.mSelectedPoint;
+            mVersion = state.mVersion;
+            mGeometryVersion = state.mGeometryVersion;
+        }
+
+        public ChartData getData() {
+            return mData;
+        }
+
+        public int getVersion() {
+            return mVersion;
+        }
+
+        public int getSelectedPoint() {
+            return mSelectedPoint;
+        }
+    }
+}
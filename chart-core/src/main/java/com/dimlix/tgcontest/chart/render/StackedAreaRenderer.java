@@ -0,0 +1,101 @@
+package com.dimlix.tgcontest.chart.render;
+
+import com.dimlix.tgcontest.model.ChartData;
+import com.dimlix.tgcontest.model.MinMaxIndex;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Draws stacked areas. Each layer is filled from its top down to the bottom of the chart,
+ * starting from the upper one, so each next layer covers the rest of the previous ones.
+ * <p>
+ * When several points fall into single pixel layers are stacked from max values of each
+ * bucket of the level instead, see {@link RenderState#getLevel()}.
+ * <p>
+ * Tops of layers are computed in chart space for {@link CachedRange}, their visible part is
+ * mapped to the view on each frame, see {@link AreaPolygon}.
+ */
+public class StackedAreaRenderer implements ChartRenderer {
+    private AreaPolygon[] mPolygons;
+    // Tops of the lines below for each bucket of the range, to stack bucket layers.
+    private float[] mBucketBottoms = new float[0];
+    private final CachedRange mRange = new CachedRange();
+    private int mVersion = -1;
+
+    @Override
+    public void draw(ChartCanvas canvas, RenderState state) {
+        List<ChartData.YData> lines = state.getData().getYValues();
+        if (mPolygons == null) {
+            mPolygons = new AreaPolygon[lines.size()];
+            for (int k = 0; k < mPolygons.length; k++) {
+                mPolygons[k] = new AreaPolygon();
+            }
+        }
+        if (mVersion != state.getVersion()) {
+            mVersion = state.getVersion();
+            boolean fill = mRange.update(state);
+            if (fill && state.getLevel() > 0) {
+                startBuckets(state);
+            }
+            for (int k = 0; k < lines.size(); k++) {
+                if (!state.isVisible(k)) continue;
+                if (fill && state.getLevel() > 0) {
+                    fillBucketTops(state, k, lines.get(k).getMinMaxIndex());
+                } else if (fill) {
+                    fillTops(state, k, lines.get(k).getValues());
+                }
+                mPolygons[k].map(state, mRange.getFrom());
+            }
+        }
+        for (int k = lines.size() - 1; k >= 0; k--) {
+            if (!state.isVisible(k)) continue;
+            state.getPaint(k).setAlpha(255);
+            mPolygons[k].draw(canvas, state.getPaint(k));
+        }
+    }
+
+    @Override
+    public void drawSelection(ChartCanvas canvas, RenderState state) {
+    }
+
+    private void fillTops(RenderState state, int line, long[] values) {
+        int first = mRange.getFrom();
+        int last = mRange.getTo();
+        float min = state.getMin(0, line);
+        float yStep = state.getYStep(0, line);
+        AreaPolygon polygon = mPolygons[line];
+        polygon.reset(last - first + 1);
+        for (int i = first; i <= last; i++) {
+            float bottom = state.getStackBottom(line, i, min, yStep);
+            polygon.add(state.getPosition(i), bottom - state.getLayerHeight(line, values[i], min, yStep));
+        }
+    }
+
+    private void startBuckets(RenderState state) {
+        int size = (mRange.getTo() >> state.getLevel()) - (mRange.getFrom() >> state.getLevel()) + 1;
+        if (mBucketBottoms.length < size) {
+            mBucketBottoms = new float[size + size / 2];
+        }
+        Arrays.fill(mBucketBottoms, 0, size, state.getBottom());
+    }
+
+    /**
+     * Stacks layer of bucket maximums on top of the lines below, which must be filled before.
+     */
+    private void fillBucketTops(RenderState state, int line, MinMaxIndex index) {
+        int level = state.getLevel();
+        int first = mRange.getFrom() >> level;
+        int last = mRange.getTo() >> level;
+        float min = state.getMin(0, line);
+        float yStep = state.getYStep(0, line);
+        AreaPolygon polygon = mPolygons[line];
+        polygon.reset(last - first + 1);
+        for (int bucket = first; bucket <= last; bucket++) {
+            float top = mBucketBottoms[bucket - first]
+                    - state.getLayerHeight(line, index.getBucketMax(level, bucket), min, yStep);
+            polygon.add(state.getBucketPosition(bucket), top);
+            mBucketBottoms[bucket - first] = top;
+        }
+    }
+}
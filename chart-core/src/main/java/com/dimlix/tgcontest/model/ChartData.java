@@ -0,0 +1,257 @@
+package com.dimlix.tgcontest.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ChartData {
+    public @interface Type {
+        String LINE = "line";
+        String AREA = "area";
+        String BAR = "bar";
+
+        String X = "x";
+    }
+
+    private long[] mXValues;
+    // Dates are formatted only for points which are actually drawn, keep the most recent ones.
+    private static final int DATES_CACHE_SIZE = 256;
+    private final Map<Integer, ChartDates> mXStringValues =
+            new LinkedHashMap<Integer, ChartDates>(DATES_CACHE_SIZE, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, ChartDates> eldest) {
+                    return size() > DATES_CACHE_SIZE;
+                }
+            };
+    private List<YData> mYValues = new ArrayList<>();
+    private StackOffsets mStackOffsets;
+    private XPositions mXPositions;
+
+    private boolean mPercentage = false;
+    private boolean mStacked = false;
+    private boolean mDoubleYAxis;
+
+    private String mName;
+
+    public String getName() {
+        return mName;
+    }
+
+    public void setName(String name) {
+        mName = name;
+    }
+
+    public boolean isPercentage() {
+        return mPercentage;
+    }
+
+    public void setPercentage(boolean percentage) {
+        mPercentage = percentage;
+    }
+
+    public boolean isStacked() {
+        return mStacked;
+    }
+
+    public void setStacked(boolean stacked) {
+        this.mStacked = stacked;
+    }
+
+    public void addYValues(YData data) {
+        mYValues.add(data);
+    }
+
+    public List<YData> getYValues() {
+        return mYValues;
+    }
+
+    /**
+     * Show/hide line and update cumulative values of stacked lines if they are already computed.
+     * Holds lock of the data, so that offsets are not read while they are updated.
+     */
+    public synchronized void setLineShown(YData line, boolean shown) {
+        line.setShown(shown);
+        if (mStackOffsets != null) {
+            mStackOffsets.setShown(mYValues.indexOf(line), shown);
+        }
+    }
+
+    /**
+     * @return cumulative values of shown lines, computed on first call
+     */
+    public StackOffsets getStackOffsets() {
+        if (mStackOffsets == null) {
+            mStackOffsets = new StackOffsets(mYValues, getSize());
+        }
+        return mStackOffsets;
+    }
+
+    /**
+     * @return positions of points on X axis by their timestamps, computed on first call
+     */
+    public XPositions getXPositions() {
+        if (mXPositions == null) {
+            mXPositions = new XPositions(mXValues);
+        }
+        return mXPositions;
+    }
+
+    public long[] getXValues() {
+        return mXValues;
+    }
+
+    /**
+     * @return formatted dates of the point, each variant is formatted on first request
+     */
+    public ChartDates getXStringValue(int index) {
+        synchronized (mXStringValues) {
+            ChartDates dates = mXStringValues.get(index);
+            if (dates == null) {
+                dates = new ChartDates(mXValues[index]);
+                mXStringValues.put(index, dates);
+            }
+            return dates;
+        }
+    }
+
+    public void setXValues(long[] mXValues) {
+        this.mXValues = mXValues;
+        this.mXPositions = null;
+    }
+
+    @Override
+    public String toString() {
+        return "ChartData{" +
+                "mXValues=" + Arrays.toString(mXValues) +
+                ", mYValues=" + mYValues +
+                '}';
+    }
+
+    public int getSize() {
+        return mXValues.length;
+    }
+
+    public boolean isDoubleYAxis() {
+        return mDoubleYAxis;
+    }
+
+    public void setDoubleYAxis(boolean doubleYAxis) {
+        mDoubleYAxis = doubleYAxis;
+    }
+
+    public static class YData {
+        private String mVarName;
+        private String mAlias;
+        private String mType;
+        private String mColor;
+        private long[] mValues;
+        private MinMaxIndex mMinMaxIndex;
+        private boolean mIsShown = true;
+
+        private boolean mIsBar = false;
+        private boolean mIsArea = false;
+
+        public boolean isBar() {
+            return mIsBar;
+        }
+
+        public boolean isArea() {
+            return mIsArea;
+        }
+
+        public YData(String varName, String alias, String type, String color, long[] values) {
+            mVarName = varName;
+            mAlias = alias;
+            mType = type;
+            mColor = color;
+            mValues = values;
+            mIsBar = mType.equals(Type.BAR);
+            mIsArea = mType.equals(Type.AREA);
+            mMinMaxIndex = new MinMaxIndex(values);
+        }
+
+        public String getVarName() {
+            return mVarName;
+        }
+
+        public String getAlias() {
+            return mAlias;
+        }
+
+        public String getType() {
+            return mType;
+        }
+
+        public String getColor() {
+            return mColor;
+        }
+
+        public long[] getValues() {
+            return mValues;
+        }
+
+        public int getSize() {
+            return mValues.length;
+        }
+
+        /**
+         * @return index to find min/max of any visible region without iterating over its points
+         */
+        public MinMaxIndex getMinMaxIndex() {
+            return mMinMaxIndex;
+        }
+
+        public boolean isShown() {
+            return mIsShown;
+        }
+
+        public void setShown(boolean shown) {
+            mIsShown = shown;
+        }
+
+        @Override
+        public String toString() {
+            return "YData{" +
+                    "mVarName='" + mVarName + '\'' +
+                    ", mAlias='" + mAlias + '\'' +
+                    ", mType='" + mType + '\'' +
+                    ", mColor='" + mColor + '\'' +
+                    ", mValues=" + Arrays.toString(mValues) +
+                    '}';
+        }
+    }
+
+    public static class ChartDates {
+        private final long mMillis;
+        private String mDateMonthOnly;
+        private String mFullDate;
+        private String mExtendedDate;
+
+        ChartDates(long millis) {
+            mMillis = millis;
+        }
+
+        public String getDateMonthOnly() {
+            if (mDateMonthOnly == null) {
+                mDateMonthOnly = DateFormatter.formatShort(mMillis);
+            }
+            return mDateMonthOnly;
+        }
+
+        public String getFullDate() {
+            if (mFullDate == null) {
+                mFullDate = DateFormatter.formatFull(mMillis);
+            }
+            return mFullDate;
+        }
+
+        public String getExtendedDate() {
+            if (mExtendedDate == null) {
+                mExtendedDate = DateFormatter.formatExtended(mMillis);
+            }
+            return mExtendedDate;
+        }
+    }
+}
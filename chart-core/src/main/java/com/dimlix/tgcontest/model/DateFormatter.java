@@ -0,0 +1,86 @@
+package com.dimlix.tgcontest.model;
+
+import java.util.TimeZone;
+
+/**
+ * Formats chart timestamps into "dd MMM", "dd MMM yyyy" and "EEE, dd MMM yyyy" with english
+ * names, same as {@link java.text.SimpleDateFormat} with {@link java.util.Locale#US} does.
+ * <p>
+ * Has no mutable state, so unlike SimpleDateFormat can be shared between threads, and does
+ * not create Date/Calendar instances for every call.
+ */
+class DateFormatter {
+    private static final String[] MONTHS = {
+            "Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"
+    };
+    // 1970-01-01 was Thursday.
+    private static final String[] DAYS_OF_WEEK = {"Thu", "Fri", "Sat", "Sun", "Mon", "Tue", "Wed"};
+    private static final long MILLIS_IN_DAY = 24 * 60 * 60 * 1000L;
+
+    private DateFormatter() {
+    }
+
+    static String formatShort(long millis) {
+        StringBuilder sb = new StringBuilder(6);
+        appendDayMonth(sb, toEpochDay(millis));
+        return sb.toString();
+    }
+
+    static String formatFull(long millis) {
+        StringBuilder sb = new StringBuilder(11);
+        long epochDay = toEpochDay(millis);
+        appendDayMonth(sb, epochDay);
+        sb.append(' ').append(getYear(epochDay));
+        return sb.toString();
+    }
+
+    static String formatExtended(long millis) {
+        StringBuilder sb = new StringBuilder(16);
+        long epochDay = toEpochDay(millis);
+        sb.append(DAYS_OF_WEEK[(int) (epochDay - floorDiv(epochDay, 7) * 7)]).append(", ");
+        appendDayMonth(sb, epochDay);
+        sb.append(' ').append(getYear(epochDay));
+        return sb.toString();
+    }
+
+    private static long toEpochDay(long millis) {
+        return floorDiv(millis + TimeZone.getDefault().getOffset(millis), MILLIS_IN_DAY);
+    }
+
+    private static void appendDayMonth(StringBuilder sb, long epochDay) {
+        long date = toCivil(epochDay);
+        int day = (int) (date & 0xFF);
+        int month = (int) ((date >> 8) & 0xFF);
+        if (day < 10) sb.append('0');
+        sb.append(day).append(' ').append(MONTHS[month - 1]);
+    }
+
+    private static long getYear(long epochDay) {
+        return toCivil(epochDay) >> 16;
+    }
+
+    // Math.floorDiv is available only since API 24.
+    private static long floorDiv(long x, long y) {
+        long q = x / y;
+        return (x % y != 0 && (x ^ y) < 0) ? q - 1 : q;
+    }
+
+    /**
+     * Converts days since 1970-01-01 to proleptic gregorian date.
+     *
+     * @return year << 16 | month << 8 | day
+     */
+    private static long toCivil(long epochDay) {
+        // Shift epoch to 0000-03-01, so leap day is the last day of the year.
+        long z = epochDay + 719468;
+        long era = floorDiv(z, 146097);
+        long dayOfEra = z - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long mp = (5 * dayOfYear + 2) / 153;
+        long day = dayOfYear - (153 * mp + 2) / 5 + 1;
+        long month = mp < 10 ? mp + 3 : mp - 9;
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        return year << 16 | month << 8 | day;
+    }
+}
@@ -0,0 +1,67 @@
+package com.dimlix.tgcontest.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class GraphData {
+    private List<ChartData> mChartData = new ArrayList<>();
+    private List<ChartError> mErrors = new ArrayList<>();
+
+    public List<ChartData> getChartData() {
+        return mChartData;
+    }
+
+
+    public void addChartData(ChartData data) {
+        mChartData.add(data);
+    }
+
+    /**
+     * @return charts which were not parsed, other charts are still available in
+     * {@link #getChartData()}
+     */
+    public List<ChartError> getErrors() {
+        return mErrors;
+    }
+
+    public void addError(ChartError error) {
+        mErrors.add(error);
+    }
+
+    @Override
+    public String toString() {
+        return "GraphData{" +
+                "mChartData=" + mChartData +
+                ", mErrors=" + mErrors +
+                '}';
+    }
+
+    public static class ChartError {
+        private int mIndex;
+        private Exception mCause;
+
+        /**
+         * @param index position of the chart in source array or -1 if array itself is malformed
+         */
+        public ChartError(int index, Exception cause) {
+            mIndex = index;
+            mCause = cause;
+        }
+
+        public int getIndex() {
+            return mIndex;
+        }
+
+        public Exception getCause() {
+            return mCause;
+        }
+
+        @Override
+        public String toString() {
+            return "ChartError{" +
+                    "mIndex=" + mIndex +
+                    ", mCause=" + mCause +
+                    '}';
+        }
+    }
+}
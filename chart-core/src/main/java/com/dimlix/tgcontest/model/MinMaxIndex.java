@@ -0,0 +1,143 @@
+package com.dimlix.tgcontest.model;
+
+/**
+ * Range min/max index over a single column of values.
+ * <p>
+ * Column is split into leaves of {@link #LEAF_SIZE} points which are organized into a complete
+ * binary tree, so min/max of any window is found in O(log n) instead of scanning every point.
+ * Only partially covered leaves at the window ends are scanned directly, this keeps
+ * the index around n/2 longs instead of 4n for a tree built over single points.
+ * <p>
+ * Each tree level is also a level of details: level L splits the column into buckets of 2^L
+ * points with known min and max, which is enough to draw a long line without losing its peaks.
+ */
+public class MinMaxIndex {
+    private static final int LEAF_SHIFT = 3;
+    private static final int LEAF_SIZE = 1 << LEAF_SHIFT;
+
+    private final long[] mValues;
+    // Number of tree leaves, always power of two.
+    private final int mLeafCount;
+    private final int mMaxLevel;
+    // Tree nodes, root is at 1, children of node n are 2n and 2n + 1, leaves start at mLeafCount.
+    private final long[] mMin;
+    private final long[] mMax;
+
+    public MinMaxIndex(long[] values) {
+        mValues = values;
+        int blocks = (values.length + LEAF_SIZE - 1) >> LEAF_SHIFT;
+        int leafCount = 1;
+        while (leafCount < blocks) {
+            leafCount <<= 1;
+        }
+        mLeafCount = leafCount;
+        mMaxLevel = LEAF_SHIFT + Integer.numberOfTrailingZeros(leafCount);
+        mMin = new long[leafCount * 2];
+        mMax = new long[leafCount * 2];
+        for (int leaf = 0; leaf < leafCount; leaf++) {
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            int to = Math.min((leaf + 1) << LEAF_SHIFT, values.length);
+            for (int i = leaf << LEAF_SHIFT; i < to; i++) {
+                if (min > values[i]) min = values[i];
+                if (max < values[i]) max = values[i];
+            }
+            mMin[leafCount + leaf] = min;
+            mMax[leafCount + leaf] = max;
+        }
+        for (int node = leafCount - 1; node > 0; node--) {
+            mMin[node] = Math.min(mMin[2 * node], mMin[2 * node + 1]);
+            mMax[node] = Math.max(mMax[2 * node], mMax[2 * node + 1]);
+        }
+    }
+
+    /**
+     * @param from first index of the window, inclusive
+     * @param to   last index of the window, exclusive
+     * @return min value inside the window or {@link Long#MAX_VALUE} if window is empty
+     */
+    public long getMin(int from, int to) {
+        long result = Long.MAX_VALUE;
+        int firstLeaf = (from + LEAF_SIZE - 1) >> LEAF_SHIFT;
+        int lastLeaf = to >> LEAF_SHIFT;
+        if (firstLeaf >= lastLeaf) {
+            for (int i = from; i < to; i++) {
+                if (result > mValues[i]) result = mValues[i];
+            }
+            return result;
+        }
+        for (int i = from; i < firstLeaf << LEAF_SHIFT; i++) {
+            if (result > mValues[i]) result = mValues[i];
+        }
+        for (int i = lastLeaf << LEAF_SHIFT; i < to; i++) {
+            if (result > mValues[i]) result = mValues[i];
+        }
+        for (int l = firstLeaf + mLeafCount, r = lastLeaf + mLeafCount; l < r; l >>= 1, r >>= 1) {
+            if ((l & 1) == 1) result = Math.min(result, mMin[l++]);
+            if ((r & 1) == 1) result = Math.min(result, mMin[--r]);
+        }
+        return result;
+    }
+
+    /**
+     * @param from first index of the window, inclusive
+     * @param to   last index of the window, exclusive
+     * @return max value inside the window or {@link Long#MIN_VALUE} if window is empty
+     */
+    public long getMax(int from, int to) {
+        long result = Long.MIN_VALUE;
+        int firstLeaf = (from + LEAF_SIZE - 1) >> LEAF_SHIFT;
+        int lastLeaf = to >> LEAF_SHIFT;
+        if (firstLeaf >= lastLeaf) {
+            for (int i = from; i < to; i++) {
+                if (result < mValues[i]) result = mValues[i];
+            }
+            return result;
+        }
+        for (int i = from; i < firstLeaf << LEAF_SHIFT; i++) {
+            if (result < mValues[i]) result = mValues[i];
+        }
+        for (int i = lastLeaf << LEAF_SHIFT; i < to; i++) {
+            if (result < mValues[i]) result = mValues[i];
+        }
+        for (int l = firstLeaf + mLeafCount, r = lastLeaf + mLeafCount; l < r; l >>= 1, r >>= 1) {
+            if ((l & 1) == 1) result = Math.max(result, mMax[l++]);
+            if ((r & 1) == 1) result = Math.max(result, mMax[--r]);
+        }
+        return result;
+    }
+
+    /**
+     * Finds level of details to draw the column with given density, so that min and max of each
+     * bucket give about one or two points per pixel.
+     *
+     * @param pointsPerPixel number of column points which fall into single pixel
+     * @return 0 if raw values should be drawn, otherwise level to use in
+     * {@link #getBucketMin(int, int)} and {@link #getBucketMax(int, int)}
+     */
+    public int getLevel(float pointsPerPixel) {
+        if (pointsPerPixel <= 1) {
+            return 0;
+        }
+        int level = 32 - Integer.numberOfLeadingZeros((int) Math.ceil(pointsPerPixel) - 1);
+        if (level < LEAF_SHIFT) {
+            // Buckets smaller than leaf are not stored, raw values are still dense enough.
+            return 0;
+        }
+        return Math.min(level, mMaxLevel);
+    }
+
+    /**
+     * @return min value of points [bucket * 2^level, (bucket + 1) * 2^level)
+     */
+    public long getBucketMin(int level, int bucket) {
+        return mMin[(mLeafCount >> (level - LEAF_SHIFT)) + bucket];
+    }
+
+    /**
+     * @return max value of points [bucket * 2^level, (bucket + 1) * 2^level)
+     */
+    public long getBucketMax(int level, int bucket) {
+        return mMax[(mLeafCount >> (level - LEAF_SHIFT)) + bucket];
+    }
+}
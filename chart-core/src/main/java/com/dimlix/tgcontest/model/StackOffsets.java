@@ -0,0 +1,83 @@
+package com.dimlix.tgcontest.model;
+
+import java.util.List;
+
+/**
+ * Cumulative values of stacked chart lines.
+ * <p>
+ * For every point keeps sum of shown lines below each line and total of all shown lines, so
+ * stacked and percentage charts read bottoms/tops of their layers instead of summing all lines
+ * on every frame. When line is toggled only its own column is added to or subtracted from
+ * lines above it.
+ */
+public class StackOffsets {
+    private final List<ChartData.YData> mLines;
+    private final boolean[] mShown;
+    // mOffsets[k][i] is sum of shown lines which are below line k at point i.
+    private final long[][] mOffsets;
+    private final long[] mTotals;
+
+    StackOffsets(List<ChartData.YData> lines, int size) {
+        mLines = lines;
+        mShown = new boolean[lines.size()];
+        mOffsets = new long[lines.size()][];
+        mTotals = new long[size];
+        for (int k = 0; k < lines.size(); k++) {
+            mOffsets[k] = mTotals.clone();
+            mShown[k] = lines.get(k).isShown();
+            if (mShown[k]) {
+                long[] values = lines.get(k).getValues();
+                for (int i = 0; i < size; i++) {
+                    mTotals[i] += values[i];
+                }
+            }
+        }
+    }
+
+    void setShown(int line, boolean shown) {
+        if (mShown[line] == shown) return;
+        mShown[line] = shown;
+        long[] values = mLines.get(line).getValues();
+        long sign = shown ? 1 : -1;
+        for (int k = line + 1; k < mOffsets.length; k++) {
+            long[] offsets = mOffsets[k];
+            for (int i = 0; i < offsets.length; i++) {
+                offsets[i] += sign * values[i];
+            }
+        }
+        for (int i = 0; i < mTotals.length; i++) {
+            mTotals[i] += sign * values[i];
+        }
+    }
+
+    /**
+     * @return sum of shown lines below the given line at the given point
+     */
+    public long getBottom(int line, int index) {
+        return mOffsets[line][index];
+    }
+
+    /**
+     * @return bottom of the line plus its own value if line is shown
+     */
+    public long getTop(int line, int index) {
+        if (mShown[line]) {
+            return mOffsets[line][index] + mLines.get(line).getValues()[index];
+        }
+        return mOffsets[line][index];
+    }
+
+    /**
+     * @return sum of all shown lines at the given point
+     */
+    public long getTotal(int index) {
+        return mTotals[index];
+    }
+
+    /**
+     * @return sums of all shown lines for each point, must not be modified
+     */
+    public long[] getTotals() {
+        return mTotals;
+    }
+}
@@ -0,0 +1,95 @@
+package com.dimlix.tgcontest.model;
+
+/**
+ * Positions of chart points on X axis by their timestamps, so that charts with gaps and
+ * irregular sampling are drawn to scale.
+ * <p>
+ * Position is measured in average distance between points: point i of evenly spaced chart is
+ * at i and the whole chart spans [0, size - 1]. Points are found by binary search over
+ * timestamps, which must be ascending, so lookups stay logarithmic on any size.
+ */
+public class XPositions {
+    private final long[] mXValues;
+    private final float[] mPositions;
+    // Position of the timestamp is (x - first x) * mScale.
+    private final double mScale;
+
+    XPositions(long[] xValues) {
+        mXValues = xValues;
+        mPositions = new float[xValues.length];
+        long span = xValues.length > 1 ? xValues[xValues.length - 1] - xValues[0] : 0;
+        if (span <= 0) {
+            // Single point or equal timestamps, place points evenly.
+            mScale = 0;
+            for (int i = 0; i < mPositions.length; i++) {
+                mPositions[i] = i;
+            }
+            return;
+        }
+        mScale = (double) (xValues.length - 1) / span;
+        for (int i = 0; i < mPositions.length; i++) {
+            mPositions[i] = (float) ((xValues[i] - xValues[0]) * mScale);
+        }
+    }
+
+    public float get(int point) {
+        return mPositions[point];
+    }
+
+    /**
+     * @return position of each point, must not be modified
+     */
+    public float[] getPositions() {
+        return mPositions;
+    }
+
+    /**
+     * @return last point at or before the position, or the first point if there is none
+     */
+    public int getPointAtOrBefore(float position) {
+        if (mScale == 0) {
+            return clamp((int) Math.floor(position));
+        }
+        long first = mXValues[0];
+        int low = 0;
+        int high = mXValues.length - 1;
+        // Invariant: answer is in [low, high].
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            // Same rounding as positions, so that point is found at its own position.
+            if ((float) ((mXValues[mid] - first) * mScale) <= position) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return first point at or after the position, or the last point if there is none
+     */
+    public int getPointAtOrAfter(float position) {
+        int point = getPointAtOrBefore(position);
+        if (mPositions[point] < position && point < mPositions.length - 1) {
+            point++;
+        }
+        return point;
+    }
+
+    /**
+     * @return point which is the closest to the position
+     */
+    public int getNearestPoint(float position) {
+        int before = getPointAtOrBefore(position);
+        if (before < mPositions.length - 1
+                && mPositions[before + 1] - position < position - mPositions[before]) {
+            return before + 1;
+        }
+        return before;
+    }
+
+    private int clamp(int point) {
+        return Math.max(0, Math.min(point, mPositions.length - 1));
+    }
+}
@@ -0,0 +1,53 @@
+package com.dimlix.tgcontest;
+
+import com.dimlix.tgcontest.model.ChartData;
+import com.dimlix.tgcontest.model.GraphData;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class ChartSnapshotTest {
+
+    @Test
+    public void roundTrip() throws Exception {
+        ChartData chart = new ChartData();
+        chart.setStacked(true);
+        chart.setXValues(new long[]{1, 2, 3});
+        chart.addYValues(new ChartData.YData("y0", "Line", ChartData.Type.BAR, "#3DC23F", new long[]{4, 5, 6}));
+        GraphData graph = new GraphData();
+        graph.addChartData(chart);
+
+        GraphData read = writeAndRead(graph);
+        assertEquals(1, read.getChartData().size());
+        ChartData actual = read.getChartData().get(0);
+        assertEquals(true, actual.isStacked());
+        assertArrayEquals(chart.getXValues(), actual.getXValues());
+        assertEquals("y0", actual.getYValues().get(0).getVarName());
+        assertArrayEquals(new long[]{4, 5, 6}, actual.getYValues().get(0).getValues());
+    }
+
+    @Test
+    public void noCharts_throws() throws Exception {
+        try {
+            writeAndRead(new GraphData());
+            fail("Read snapshot without charts");
+        } catch (IOException expected) {
+        }
+    }
+
+    private static GraphData writeAndRead(GraphData graph) throws IOException {
+        File file = File.createTempFile("snapshot", ".bin");
+        try {
+            ChartSnapshot.write(graph, file);
+            return ChartSnapshot.read(file);
+        } finally {
+            file.delete();
+        }
+    }
+}
@@ -0,0 +1,328 @@
+package com.dimlix.tgcontest;
+
+import com.dimlix.tgcontest.model.ChartData;
+import com.dimlix.tgcontest.model.GraphData;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Compares pull parser with org.json reader it replaced, on bundled charts and on edge cases.
+ */
+public class JsonChartParserTest {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final String[] ASSETS = {
+            "graph_1.json", "graph_2.json", "graph_3.json", "graph_4.json", "graph_5.json"};
+
+    private final JsonGraphReader mReader = new JsonGraphReader();
+
+    @Test
+    public void assets_matchOrgJson() throws Exception {
+        for (String asset : ASSETS) {
+            byte[] bytes = readAsset(asset);
+            ChartData expected = readWithOrgJson(new String(bytes, UTF_8));
+            assertChartEquals(asset, expected, mReader.getChartDataFromJson(bytes));
+            assertChartEquals(asset, expected, mReader.getChartDataFromJson(ByteBuffer.wrap(bytes)));
+            ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+            direct.put(bytes);
+            direct.flip();
+            assertChartEquals(asset, expected, mReader.getChartDataFromJson(direct));
+            assertChartEquals(asset, expected,
+                    mReader.getChartDataFromJson(new ByteArrayInputStream(bytes)));
+        }
+    }
+
+    @Test
+    public void assetsArray_matchOrgJson() throws Exception {
+        StringBuilder array = new StringBuilder("[");
+        List<ChartData> expected = new ArrayList<>();
+        for (String asset : ASSETS) {
+            String json = new String(readAsset(asset), UTF_8);
+            if (array.length() > 1) array.append(",\n");
+            array.append(json);
+            expected.add(readWithOrgJson(json));
+        }
+        array.append(']');
+        for (boolean parallel : new boolean[]{false, true}) {
+            GraphData data = mReader.getGraphDataFromJson(array.toString(), parallel);
+            assertTrue(data.getErrors().isEmpty());
+            assertEquals(expected.size(), data.getChartData().size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertChartEquals(ASSETS[i], expected.get(i), data.getChartData().get(i));
+            }
+        }
+    }
+
+    @Test
+    public void edgeCases_matchOrgJson() throws Exception {
+        String[] charts = {
+                // Keys in any order, unknown keys skipped.
+                "{\"colors\":{\"y0\":\"#3DC23F\"},\"unknown\":[{\"a\":[1,\"]\"]},null,true],"
+                        + "\"columns\":[[\"y0\",1,2,3],[\"x\",10,20,30]],"
+                        + "\"names\":{\"y0\":\"A\"},\"types\":{\"y0\":\"line\",\"x\":\"x\"}}",
+                // Non-integer numbers are not taken, long bounds are.
+                "{\"columns\":[[\"x\",1,2,3,4,5],[\"y0\",1.5,2e3,-0,0,-7,9223372036854775807,"
+                        + "-9223372036854775808,null,true,4]],"
+                        + "\"types\":{\"y0\":\"bar\",\"x\":\"x\"},\"names\":{\"y0\":\"B\"},"
+                        + "\"colors\":{\"y0\":\"#FF0000\"},\"stacked\":true}",
+                // Escapes and multi-byte characters of 2, 3 and 4 bytes.
+                "{ \"columns\" : [ [ \"x\" , 1 ] , [ \"y\\u0030\" , 2 ] ] ,\n"
+                        + "\"types\":{\"y0\":\"area\",\"x\":\"x\"},"
+                        + "\"names\":{\"y0\":\"\\\"q\\\" \\\\ \\/ \\t\\n \u00e9 \u20ac \ud83d\ude00 \\ud83d\\ude00\"},"
+                        + "\"colors\":{\"y0\":\"#00FF00\"},\"percentage\":true,\"y_scaled\":false}",
+                // Two axes, empty columns.
+                "{\"columns\":[[\"x\"],[\"y0\"],[\"y1\"]],\"types\":{\"y0\":\"line\",\"y1\":\"line\","
+                        + "\"x\":\"x\"},\"names\":{\"y0\":\"A\",\"y1\":\"B\"},"
+                        + "\"colors\":{\"y0\":\"#111111\",\"y1\":\"#222222\"},\"y_scaled\":true}",
+        };
+        for (String json : charts) {
+            assertChartEquals(json, readWithOrgJson(json), mReader.getChartDataFromJson(json));
+            assertChartEquals(json, readWithOrgJson(json),
+                    mReader.getChartDataFromJson(new ByteArrayInputStream(json.getBytes(UTF_8))));
+        }
+    }
+
+    @Test
+    public void numberOutOfLong_skipped() throws Exception {
+        // org.json kept such numbers as strings, so they became id of the column.
+        ChartData chart = mReader.getChartDataFromJson("{\"columns\":[[\"x\",1,"
+                + "9223372036854775808,-9223372036854775809,2]],\"types\":{\"x\":\"x\"},"
+                + "\"names\":{},\"colors\":{}}");
+        assertArrayEquals(new long[]{1, 2}, chart.getXValues());
+    }
+
+    @Test
+    public void malformedJson_throws() throws Exception {
+        String[] charts = {
+                "",
+                "{",
+                "{\"columns\":[[\"x\",1]",
+                "{\"columns\":[[\"x\",1]],\"types\":{\"x\":\"x\"},\"names\":{},\"colors\":{}} {}",
+                "{\"columns\":[[\"x\",1,]],\"types\":{\"x\":\"x\"},\"names\":{},\"colors\":{}}",
+                "{\"columns\":[[\"x\",1]],\"types\":{\"x\":\"x\"},\"names\":{\"a\":\"b},\"colors\":{}}",
+        };
+        for (String json : charts) {
+            assertThrows(json, json.getBytes(UTF_8));
+        }
+    }
+
+    @Test
+    public void illegalEscape_throws() throws Exception {
+        String[] escapes = {"\\q", "\\\u00e9", "\\u00g0", "\\x41"};
+        for (String escape : escapes) {
+            String json = "{\"columns\":[[\"x\",1]],\"types\":{\"x\":\"x\"},\"names\":{\"a\":\""
+                    + escape + "\"},\"colors\":{}}";
+            try {
+                new JSONObject(json);
+                fail("org.json parsed " + escape);
+            } catch (JSONException expected) {
+            }
+            assertThrows(escape, json.getBytes(UTF_8));
+        }
+    }
+
+    @Test
+    public void invalidUtf8_throws() throws Exception {
+        byte[][] sequences = {
+                // Code point past Unicode range.
+                {(byte) 0xF7, (byte) 0xBF, (byte) 0xBF, (byte) 0xBD},
+                {(byte) 0xF4, (byte) 0x90, (byte) 0x80, (byte) 0x80},
+                // Continuation byte without lead one.
+                {(byte) 0x80},
+                {(byte) 0xBF},
+                // Lead byte without continuation.
+                {(byte) 0xC3, 'a'},
+                {(byte) 0xE2, (byte) 0x82, 'a'},
+                // Overlong forms.
+                {(byte) 0xC0, (byte) 0xAF},
+                {(byte) 0xE0, (byte) 0x80, (byte) 0xAF},
+                {(byte) 0xF0, (byte) 0x80, (byte) 0x80, (byte) 0xAF},
+                // Surrogate.
+                {(byte) 0xED, (byte) 0xA0, (byte) 0x80},
+                {(byte) 0xF8, (byte) 0x88, (byte) 0x80, (byte) 0x80, (byte) 0x80},
+        };
+        for (byte[] sequence : sequences) {
+            ByteArrayOutputStream json = new ByteArrayOutputStream();
+            json.write("{\"columns\":[[\"x\",1]],\"types\":{\"x\":\"x\"},\"names\":{\"a\":\""
+                    .getBytes(UTF_8));
+            json.write(sequence);
+            json.write("\"},\"colors\":{}}".getBytes(UTF_8));
+            assertThrows(toHex(sequence), json.toByteArray());
+        }
+    }
+
+    @Test
+    public void malformedChart_reportedWithoutOthers() {
+        String valid = "{\"columns\":[[\"x\",1]],\"types\":{\"x\":\"x\"},\"names\":{},\"colors\":{}}";
+        String invalid = "{\"columns\":[[\"x\",1]],\"names\":{\"a\":\"\u00e9\"}}";
+        String array = "[" + valid + "," + invalid + "," + valid + "]";
+        for (boolean parallel : new boolean[]{false, true}) {
+            GraphData data = mReader.getGraphDataFromJson(array, parallel);
+            assertEquals(2, data.getChartData().size());
+            assertEquals(1, data.getErrors().size());
+            assertEquals(1, data.getErrors().get(0).getIndex());
+        }
+    }
+
+    @Test
+    public void graphFromBuffers_matchesString() throws Exception {
+        String valid = "{\"columns\":[[\"x\",1,2],[\"y0\",3,4]],\"types\":{\"x\":\"x\",\"y0\":\"line\"},"
+                + "\"names\":{\"y0\":\"\\\"]\"},\"colors\":{\"y0\":\"#000000\"}}";
+        String array = " [ " + valid + " , {} , " + valid + " ] ";
+        byte[] bytes = array.getBytes(UTF_8);
+        // Buffer with other data around the array.
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length + 4);
+        direct.put((byte) '{').put(bytes).put((byte) '}');
+        direct.position(1);
+        direct.limit(1 + bytes.length);
+        ChartData expected = readWithOrgJson(valid);
+        for (boolean parallel : new boolean[]{false, true}) {
+            GraphData[] results = {
+                    mReader.getGraphDataFromJson(array, parallel),
+                    mReader.getGraphDataFromJson(bytes, parallel),
+                    mReader.getGraphDataFromJson(direct, parallel)};
+            for (GraphData data : results) {
+                assertEquals(2, data.getChartData().size());
+                assertChartEquals(array, expected, data.getChartData().get(0));
+                assertChartEquals(array, expected, data.getChartData().get(1));
+                assertEquals(1, data.getErrors().size());
+                assertEquals(1, data.getErrors().get(0).getIndex());
+            }
+            assertEquals(1, direct.position());
+        }
+    }
+
+    private void assertThrows(String message, byte[] json) throws IOException {
+        try {
+            mReader.getChartDataFromJson(json);
+            fail("Parsed " + message);
+        } catch (JSONException expected) {
+        }
+        try {
+            mReader.getChartDataFromJson(new ByteArrayInputStream(json));
+            fail("Parsed stream " + message);
+        } catch (JSONException expected) {
+        }
+    }
+
+    private static void assertChartEquals(String message, ChartData expected, ChartData actual) {
+        assertArrayEquals(message, expected.getXValues(), actual.getXValues());
+        assertEquals(message, expected.isDoubleYAxis(), actual.isDoubleYAxis());
+        assertEquals(message, expected.isStacked(), actual.isStacked());
+        assertEquals(message, expected.isPercentage(), actual.isPercentage());
+        assertEquals(message, expected.getYValues().size(), actual.getYValues().size());
+        for (int i = 0; i < expected.getYValues().size(); i++) {
+            ChartData.YData expectedLine = expected.getYValues().get(i);
+            ChartData.YData actualLine = actual.getYValues().get(i);
+            assertEquals(message, expectedLine.getVarName(), actualLine.getVarName());
+            assertEquals(message, expectedLine.getAlias(), actualLine.getAlias());
+            assertEquals(message, expectedLine.getType(), actualLine.getType());
+            assertEquals(message, expectedLine.getColor(), actualLine.getColor());
+            assertArrayEquals(message, expectedLine.getValues(), actualLine.getValues());
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder result = new StringBuilder();
+        for (byte b : bytes) {
+            result.append(String.format("%02X ", b & 0xFF));
+        }
+        return result.toString().trim();
+    }
+
+    private static byte[] readAsset(String name) throws IOException {
+        InputStream is = JsonChartParserTest.class.getClassLoader().getResourceAsStream(name);
+        if (is == null) {
+            throw new IOException("No asset " + name);
+        }
+        try {
+            ByteArrayOutputStream result = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+                result.write(buffer, 0, read);
+            }
+            return result.toByteArray();
+        } finally {
+            is.close();
+        }
+    }
+
+    /**
+     * Reader of the chart before pull parser, kept as reference.
+     */
+    private static ChartData readWithOrgJson(String json) throws JSONException {
+        JSONObject chartObject = new JSONObject(json);
+        ChartData nextChartData = new ChartData();
+        Map<String, String> types = parseKeyValueSet(chartObject.getJSONObject(JsonGraphReader.Set.TYPES));
+        Map<String, String> names = parseKeyValueSet(chartObject.getJSONObject(JsonGraphReader.Set.NAMES));
+        Map<String, String> colors = parseKeyValueSet(chartObject.getJSONObject(JsonGraphReader.Set.COLORS));
+
+        JSONArray availColumns = chartObject.getJSONArray(JsonGraphReader.Set.COLUMNS);
+        for (int j = 0; j < availColumns.length(); j++) {
+            String chartId = "";
+            List<Long> chartData = new ArrayList<>();
+            JSONArray valueSet = availColumns.getJSONArray(j);
+            String currentType = null;
+            for (int k = 0; k < valueSet.length(); k++) {
+                Object nextObj = valueSet.get(k);
+                if (nextObj instanceof String) {
+                    chartId = (String) nextObj;
+                    currentType = types.get(chartId);
+                } else if (nextObj instanceof Long || nextObj instanceof Integer) {
+                    chartData.add(((Number) nextObj).longValue());
+                }
+            }
+            long[] values = new long[chartData.size()];
+            for (int k = 0; k < values.length; k++) {
+                values[k] = chartData.get(k);
+            }
+            switch (currentType) {
+                case ChartData.Type.BAR:
+                case ChartData.Type.AREA:
+                case ChartData.Type.LINE:
+                    nextChartData.addYValues(new ChartData.YData(chartId,
+                            names.get(chartId), currentType, colors.get(chartId), values));
+                    break;
+                case ChartData.Type.X:
+                    nextChartData.setXValues(values);
+                    break;
+            }
+        }
+        nextChartData.setDoubleYAxis(chartObject.has(JsonGraphReader.Set.Y_SCALED)
+                && chartObject.getBoolean(JsonGraphReader.Set.Y_SCALED));
+        nextChartData.setStacked(chartObject.has(JsonGraphReader.Set.STACKED)
+                && chartObject.getBoolean(JsonGraphReader.Set.STACKED));
+        nextChartData.setPercentage(chartObject.has(JsonGraphReader.Set.PERCENTAGE)
+                && chartObject.getBoolean(JsonGraphReader.Set.PERCENTAGE));
+        return nextChartData;
+    }
+
+    private static Map<String, String> parseKeyValueSet(JSONObject objectToParse) throws JSONException {
+        Map<String, String> result = new HashMap<>();
+        for (Iterator<String> it = objectToParse.keys(); it.hasNext(); ) {
+            String key = it.next();
+            result.put(key, objectToParse.getString(key));
+        }
+        return result;
+    }
+}
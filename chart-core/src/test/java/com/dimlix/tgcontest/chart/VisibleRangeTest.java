@@ -0,0 +1,115 @@
+package com.dimlix.tgcontest.chart;
+
+import com.dimlix.tgcontest.model.ChartData;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class VisibleRangeTest {
+    private final VisibleRange mRange = new VisibleRange();
+
+    @Test
+    public void lines_shareAxis() {
+        ChartData data = createChart(ChartData.Type.LINE, new long[]{5, 9, 3, 7}, new long[]{6, 4, 8, 2});
+        mRange.setYRange(data, 0, 4);
+        assertRange(1, 2, 9);
+        mRange.setYRange(data, 1, 3);
+        assertRange(1, 3, 9);
+
+        data.setLineShown(data.getYValues().get(0), false);
+        mRange.setYRange(data, 1, 3);
+        assertRange(1, 4, 8);
+
+        data.setLineShown(data.getYValues().get(1), false);
+        mRange.setYRange(data, 1, 3);
+        assertRange(1, VisibleRange.NO_MIN, 0);
+    }
+
+    @Test
+    public void stacked_sumsMaximumsFromZero() {
+        ChartData data = createChart(ChartData.Type.AREA, new long[]{5, 9, 3, 7}, new long[]{6, 4, 8, 2});
+        data.setStacked(true);
+        mRange.setYRange(data, 0, 4);
+        assertRange(1, 0, 17);
+        mRange.setYRange(data, 2, 4);
+        assertRange(1, 0, 15);
+
+        data.setLineShown(data.getYValues().get(1), false);
+        mRange.setYRange(data, 2, 4);
+        assertRange(1, 0, 7);
+    }
+
+    @Test
+    public void hiddenBar_keepsZero() {
+        ChartData data = createChart(ChartData.Type.BAR, new long[]{5, 9, 3, 7});
+        data.addYValues(new ChartData.YData("y1", "y1", ChartData.Type.LINE, "#000000", new long[]{6, 4, 8, 2}));
+        data.setLineShown(data.getYValues().get(0), false);
+        mRange.setYRange(data, 0, 4);
+        assertRange(1, 0, 8);
+    }
+
+    @Test
+    public void doubleYAxis_axisPerLine() {
+        ChartData data = createChart(ChartData.Type.LINE, new long[]{5, 9, 3, 7}, new long[]{600, 400, 800, 200});
+        data.setDoubleYAxis(true);
+        mRange.setYRange(data, 0, 3);
+        assertEquals(2, mRange.getAxisCount());
+        assertEquals(3, mRange.getMin(0));
+        assertEquals(9, mRange.getMax(0));
+        assertEquals(400, mRange.getMin(1));
+        assertEquals(800, mRange.getMax(1));
+
+        // Hidden line keeps its axis, so that it fades out in place.
+        data.setLineShown(data.getYValues().get(1), false);
+        mRange.setYRange(data, 0, 3);
+        assertEquals(400, mRange.getMin(1));
+        assertEquals(800, mRange.getMax(1));
+    }
+
+    @Test
+    public void labelStep_halvedAndDoubled() {
+        assertFalse(mRange.setLabelStep(0, 364));
+        assertEquals(128, mRange.getLabelStep());
+        assertEquals(128, mRange.getPrevLabelStep());
+
+        // Less than 3 labels.
+        assertTrue(mRange.setLabelStep(0, 300));
+        assertEquals(64, mRange.getLabelStep());
+        assertEquals(128, mRange.getPrevLabelStep());
+        assertFalse(mRange.isLabelStepIncreased());
+        mRange.commitLabelStep();
+        assertEquals(64, mRange.getPrevLabelStep());
+
+        // More than 5 labels.
+        assertFalse(mRange.setLabelStep(0, 320));
+        assertTrue(mRange.setLabelStep(0, 400));
+        assertEquals(128, mRange.getLabelStep());
+        assertTrue(mRange.isLabelStepIncreased());
+    }
+
+    @Test
+    public void labelStep_neverZero() {
+        assertFalse(mRange.setLabelStep(0, 6));
+        assertEquals(1, mRange.getLabelStep());
+        assertFalse(mRange.setLabelStep(0, 1));
+        assertEquals(1, mRange.getLabelStep());
+    }
+
+    private void assertRange(int axes, long min, long max) {
+        assertEquals(axes, mRange.getAxisCount());
+        assertEquals(min, mRange.getMin(0));
+        assertEquals(max, mRange.getMax(0));
+    }
+
+    private static ChartData createChart(String type, long[]... lines) {
+        ChartData data = new ChartData();
+        data.setXValues(new long[lines[0].length]);
+        for (int k = 0; k < lines.length; k++) {
+            data.addYValues(new ChartData.YData("y" + k, "y" + k, type, "#000000", lines[k]));
+        }
+        return data;
+    }
+}
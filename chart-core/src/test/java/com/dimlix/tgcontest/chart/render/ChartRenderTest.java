@@ -0,0 +1,271 @@
+package com.dimlix.tgcontest.chart.render;
+
+import com.dimlix.tgcontest.JsonGraphReader;
+import com.dimlix.tgcontest.chart.VisibleRange;
+import com.dimlix.tgcontest.model.ChartData;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Renders bundled charts of every type headlessly and checks what renderers draw, so that
+ * changes of geometry show up as changed checksums.
+ */
+public class ChartRenderTest {
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1000;
+    private static final int SIDE_MARGIN = 40;
+
+    @Test
+    public void line() throws Exception {
+        Frame frame = new Frame("graph_1.json");
+        frame.draw(0, 364, 1);
+        frame.assertCanvas(2, 728, 0, 8395385212407661542L);
+        frame.draw(300, 364, 1);
+        frame.assertCanvas(2, 128, 0, 7709425095515133694L);
+    }
+
+    @Test
+    public void dualAxis() throws Exception {
+        Frame frame = new Frame("graph_2.json");
+        frame.draw(0, 364, 1);
+        frame.assertCanvas(2, 728, 0, 5047889138902653555L);
+        frame.draw(300, 364, 1);
+        frame.assertCanvas(2, 128, 0, 6228455143958859235L);
+    }
+
+    @Test
+    public void stackedBars() throws Exception {
+        Frame frame = new Frame("graph_3.json");
+        frame.draw(0, 364, 1);
+        frame.assertCanvas(7, 2548, 0, -37706014409146926L);
+        frame.draw(300, 364, 1);
+        frame.assertCanvas(7, 448, 0, -2801453287159853906L);
+    }
+
+    @Test
+    public void bars() throws Exception {
+        Frame frame = new Frame("graph_4.json");
+        frame.draw(0, 364, 1);
+        frame.assertCanvas(1, 364, 0, 3162788282227509227L);
+    }
+
+    @Test
+    public void percentage() throws Exception {
+        Frame frame = new Frame("graph_5.json");
+        frame.draw(0, 364, 1);
+        frame.assertCanvas(6, 0, 1835, -2149012672922359261L);
+        frame.draw(300, 364, 1);
+        frame.assertCanvas(6, 0, 335, -6100991216080497641L);
+    }
+
+    @Test
+    public void toggledLine_fadesOut() throws Exception {
+        for (String asset : new String[]{"graph_1.json", "graph_2.json", "graph_3.json", "graph_5.json"}) {
+            Frame frame = new Frame(asset);
+            frame.draw(0, 364, 1);
+            long shown = frame.mCanvas.getChecksum();
+            frame.toggle(0);
+            frame.draw(0, 364, 0.5f);
+            long toggling = frame.mCanvas.getChecksum();
+            frame.draw(0, 364, 1);
+            assertNotEquals(asset, shown, toggling);
+            assertNotEquals(asset, toggling, frame.mCanvas.getChecksum());
+        }
+    }
+
+    @Test
+    public void panBack_drawsTheSame() throws Exception {
+        for (String asset : new String[]{"graph_1.json", "graph_2.json", "graph_3.json",
+                "graph_4.json", "graph_5.json"}) {
+            Frame frame = new Frame(asset);
+            frame.draw(100, 200, 1);
+            long checksum = frame.mCanvas.getChecksum();
+            frame.draw(101, 201, 1);
+            frame.draw(100, 200, 1);
+            assertEquals(asset, checksum, frame.mCanvas.getChecksum());
+        }
+    }
+
+    @Test
+    public void zoomedOut_drawsBuckets() {
+        int points = 100000;
+        int series = 3;
+        String[] types = {ChartData.Type.LINE, ChartData.Type.BAR, ChartData.Type.AREA, ChartData.Type.AREA};
+        for (int mode = 0; mode < types.length; mode++) {
+            ChartData data = createChart(points, series, types[mode]);
+            data.setStacked(mode > 0);
+            data.setPercentage(mode == 3);
+            Frame frame = new Frame(data);
+            frame.draw(points / 2, points / 2 + 500, 1);
+            long zoomedIn = frame.mCanvas.getSegmentCount() + frame.mCanvas.getVertexCount();
+            frame.draw(0, points - 1, 1);
+            long zoomedOut = frame.mCanvas.getSegmentCount() + frame.mCanvas.getVertexCount();
+            // About one or two points per pixel of each line instead of all of them.
+            String message = types[mode] + " " + mode;
+            assertTrue(message, zoomedOut > 0);
+            assertTrue(message, zoomedOut <= 4L * WIDTH * series);
+            assertTrue(message, zoomedOut < zoomedIn * points / 500 / 10);
+        }
+    }
+
+    @Test
+    public void percentage_zeroTotal_drawsFiniteBorders() {
+        ChartData data = createChart(1000, 3, ChartData.Type.AREA);
+        data.setStacked(true);
+        data.setPercentage(true);
+        for (ChartData.YData yData : data.getYValues()) {
+            Arrays.fill(yData.getValues(), 400, 600, 0);
+        }
+        Frame frame = new Frame(data);
+        frame.draw(300, 700, 1);
+        assertTrue(frame.mCanvas.getVertexCount() > 0);
+        for (RecordingCanvas.Op op : frame.mCanvas.getOps()) {
+            for (float value : op.getPoints()) {
+                assertTrue(!Float.isNaN(value) && !Float.isInfinite(value));
+            }
+        }
+    }
+
+    @Test
+    public void cachedRange_extendedOnlyWhilePanned() throws Exception {
+        Frame frame = new Frame("graph_1.json");
+        frame.draw(100, 200, 1);
+        CachedRange range = new CachedRange();
+        assertTrue(range.update(frame.mState));
+        assertEquals(100, range.getFrom());
+        assertEquals(200, range.getTo());
+
+        frame.setX(150, 250);
+        assertTrue(range.update(frame.mState));
+        assertEquals(50, range.getFrom());
+        assertEquals(350, range.getTo());
+        frame.setX(140, 240);
+        assertFalse(range.update(frame.mState));
+
+        // Y range animates, geometry of the extended range would be thrown away on next frame.
+        frame.mState.setProgress(0.5f);
+        assertTrue(range.update(frame.mState));
+        assertEquals(140, range.getFrom());
+        assertEquals(240, range.getTo());
+    }
+
+    /**
+     * Chart with its state set the way chart view does for the visible points.
+     */
+    private static class Frame {
+        private final ChartData mData;
+        private final RenderState mState = new RenderState();
+        private final ChartRenderer mRenderer;
+        private final VisibleRange mRange = new VisibleRange();
+        private final RecordingCanvas mCanvas = new RecordingCanvas(true);
+        private final long[] mMin;
+        private final long[] mMax;
+
+        Frame(String asset) throws Exception {
+            this(new JsonGraphReader().getChartDataFromJson(readAsset(asset)));
+        }
+
+        Frame(ChartData data) {
+            mData = data;
+            ChartPaint paint = new ChartPaint();
+            paint.setStyle(ChartRenderers.isFilled(mData) ? ChartPaint.STYLE_FILL : ChartPaint.STYLE_STROKE);
+            paint.setStrokeWidth(4);
+            mState.setChartData(mData, paint);
+            mState.setToggledLines(Collections.<String>emptySet());
+            mState.setBand(mData.isPercentage() ? HEIGHT * 0.2f : 0, HEIGHT);
+            mRenderer = ChartRenderers.create(mData);
+            mMin = new long[mData.getYValues().size()];
+            mMax = new long[mData.getYValues().size()];
+        }
+
+        void toggle(int line) {
+            ChartData.YData yData = mData.getYValues().get(line);
+            mData.setLineShown(yData, !yData.isShown());
+            mState.setToggledLines(Collections.singleton(yData.getVarName()));
+        }
+
+        void draw(int first, int last, float progress) {
+            mState.setProgress(progress);
+            setX(first, last);
+            if (!mData.isPercentage()) {
+                mRange.setYRange(mData, first, last);
+                for (int axis = 0; axis < mRange.getAxisCount(); axis++) {
+                    mState.setYRange(axis, mMin[axis], mMax[axis], mRange.getMin(axis), mRange.getMax(axis));
+                    if (progress >= 1) {
+                        mMin[axis] = mRange.getMin(axis);
+                        mMax[axis] = mRange.getMax(axis);
+                    }
+                }
+            }
+            mCanvas.reset();
+            mRenderer.draw(mCanvas, mState);
+        }
+
+        void setX(int first, int last) {
+            int size = mData.getSize();
+            float pointStep = (float) WIDTH / (size - 1);
+            float scale = (float) (size - 1) / (last - first);
+            mState.setX(first, last, pointStep, scale, first * pointStep, SIDE_MARGIN, WIDTH);
+        }
+
+        void assertCanvas(int ops, long segments, long vertices, long checksum) {
+            assertEquals(ops, mCanvas.getOpCount());
+            assertEquals(segments, mCanvas.getSegmentCount());
+            assertEquals(vertices, mCanvas.getVertexCount());
+            assertEquals(checksum, mCanvas.getChecksum());
+        }
+    }
+
+    /**
+     * @return chart of random walks of daily values
+     */
+    private static ChartData createChart(int points, int series, String type) {
+        Random random = new Random(42);
+        ChartData data = new ChartData();
+        long[] x = new long[points];
+        for (int i = 0; i < points; i++) {
+            x[i] = 1546300800000L + i * 86400000L;
+        }
+        data.setXValues(x);
+        for (int k = 0; k < series; k++) {
+            long[] values = new long[points];
+            long value = 1000 + random.nextInt(100000);
+            for (int i = 0; i < points; i++) {
+                value = Math.max(0, value + random.nextInt(2001) - 1000);
+                values[i] = value;
+            }
+            data.addYValues(new ChartData.YData("y" + k, "Series " + k, type, "#3DC23F", values));
+        }
+        return data;
+    }
+
+    private static byte[] readAsset(String name) throws IOException {
+        InputStream is = ChartRenderTest.class.getClassLoader().getResourceAsStream(name);
+        if (is == null) {
+            throw new IOException("No asset " + name);
+        }
+        try {
+            ByteArrayOutputStream result = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+                result.write(buffer, 0, read);
+            }
+            return result.toByteArray();
+        } finally {
+            is.close();
+        }
+    }
+}